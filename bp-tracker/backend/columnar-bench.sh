@@ -0,0 +1,96 @@
+#!/bin/bash
+# Payload size and serialization cost of the reading formats: plain JSON, columnar JSON
+# (application/vnd.bptracker.columnar+json) and CBOR (application/cbor), for
+# /api/readings/graph?range=all and /api/readings/all over one user's history.
+#
+# For each endpoint and format it prints:
+#   - bytes on the wire, plain and gzip
+#   - mean time to first byte and total time over a few sequential requests (curl). The
+#     difference is mostly serialization and transfer, since the rows are loaded first.
+#   - p50/p99 and requests/s under load (hey)
+#
+# Runs on in-memory H2 (application-training.properties). Needs hey
+# (https://github.com/rakyll/hey) on the PATH.
+#
+#   mvn package
+#   ./columnar-bench.sh [readings] [seconds-per-phase]
+#
+# Coalescing and rate limiting are off so every request serializes its own response.
+
+READINGS=${1:-10000}
+DURATION=${2:-15}
+SAMPLES=${SAMPLES:-20}
+CONCURRENCY=${CONCURRENCY:-16}
+PORT=${PORT:-18088}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+BASE="http://localhost:$PORT"
+
+command -v hey > /dev/null || { echo "hey not found"; exit 1; }
+[ -f "$JAR" ] || { echo "Missing $JAR - run 'mvn package' first"; exit 1; }
+
+# hey summary -> "p50 <ms> ms, p99 <ms> ms, <n> req/s"
+report() {
+    echo "$1" | awk '/50% in/ {p50 = $3 * 1000} /99% in/ {p99 = $3 * 1000} /Requests\/sec/ {rps = $2}
+        END {printf "p50 %.1f ms, p99 %.1f ms, %.0f req/s", p50, p99, rps}'
+}
+
+# Ingest bodies of 1000 readings each, one hour apart going back from now
+make_bodies() {
+    local out=$1 now
+    now=$(date +%s)
+    seq 0 $((READINGS - 1)) | awk -v now="$now" '{print "@" (now - $1 * 3600)}' \
+        | date -f - +%Y-%m-%dT%H:%M:%S \
+        | awk -v out="$out" '{
+            i = NR - 1
+            if (i % 1000 == 0) { if (i > 0) print "]}" > f; close(f); f = sprintf("%s/%06d.json", out, i / 1000)
+                                 printf "{\"deviceId\":\"bench\",\"readings\":[" > f }
+            else printf "," > f
+            printf "{\"systolic\":%d,\"diastolic\":%d,\"pulse\":%d,\"recordedAt\":\"%s\"}", \
+                110 + i % 60, 70 + i % 40, 60 + i % 30, $1 > f
+          } END { print "]}" > f }'
+}
+
+BODIES=$(mktemp -d)
+trap 'rm -rf "$BODIES"' EXIT
+make_bodies "$BODIES"
+
+java -jar "$JAR" --spring.config.location=classpath:/application-training.properties \
+    --server.port="$PORT" --ratelimit.enabled=false --coalesce.enabled=false \
+    --server.compression.enabled=true \
+    --server.compression.mime-types=application/json,application/vnd.bptracker.columnar+json,application/cbor \
+    > /dev/null 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null; rm -rf "$BODIES"' EXIT
+
+until curl -sf -o /dev/null -X POST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"bench","email":"bench@example.com","password":"bench123"}'; do
+    sleep 0.2
+done
+TOKEN=$(curl -sf -X POST "$BASE/api/auth/login" -H 'Content-Type: application/json' \
+    -d '{"username":"bench","password":"bench123"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+for body in "$BODIES"/*.json; do
+    curl -s -o /dev/null -X POST "$BASE/api/readings/ingest" -H "Authorization: Bearer $TOKEN" \
+        -H 'Content-Type: application/json' --data-binary @"$body"
+done
+echo "$READINGS readings loaded"
+
+for path in "graph?range=all" "all"; do
+    url="$BASE/api/readings/$path"
+    for accept in application/json application/vnd.bptracker.columnar+json application/cbor; do
+        plain=$(curl -s -o /dev/null -w '%{size_download}' -H "Authorization: Bearer $TOKEN" \
+            -H "Accept: $accept" "$url")
+        gzip=$(curl -s -o /dev/null -w '%{size_download}' -H "Authorization: Bearer $TOKEN" \
+            -H "Accept: $accept" -H 'Accept-Encoding: gzip' "$url")
+        timing=$(for ((i = 0; i < SAMPLES; i++)); do
+            curl -s -o /dev/null -w '%{time_starttransfer} %{time_total}\n' \
+                -H "Authorization: Bearer $TOKEN" -H "Accept: $accept" "$url"
+        done | awk '{ttfb += $1; total += $2} END {printf "first byte %.1f ms, total %.1f ms", ttfb / NR * 1000, total / NR * 1000}')
+        echo "GET /api/readings/$path  Accept: $accept"
+        echo "  bytes: $plain (gzip $gzip)"
+        echo "  $timing (mean of $SAMPLES)"
+        echo "  $(report "$(hey -z "${DURATION}s" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" \
+            -H "Accept: $accept" "$url")")"
+    done
+done
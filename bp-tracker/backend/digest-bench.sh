@@ -0,0 +1,59 @@
+#!/bin/bash
+# Weekly digest batch throughput (users/s) against MySQL: seeds digest_* users with readings
+# spread over one week, then runs the batch for that week at a few parallelism levels.
+#
+# Needs MySQL with the bp_tracker schema and the mysql client on the PATH.
+#
+#   mvn package
+#   DB_USER=root DB_PASS=secret ./digest-bench.sh [users] [readings-per-user]
+#
+# Seeding 1M users x 14 readings takes a while; set SEED=0 to reuse the previous data.
+
+USERS=${1:-1000000}
+PER_USER=${2:-14}
+SEED=${SEED:-1}
+PORT=${PORT:-18085}
+WEEK=${WEEK:-2026-01-05}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+MYSQL_ARGS=(-h 127.0.0.1 -u "${DB_USER:-root}" bp_tracker)
+[ -n "$DB_PASS" ] && MYSQL_ARGS+=(-p"$DB_PASS")
+
+command -v mysql > /dev/null || { echo "mysql not found"; exit 1; }
+[ -f "$JAR" ] || { echo "Missing $JAR - run 'mvn package' first"; exit 1; }
+
+if [ "$SEED" = 1 ]; then
+    echo "Seeding $USERS users x $PER_USER readings"
+    mysql "${MYSQL_ARGS[@]}" <<SQL
+SET SESSION cte_max_recursion_depth = $((USERS + 1));
+DELETE FROM users WHERE username LIKE 'digest\_%';
+INSERT INTO users (username, email, password)
+WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < $USERS)
+SELECT CONCAT('digest_', n), CONCAT('digest_', n, '@example.com'), 'x' FROM seq;
+INSERT INTO bp_readings (user_id, systolic, diastolic, pulse, recorded_at, category, deleted)
+WITH RECURSIVE k (i) AS (SELECT 0 UNION ALL SELECT i + 1 FROM k WHERE i < $PER_USER - 1)
+SELECT u.id, 110 + (u.id + k.i * 7) % 70, 70 + (u.id + k.i * 3) % 40, 60 + (u.id + k.i) % 40,
+       TIMESTAMP('$WEEK') + INTERVAL (k.i * 604800 DIV $PER_USER) SECOND, 0, false
+FROM users u CROSS JOIN k WHERE u.username LIKE 'digest\_%';
+SQL
+fi
+
+for parallelism in 1 4 8; do
+    mysql "${MYSQL_ARGS[@]}" -e "DELETE FROM weekly_digests WHERE week_start = '$WEEK';
+        DELETE FROM digest_partitions WHERE week_start = '$WEEK'; DELETE FROM digest_runs WHERE week_start = '$WEEK';"
+    log=$(mktemp)
+    java -jar "$JAR" --server.port="$PORT" \
+        --spring.datasource.url="jdbc:mysql://127.0.0.1:3306/bp_tracker?useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true" \
+        --spring.datasource.username="${DB_USER:-root}" --spring.datasource.password="${DB_PASS:-}" \
+        --spring.datasource.hikari.maximum-pool-size=$((parallelism + 4)) \
+        --digest.enabled=true --digest.week="$WEEK" --digest.parallelism="$parallelism" > "$log" 2>&1 &
+    pid=$!
+    until grep -q "Digest $WEEK \(done\|incomplete\)" "$log"; do
+        kill -0 "$pid" 2>/dev/null || { echo "Backend exited:"; tail -20 "$log"; exit 1; }
+        sleep 1
+    done
+    echo "parallelism $parallelism: $(grep -o "Digest $WEEK \(done\|incomplete\).*" "$log")"
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+    rm -f "$log"
+done
@@ -0,0 +1,90 @@
+#!/bin/bash
+# Full reading responses against fields= on a 10k-reading history: bytes on the wire (plain and
+# gzip) and p50/p99 for /api/readings?range=all and /api/readings/all, with and without
+# fields=recordedAt,systolic,diastolic. Every third reading carries a ~300 character voice
+# transcript as its note. Runs on in-memory H2 (application-training.properties); extra
+# arguments go to the app, e.g. --storage.backend=mmap.
+#
+# Needs hey (https://github.com/rakyll/hey) on the PATH.
+#
+#   mvn package
+#   ./fields-bench.sh [readings] [seconds-per-phase] [app args...]
+#
+# Coalescing and rate limiting are off so every request does its own read. Response compression
+# is on, and hey (Go's HTTP client) asks for gzip, so the latencies include compressing.
+
+READINGS=${1:-10000}
+DURATION=${2:-20}
+shift $(( $# < 2 ? $# : 2 ))
+CONCURRENCY=${CONCURRENCY:-16}
+PORT=${PORT:-18087}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+BASE="http://localhost:$PORT"
+FIELDS="recordedAt,systolic,diastolic"
+
+command -v hey > /dev/null || { echo "hey not found"; exit 1; }
+[ -f "$JAR" ] || { echo "Missing $JAR - run 'mvn package' first"; exit 1; }
+
+# hey summary -> "p50 <ms> ms, p99 <ms> ms, <n> req/s"
+report() {
+    echo "$1" | awk '/50% in/ {p50 = $3 * 1000} /99% in/ {p99 = $3 * 1000} /Requests\/sec/ {rps = $2}
+        END {printf "p50 %.1f ms, p99 %.1f ms, %.0f req/s", p50, p99, rps}'
+}
+
+# Ingest bodies of 1000 readings each, one hour apart going back from now
+make_bodies() {
+    local out=$1 now
+    now=$(date +%s)
+    seq 0 $((READINGS - 1)) | awk -v now="$now" '{print "@" (now - $1 * 3600)}' \
+        | date -f - +%Y-%m-%dT%H:%M:%S \
+        | awk -v out="$out" 'BEGIN {
+            note = "Taken after the morning walk, sitting for five minutes first. Felt a little lightheaded"
+            note = note " when standing up, no headache, slept about six hours. Had coffee around seven and the"
+            note = note " usual tablets with breakfast. Left arm, cuff at heart level, second of two readings."
+          } {
+            i = NR - 1
+            if (i % 1000 == 0) { if (i > 0) print "]}" > f; close(f); f = sprintf("%s/%06d.json", out, i / 1000)
+                                 printf "{\"deviceId\":\"bench\",\"readings\":[" > f }
+            else printf "," > f
+            printf "{\"systolic\":%d,\"diastolic\":%d,\"pulse\":%d,\"recordedAt\":\"%s\"", \
+                110 + i % 60, 70 + i % 40, 60 + i % 30, $1 > f
+            if (i % 3 == 0) printf ",\"readingType\":\"VOICE\",\"notes\":\"%s\"", note > f
+            printf "}" > f
+          } END { print "]}" > f }'
+}
+
+BODIES=$(mktemp -d)
+trap 'rm -rf "$BODIES"' EXIT
+make_bodies "$BODIES"
+
+java -jar "$JAR" --spring.config.location=classpath:/application-training.properties \
+    --server.port="$PORT" --ratelimit.enabled=false --coalesce.enabled=false \
+    --server.compression.enabled=true --server.compression.mime-types=application/json "$@" > /dev/null 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null; rm -rf "$BODIES"' EXIT
+
+until curl -sf -o /dev/null -X POST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"bench","email":"bench@example.com","password":"bench123"}'; do
+    sleep 0.2
+done
+TOKEN=$(curl -sf -X POST "$BASE/api/auth/login" -H 'Content-Type: application/json' \
+    -d '{"username":"bench","password":"bench123"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+for body in "$BODIES"/*.json; do
+    curl -s -o /dev/null -X POST "$BASE/api/readings/ingest" -H "Authorization: Bearer $TOKEN" \
+        -H 'Content-Type: application/json' --data-binary @"$body"
+done
+# Ingest acknowledges once the batch has committed; give the last one a moment anyway
+sleep 1
+echo "$READINGS readings loaded"
+
+for path in "?range=all" "?range=all&fields=$FIELDS" "/all" "/all?fields=$FIELDS"; do
+    url="$BASE/api/readings$path"
+    plain=$(curl -s -o /dev/null -w '%{size_download}' -H "Authorization: Bearer $TOKEN" "$url")
+    gzip=$(curl -s -o /dev/null -w '%{size_download}' -H "Authorization: Bearer $TOKEN" \
+        -H 'Accept-Encoding: gzip' "$url")
+    echo "GET /api/readings$path"
+    echo "  bytes: $plain (gzip $gzip)"
+    echo "  $(report "$(hey -z "${DURATION}s" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$url")")"
+done
@@ -0,0 +1,82 @@
+#!/bin/bash
+# Sustained write throughput: readings stored per second through POST /api/readings (one reading
+# and one transaction per request) against POST /api/readings/ingest (group commit) with 1 and
+# with BATCH readings per request, plus p50/p99 per request and how many requests were refused.
+#
+# Runs on in-memory H2 (application-training.properties); extra arguments go to the app, e.g.
+# the MySQL datasource or --ingest.writer-threads=4. Needs hey (https://github.com/rakyll/hey)
+# on the PATH.
+#
+#   mvn package
+#   ./ingest-bench.sh [seconds-per-phase] [app args...]
+#
+# Rate limiting and the concurrency limit are off so the write path is the bottleneck. The app
+# is restarted for every phase so each one starts from an empty table.
+
+DURATION=${1:-30}
+shift $(( $# < 1 ? $# : 1 ))
+BATCH=${BATCH:-100}
+CONCURRENCY=${CONCURRENCY:-32}
+PORT=${PORT:-18089}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+BASE="http://localhost:$PORT"
+
+command -v hey > /dev/null || { echo "hey not found"; exit 1; }
+[ -f "$JAR" ] || { echo "Missing $JAR - run 'mvn package' first"; exit 1; }
+
+# One ingest body with n readings, a minute apart going back from now
+ingest_body() {
+    local n=$1 now
+    now=$(date +%s)
+    seq 0 $((n - 1)) | awk -v now="$now" '{print "@" (now - $1 * 60)}' \
+        | date -f - +%Y-%m-%dT%H:%M:%S \
+        | awk 'BEGIN {printf "{\"deviceId\":\"bench\",\"readings\":["}
+            { i = NR - 1; if (i > 0) printf ","
+              printf "{\"systolic\":%d,\"diastolic\":%d,\"pulse\":%d,\"recordedAt\":\"%s\"}", \
+                  110 + i % 60, 70 + i % 40, 60 + i % 30, $1 }
+            END {print "]}"}'
+}
+
+# hey output and readings per request -> "<n> readings/s, p50 <ms> ms, p99 <ms> ms, refused <n>"
+report() {
+    echo "$1" | awk -v per="$2" -v secs="$DURATION" '
+        /50% in/ {p50 = $3 * 1000} /99% in/ {p99 = $3 * 1000}
+        /\[20[0-2]\]/ {ok += $2} /\[(429|5[0-9][0-9])\]/ {refused += $2}
+        END {printf "%.0f readings/s, p50 %.1f ms, p99 %.1f ms, refused %d", ok * per / secs, p50, p99, refused}'
+}
+
+run_phase() {
+    local label=$1 path=$2 body=$3 per=$4
+    local pid token
+    shift 4
+    java -jar "$JAR" --spring.config.location=classpath:/application-training.properties \
+        --server.port="$PORT" "$@" > /dev/null 2>&1 &
+    pid=$!
+
+    until curl -sf -o /dev/null -X POST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d '{"username":"bench","email":"bench@example.com","password":"bench123"}'; do
+        sleep 0.2
+    done
+    token=$(curl -sf -X POST "$BASE/api/auth/login" -H 'Content-Type: application/json' \
+        -d '{"username":"bench","password":"bench123"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+    # Short warm-up so the JIT and the connection pool are not part of the measurement
+    hey -z 5s -c "$CONCURRENCY" -m POST -T application/json -D "$body" \
+        -H "Authorization: Bearer $token" "$BASE$path" > /dev/null
+    echo "$label: $(report "$(hey -z "${DURATION}s" -c "$CONCURRENCY" -m POST -T application/json -D "$body" \
+        -H "Authorization: Bearer $token" "$BASE$path")" "$per")"
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+}
+
+BODIES=$(mktemp -d)
+trap 'rm -rf "$BODIES"' EXIT
+echo '{"systolic":128,"diastolic":82,"pulse":72}' > "$BODIES/single.json"
+ingest_body 1 > "$BODIES/ingest-1.json"
+ingest_body "$BATCH" > "$BODIES/ingest-$BATCH.json"
+
+run_phase "POST /api/readings          " /api/readings "$BODIES/single.json" 1 "$@"
+run_phase "POST /ingest, 1 per request " /api/readings/ingest "$BODIES/ingest-1.json" 1 "$@"
+run_phase "POST /ingest, $BATCH per request" /api/readings/ingest "$BODIES/ingest-$BATCH.json" "$BATCH" "$@"
@@ -0,0 +1,68 @@
+#!/bin/bash
+# Cross-instance staleness: two backends share one MySQL database; readings are written on
+# node A while node B serves summaries, and B's bp.invalidation.staleness timer reports how long
+# after each write B's caches were invalidated (p50/p90/p99).
+#
+# Needs MySQL with the bp_tracker schema (including cache_invalidations).
+#
+#   mvn package
+#   DB_USER=root DB_PASS=secret ./invalidation-bench.sh [writes] [poll-ms]
+
+WRITES=${1:-500}
+POLL_MS=${2:-250}
+PORT_A=${PORT_A:-18083}
+PORT_B=${PORT_B:-18084}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+A="http://localhost:$PORT_A"
+B="http://localhost:$PORT_B"
+USER="bench$RANDOM"
+
+[ -f "$JAR" ] || { echo "Missing $JAR - run 'mvn package' first"; exit 1; }
+
+start_node() {
+    java -jar "$JAR" --server.port="$1" --invalidation.node-id="$2" --invalidation.poll-ms="$POLL_MS" \
+        --spring.datasource.url="jdbc:mysql://127.0.0.1:3306/bp_tracker?useSSL=false&allowPublicKeyRetrieval=true" \
+        --spring.datasource.username="${DB_USER:-root}" --spring.datasource.password="${DB_PASS:-}" \
+        --management.endpoints.web.exposure.include=health,metrics \
+        --ratelimit.enabled=false > /dev/null 2>&1 &
+}
+
+start_node "$PORT_A" node-a; PID_A=$!
+start_node "$PORT_B" node-b; PID_B=$!
+trap 'kill $PID_A $PID_B 2>/dev/null' EXIT
+
+until curl -sf -o /dev/null "$B/actuator/health"; do sleep 0.2; done
+until curl -sf -o /dev/null -X POST "$A/api/auth/register" -H 'Content-Type: application/json' \
+    -d "{\"username\":\"$USER\",\"email\":\"$USER@example.com\",\"password\":\"bench123\"}"; do
+    sleep 0.2
+done
+TOKEN=$(curl -sf -X POST "$A/api/auth/login" -H 'Content-Type: application/json' \
+    -d "{\"username\":\"$USER\",\"password\":\"bench123\"}" | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+# Keep B's coalescer warm for the user so every write has something to invalidate
+( while true; do
+    curl -s -o /dev/null -H "Authorization: Bearer $TOKEN" "$B/api/readings/summary?range=30d"
+    sleep 0.05
+done ) &
+READER=$!
+
+START=$(date +%s%N)
+for ((i = 0; i < WRITES; i++)); do
+    curl -s -o /dev/null -X POST "$A/api/readings" -H "Authorization: Bearer $TOKEN" \
+        -H 'Content-Type: application/json' -d "{\"systolic\":$((110 + i % 60)),\"diastolic\":$((70 + i % 40))}"
+done
+ELAPSED=$(( ($(date +%s%N) - START) / 1000000 ))
+sleep $(( POLL_MS / 1000 + 2 ))
+kill "$READER"
+
+metric() {
+    curl -sf -H "Authorization: Bearer $TOKEN" "$B/actuator/metrics/$1$2"
+}
+
+echo "$WRITES writes on A in ${ELAPSED} ms, poll every ${POLL_MS} ms"
+echo "B received:  $(metric bp.invalidation.events '?tag=outcome:received' | sed -E 's/.*"value":([0-9.]+).*/\1/')"
+for q in 0.5 0.9 0.99; do
+    echo "B staleness p$q: $(metric bp.invalidation.staleness.percentile "?tag=phi:$q" \
+        | sed -E 's/.*"value":([0-9.E-]+).*/\1/') s"
+done
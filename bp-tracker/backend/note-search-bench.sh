@@ -0,0 +1,81 @@
+#!/bin/bash
+# Note search latency on one user with a large note history (100k notes by default): p50/p99
+# and requests/s of GET /api/readings/search for a one-letter prefix, a common word, a rare
+# word, two common words, and a common plus a rare word (where the longer, driving token is the
+# less selective one).
+#
+# Runs on in-memory H2 (application-training.properties); extra arguments go to the app, e.g.
+# the MySQL datasource. Needs hey (https://github.com/rakyll/hey) on the PATH.
+#
+#   mvn package
+#   ./note-search-bench.sh [notes] [seconds-per-query] [app args...]
+#
+# Coalescing and rate limiting are off so every request runs its own search.
+
+NOTES=${1:-100000}
+DURATION=${2:-15}
+shift $(( $# < 2 ? $# : 2 ))
+CONCURRENCY=${CONCURRENCY:-8}
+LIMIT=${LIMIT:-50}
+PORT=${PORT:-18090}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+BASE="http://localhost:$PORT"
+
+command -v hey > /dev/null || { echo "hey not found"; exit 1; }
+[ -f "$JAR" ] || { echo "Missing $JAR - run 'mvn package' first"; exit 1; }
+
+# hey summary -> "p50 <ms> ms, p99 <ms> ms, <n> req/s"
+report() {
+    echo "$1" | awk '/50% in/ {p50 = $3 * 1000} /99% in/ {p99 = $3 * 1000} /Requests\/sec/ {rps = $2}
+        END {printf "p50 %.1f ms, p99 %.1f ms, %.0f req/s", p50, p99, rps}'
+}
+
+# Ingest bodies of 1000 readings each, ten minutes apart going back from now. Every note has
+# "after" and "morning"; "coffee" is in every other note and "dizzy" in one of every 1000
+make_bodies() {
+    local out=$1 now
+    now=$(date +%s)
+    seq 0 $((NOTES - 1)) | awk -v now="$now" '{print "@" (now - $1 * 600)}' \
+        | date -f - +%Y-%m-%dT%H:%M:%S \
+        | awk -v out="$out" '{
+            i = NR - 1
+            if (i % 1000 == 0) { if (i > 0) print "]}" > f; close(f); f = sprintf("%s/%06d.json", out, i / 1000)
+                                 printf "{\"deviceId\":\"bench\",\"readings\":[" > f }
+            else printf "," > f
+            note = "Reading " i " after the morning walk"
+            if (i % 2 == 0) note = note ", coffee at seven"
+            if (i % 1000 == 500) note = note ", felt dizzy standing up"
+            printf "{\"systolic\":%d,\"diastolic\":%d,\"pulse\":%d,\"recordedAt\":\"%s\",\"notes\":\"%s\"}", \
+                110 + i % 60, 70 + i % 40, 60 + i % 30, $1, note > f
+          } END { print "]}" > f }'
+}
+
+BODIES=$(mktemp -d)
+trap 'rm -rf "$BODIES"' EXIT
+make_bodies "$BODIES"
+
+java -jar "$JAR" --spring.config.location=classpath:/application-training.properties \
+    --server.port="$PORT" --ratelimit.enabled=false --coalesce.enabled=false "$@" > /dev/null 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null; rm -rf "$BODIES"' EXIT
+
+until curl -sf -o /dev/null -X POST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"username":"bench","email":"bench@example.com","password":"bench123"}'; do
+    sleep 0.2
+done
+TOKEN=$(curl -sf -X POST "$BASE/api/auth/login" -H 'Content-Type: application/json' \
+    -d '{"username":"bench","password":"bench123"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+for body in "$BODIES"/*.json; do
+    curl -s -o /dev/null -X POST "$BASE/api/readings/ingest" -H "Authorization: Bearer $TOKEN" \
+        -H 'Content-Type: application/json' --data-binary @"$body"
+done
+echo "$NOTES notes loaded"
+
+for q in "a" "coffee" "dizzy" "after%20coff" "morning%20dizzy"; do
+    url="$BASE/api/readings/search?q=$q&limit=$LIMIT"
+    hits=$(curl -s -H "Authorization: Bearer $TOKEN" "$url" | grep -o '"id":' | wc -l)
+    echo "q=${q//%20/ } ($hits results)"
+    echo "  $(report "$(hey -z "${DURATION}s" -c "$CONCURRENCY" -H "Authorization: Bearer $TOKEN" "$url")")"
+done
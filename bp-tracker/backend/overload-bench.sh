@@ -0,0 +1,87 @@
+#!/bin/bash
+# Overload test for the adaptive concurrency limit: p99 latency and goodput (200s per second)
+# for cheap and expensive reads, before and after MySQL is slowed down, with the limit off/on.
+#
+# Needs MySQL with the bp_tracker schema, toxiproxy (toxiproxy-server running, toxiproxy-cli)
+# and hey (https://github.com/rakyll/hey) on the PATH.
+#
+#   mvn package
+#   DB_USER=root DB_PASS=secret ./overload-bench.sh [seconds-per-phase] [db-latency-ms]
+#
+# All load comes from one user, so request coalescing and rate limiting are switched off to
+# let every request reach the database.
+
+DURATION=${1:-30}
+DB_LATENCY=${2:-100}
+CONCURRENCY=${CONCURRENCY:-100}
+PORT=${PORT:-18082}
+MYSQL=${MYSQL:-127.0.0.1:3306}
+PROXY_PORT=${PROXY_PORT:-23306}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+BASE="http://localhost:$PORT"
+
+for tool in toxiproxy-cli hey; do
+    command -v "$tool" > /dev/null || { echo "$tool not found"; exit 1; }
+done
+[ -f "$JAR" ] || { echo "Missing $JAR - run 'mvn package' first"; exit 1; }
+
+toxiproxy-cli delete bp_mysql > /dev/null 2>&1
+toxiproxy-cli create -l "127.0.0.1:$PROXY_PORT" -u "$MYSQL" bp_mysql > /dev/null
+
+# hey summary -> "p99 <ms> ms, goodput <n>/s, shed <n>"
+report() {
+    local out=$1
+    local p99 ok shed
+    p99=$(echo "$out" | awk '/99% in/ {printf "%.0f", $3 * 1000}')
+    ok=$(echo "$out" | awk '/\[200\]/ {print $2}')
+    shed=$(echo "$out" | awk '/\[503\]/ {print $2}')
+    echo "p99 ${p99:-?} ms, goodput $(( ${ok:-0} / DURATION ))/s, shed ${shed:-0}"
+}
+
+phase() {
+    local label=$1 token=$2 cheap expensive
+    cheap=$(mktemp); expensive=$(mktemp)
+    hey -z "${DURATION}s" -c "$CONCURRENCY" -H "Authorization: Bearer $token" \
+        "$BASE/api/readings?range=7d" > "$cheap" &
+    hey -z "${DURATION}s" -c "$CONCURRENCY" -H "Authorization: Bearer $token" \
+        "$BASE/api/readings/summary?range=all" > "$expensive"
+    wait
+    echo "  $label cheap:     $(report "$(cat "$cheap")")"
+    echo "  $label expensive: $(report "$(cat "$expensive")")"
+    rm -f "$cheap" "$expensive"
+}
+
+run_series() {
+    local label=$1 enabled=$2 pid token user
+    user="bench$RANDOM"
+    java -jar "$JAR" --server.port="$PORT" \
+        --spring.datasource.url="jdbc:mysql://127.0.0.1:$PROXY_PORT/bp_tracker?useSSL=false&allowPublicKeyRetrieval=true" \
+        --spring.datasource.username="${DB_USER:-root}" --spring.datasource.password="${DB_PASS:-}" \
+        --ratelimit.enabled=false --coalesce.enabled=false --concurrency.enabled="$enabled" > /dev/null 2>&1 &
+    pid=$!
+
+    until curl -sf -o /dev/null -X POST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d "{\"username\":\"$user\",\"email\":\"$user@example.com\",\"password\":\"bench123\"}"; do
+        sleep 0.2
+    done
+    token=$(curl -sf -X POST "$BASE/api/auth/login" -H 'Content-Type: application/json' \
+        -d "{\"username\":\"$user\",\"password\":\"bench123\"}" | sed -E 's/.*"token":"([^"]+)".*/\1/')
+    for ((i = 0; i < 500; i++)); do
+        curl -s -o /dev/null -X POST "$BASE/api/readings" -H "Authorization: Bearer $token" \
+            -H 'Content-Type: application/json' -d "{\"systolic\":$((110 + i % 60)),\"diastolic\":$((70 + i % 40))}"
+    done
+
+    echo "$label"
+    phase "normal   " "$token"
+    toxiproxy-cli toxic add -t latency -a latency="$DB_LATENCY" -n slow bp_mysql > /dev/null
+    phase "throttled" "$token"
+    toxiproxy-cli toxic remove -n slow bp_mysql > /dev/null
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+}
+
+run_series "concurrency limit off" false
+run_series "concurrency limit on" true
+toxiproxy-cli delete bp_mysql > /dev/null
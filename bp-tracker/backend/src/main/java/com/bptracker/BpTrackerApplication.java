@@ -1,11 +1,37 @@
 package com.bptracker;
 
+import com.bptracker.config.TrainingWorkload;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 @SpringBootApplication
+@EnableScheduling
 public class BpTrackerApplication {
-    public static void main(String[] args) {
-        SpringApplication.run(BpTrackerApplication.class, args);
+    public static void main(String[] args) throws Exception {
+        SpringApplication app = new SpringApplication(BpTrackerApplication.class);
+        // @Scheduled jobs share one scheduler, a single thread unless configured: one per job
+        // (outbox poll and purge, invalidation poll and purge, revocation refresh and purge, rate
+        // limit sweep, report heartbeat and cleanup, mmap compaction, digest trigger) so none
+        // waits on another
+        app.setDefaultProperties(Map.of("spring.task.scheduling.pool.size", "11"));
+        ConfigurableApplicationContext ctx = app.run(args);
+        // AOT cache training run (mvn -Paot-cache package): exercise the endpoints, then exit,
+        // non-zero if any request failed so the build doesn't keep a badly trained cache
+        if (Boolean.getBoolean("bp.training")) {
+            int status = 0;
+            try {
+                TrainingWorkload.run(ctx);
+            } catch (Exception e) {
+                LoggerFactory.getLogger(BpTrackerApplication.class).error("Training workload failed", e);
+                status = 1;
+            }
+            int exit = SpringApplication.exit(ctx);
+            System.exit(status != 0 ? status : exit);
+        }
     }
 }
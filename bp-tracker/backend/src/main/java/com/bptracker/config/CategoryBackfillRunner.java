@@ -0,0 +1,29 @@
+package com.bptracker.config;
+
+import com.bptracker.service.CategoryBackfillService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off migration. Start an instance with --app.category-backfill.enabled=true after adding
+ * the category column and it fills the column for existing rows while continuing to serve traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "app.category-backfill.enabled", havingValue = "true")
+public class CategoryBackfillRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryBackfillRunner.class);
+
+    @Autowired private CategoryBackfillService backfillService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long updated = backfillService.backfill();
+        log.info("Category backfill finished, {} rows updated", updated);
+    }
+}
@@ -0,0 +1,136 @@
+package com.bptracker.config;
+
+import com.bptracker.config.RateLimitFilter.EndpointClass;
+import com.bptracker.util.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Global adaptive in-flight limit for /api. Runs before JwtAuthFilter so a shed request costs
+ * no token parsing or user lookup. The limit follows measured latency (AdaptiveConcurrencyLimit);
+ * expensive and write requests may only use part of it, so when the database slows down they
+ * are shed first and cheap reads keep flowing. Rejections are an immediate 503.
+ *
+ * Each endpoint class has its own latency baseline. 4xx responses (rate-limit 429s, 401s from
+ * JwtAuthFilter, validation errors) give back their slot but are not latency samples: they
+ * return in microseconds and would pull the baseline far below what real work costs. Neither are
+ * requests marked with NO_SAMPLE_ATTRIBUTE (coalesced followers).
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public static final String NO_SAMPLE_ATTRIBUTE = "bp.concurrency.no-sample";
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${concurrency.enabled:true}") private boolean enabled;
+    @Value("${concurrency.initial-limit:20}") private int initialLimit;
+    @Value("${concurrency.min-limit:4}") private int minLimit;
+    @Value("${concurrency.max-limit:200}") private int maxLimit;
+    @Value("${concurrency.tolerance:2.0}") private double tolerance;
+    @Value("${concurrency.smoothing:0.2}") private double smoothing;
+    @Value("${concurrency.expensive-share:0.5}") private double expensiveShare;
+    @Value("${concurrency.write-share:0.8}") private double writeShare;
+
+    private AdaptiveConcurrencyLimit limiter;
+    private final Map<EndpointClass, Double> shares = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> accepted = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> shed = new EnumMap<>(EndpointClass.class);
+
+    @PostConstruct
+    void init() {
+        limiter = new AdaptiveConcurrencyLimit(EndpointClass.values().length, initialLimit, minLimit, maxLimit,
+                tolerance, smoothing);
+        shares.put(EndpointClass.CHEAP, 1.0);
+        shares.put(EndpointClass.EXPENSIVE, expensiveShare);
+        shares.put(EndpointClass.WRITE, writeShare);
+        for (EndpointClass c : EndpointClass.values()) {
+            String tag = c.name().toLowerCase();
+            accepted.put(c, Counter.builder("bp.concurrency.requests").tag("class", tag).tag("outcome", "accepted")
+                    .register(meterRegistry));
+            shed.put(c, Counter.builder("bp.concurrency.requests").tag("class", tag).tag("outcome", "shed")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("bp.concurrency.limit", limiter, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder("bp.concurrency.inflight", limiter, AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !enabled || !uri.startsWith("/api/") || uri.equals("/api/auth/health");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        int inFlight = limiter.tryAcquire(shares.get(endpointClass));
+        if (inFlight < 0) {
+            shed.get(endpointClass).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Server is busy, please retry shortly\"}");
+            return;
+        }
+        accepted.get(endpointClass).increment();
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                // Streaming and CompletableFuture responses finish later; hold the slot until then
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override public void onComplete(AsyncEvent event) { release(released, endpointClass, start, inFlight, request, response, false); }
+                    @Override public void onTimeout(AsyncEvent event) { release(released, endpointClass, start, inFlight, request, response, true); }
+                    @Override public void onError(AsyncEvent event) { release(released, endpointClass, start, inFlight, request, response, true); }
+                    @Override public void onStartAsync(AsyncEvent event) {}
+                });
+            } else {
+                release(released, endpointClass, start, inFlight, request, response, failed);
+            }
+        }
+    }
+
+    private void release(AtomicBoolean released, EndpointClass endpointClass, long start, int inFlight,
+                         HttpServletRequest request, HttpServletResponse response, boolean failed) {
+        if (!released.compareAndSet(false, true)) return;
+        int status = response.getStatus();
+        boolean noSample = status < 500 && (status >= 400 || request.getAttribute(NO_SAMPLE_ATTRIBUTE) != null);
+        if (!failed && noSample) {
+            limiter.releaseWithoutSample();
+        } else {
+            limiter.release(endpointClass.ordinal(), System.nanoTime() - start, inFlight, failed || status >= 500);
+        }
+    }
+
+    private static EndpointClass classify(HttpServletRequest request) {
+        if (request.getRequestURI().startsWith("/api/cohort/summary")) return EndpointClass.EXPENSIVE;
+        return RateLimitFilter.classify(request);
+    }
+}
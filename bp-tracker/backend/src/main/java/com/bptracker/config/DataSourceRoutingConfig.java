@@ -0,0 +1,77 @@
+package com.bptracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enabled with app.datasource.routing.enabled=true. The primary comes from spring.datasource.*,
+ * replicas from app.datasource.replicas[n].url / username / password.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingConfig.ReplicaProperties.class)
+public class DataSourceRoutingConfig {
+
+    @ConfigurationProperties(prefix = "app.datasource")
+    public static class ReplicaProperties {
+        private List<Replica> replicas = new ArrayList<>();
+
+        public List<Replica> getReplicas() { return replicas; }
+        public void setReplicas(List<Replica> replicas) { this.replicas = replicas; }
+    }
+
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties primaryProperties,
+                                 ReplicaProperties replicaProperties,
+                                 ReadYourWritesTracker readYourWrites) {
+        Map<Object, Object> targets = new HashMap<>();
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        primary.setPoolName("bp-primary");
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+
+        List<Replica> replicas = replicaProperties.getReplicas();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica r = replicas.get(i);
+            HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(r.getUrl()).username(r.getUsername()).password(r.getPassword()).build();
+            replica.setPoolName("bp-" + ReadWriteRoutingDataSource.replicaKey(i));
+            replica.setReadOnly(true);
+            targets.put(ReadWriteRoutingDataSource.replicaKey(i), replica);
+        }
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicas.size(), readYourWrites);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bptracker.config;
+
+import com.bptracker.repository.ReadingStore;
+import com.bptracker.service.DigestBatchService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the weekly digest batch on the one instance started with --digest.enabled=true: every
+ * digest.cron for the week just ended, and at startup for any run a previous process left
+ * unfinished. --digest.week=yyyy-MM-dd (a Monday) also runs that week once at startup.
+ * The batch scans bp_readings, so the instance refuses to start with storage.backend=mmap.
+ *
+ * Runs go to a thread of their own, one at a time: a run takes minutes, and on the shared
+ * scheduler it would hold up the other @Scheduled jobs (outbox, invalidation poll, revocation
+ * refresh, compaction) for that long.
+ */
+@Component
+@ConditionalOnProperty(name = "digest.enabled", havingValue = "true")
+public class DigestBatchRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DigestBatchRunner.class);
+
+    @Autowired private DigestBatchService digestBatchService;
+    @Autowired private ReadingStore readingStore;
+
+    @Value("${digest.week:}")
+    private String week;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "digest-batch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    void checkBackend() {
+        if (!readingStore.isRelational()) {
+            throw new IllegalStateException("digest.enabled=true needs storage.backend=jpa");
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (LocalDate unfinished : digestBatchService.unfinishedRuns()) runWeek(unfinished);
+        if (!week.isBlank()) runWeek(LocalDate.parse(week));
+    }
+
+    @Scheduled(cron = "${digest.cron:0 0 3 * * MON}")
+    public void weekly() {
+        runWeek(DigestBatchService.lastCompleteWeek(LocalDate.now()));
+    }
+
+    private void runWeek(LocalDate weekStart) {
+        executor.execute(() -> {
+            try {
+                digestBatchService.run(weekStart);
+            } catch (Exception e) {
+                log.error("Digest run for {} failed: {}", weekStart, e.getMessage());
+            }
+        });
+    }
+}
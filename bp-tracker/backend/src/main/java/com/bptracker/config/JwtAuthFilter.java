@@ -1,7 +1,11 @@
 package com.bptracker.config;
 
+import com.bptracker.jfr.JfrSupport;
+import com.bptracker.jfr.TokenValidationEvent;
 import com.bptracker.service.CustomUserDetailsService;
+import com.bptracker.service.TokenRevocationService;
 import com.bptracker.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +25,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     @Autowired private JwtUtil jwtUtil;
     @Autowired private CustomUserDetailsService userDetailsService;
+    @Autowired private TokenRevocationService revocations;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -29,27 +34,52 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         String authHeader = request.getHeader("Authorization");
         String token = null;
+        Claims claims = null;
         String username = null;
+        TokenValidationEvent event = new TokenValidationEvent();
+        event.begin();
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
+        } else if (request.getRequestURI().startsWith("/ws/")) {
+            // Browsers can't set headers on a WebSocket handshake, so the token comes as ?token=
+            token = request.getParameter("token");
+        }
+
+        if (token != null) {
             try {
-                username = jwtUtil.extractUsername(token);
+                claims = jwtUtil.extractAllClaims(token);
+                username = claims.getSubject();
             } catch (Exception e) {
                 logger.warn("Invalid JWT token: " + e.getMessage());
+                event.outcome = "invalid";
             }
         }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            // Checked before the user lookup, so a revoked token costs no more than a valid one
+            if (revocations.isRevoked(claims)) {
+                event.outcome = "revoked";
+            } else {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                if (jwtUtil.validateToken(claims, userDetails)) {
+                    UsernamePasswordAuthenticationToken authToken =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                    event.outcome = "valid";
+                } else {
+                    event.outcome = "rejected";
+                }
             }
         }
 
+        if (token != null && event.shouldCommit()) {
+            event.userHash = JfrSupport.userHash(username);
+            if (event.outcome == null) event.outcome = "skipped";
+            event.commit();
+        }
+
         chain.doFilter(request, response);
     }
 }
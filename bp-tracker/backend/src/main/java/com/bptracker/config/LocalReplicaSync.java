@@ -0,0 +1,101 @@
+package com.bptracker.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for replication in the routing-local profile, where primary and replicas are separate
+ * in-memory H2 databases. Every app.datasource.replica-sync-ms it takes a SCRIPT of the primary
+ * and applies it to each replica: the schema once, then on later rounds the rows of every table,
+ * replaced in one transaction so replica readers never see a half-copied table. Replicas lag the
+ * primary by up to that interval, which is the lag the read-your-writes window has to cover.
+ *
+ * Copies the whole database each round, so it is for local testing with small data only, and
+ * H2 only.
+ */
+@Component
+@ConditionalOnProperty(name = "app.datasource.replica-sync-ms")
+public class LocalReplicaSync {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalReplicaSync.class);
+
+    @Autowired private DataSourceProperties primaryProperties;
+    @Autowired private DataSourceRoutingConfig.ReplicaProperties replicaProperties;
+
+    @Value("${app.datasource.replica-sync-ms}")
+    private long syncMs;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "replica-sync");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean schemaCopied;
+
+    // After startup, so Hibernate has created the primary's schema
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        executor.scheduleWithFixedDelay(this::sync, 0, syncMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    private void sync() {
+        try {
+            List<String> script = new ArrayList<>();
+            List<String> tables = new ArrayList<>();
+            try (Connection primary = DriverManager.getConnection(primaryProperties.determineUrl(),
+                    primaryProperties.determineUsername(), primaryProperties.determinePassword());
+                 Statement st = primary.createStatement()) {
+                try (ResultSet rs = st.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS")) {
+                    while (rs.next()) script.add(rs.getString(1));
+                }
+                try (ResultSet rs = st.executeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                        "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'")) {
+                    while (rs.next()) tables.add(rs.getString(1));
+                }
+            }
+            for (DataSourceRoutingConfig.Replica replica : replicaProperties.getReplicas()) {
+                try (Connection c = DriverManager.getConnection(replica.getUrl(), replica.getUsername(), replica.getPassword());
+                     Statement st = c.createStatement()) {
+                    if (!schemaCopied) {
+                        st.execute("DROP ALL OBJECTS");
+                        for (String sql : script) st.execute(sql);
+                        continue;
+                    }
+                    c.setAutoCommit(false);
+                    st.execute("SET REFERENTIAL_INTEGRITY FALSE");
+                    for (String table : tables) st.execute("DELETE FROM \"PUBLIC\".\"" + table + "\"");
+                    for (String sql : script) if (sql.startsWith("INSERT INTO")) st.execute(sql);
+                    c.commit();
+                    st.execute("SET REFERENTIAL_INTEGRITY TRUE");
+                }
+            }
+            schemaCopied = true;
+        } catch (SQLException e) {
+            log.warn("Replica sync failed: {}", e.getMessage());
+        }
+    }
+}
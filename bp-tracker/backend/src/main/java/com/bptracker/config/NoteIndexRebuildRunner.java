@@ -0,0 +1,29 @@
+package com.bptracker.config;
+
+import com.bptracker.service.NoteIndexService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off migration. Start an instance with --app.note-index.rebuild=true to index the notes of
+ * readings saved before reading_note_terms existed. New and deleted readings keep it current.
+ */
+@Component
+@ConditionalOnProperty(name = "app.note-index.rebuild", havingValue = "true")
+public class NoteIndexRebuildRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteIndexRebuildRunner.class);
+
+    @Autowired private NoteIndexService noteIndex;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long indexed = noteIndex.rebuild();
+        log.info("Note index rebuild finished, {} readings indexed", indexed);
+    }
+}
@@ -0,0 +1,32 @@
+package com.bptracker.config;
+
+import com.bptracker.service.ReadingEventDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rewinds an outbox consumer. Start the dispatching instance with
+ *   --outbox.replay.consumer=lag-metrics --outbox.replay.after-id=0
+ * and that consumer gets every retained event after the given id again.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.replay.consumer")
+public class OutboxReplayRunner implements ApplicationRunner {
+
+    @Autowired private ReadingEventDispatcher dispatcher;
+
+    @Value("${outbox.replay.consumer}")
+    private String consumer;
+
+    @Value("${outbox.replay.after-id:0}")
+    private long afterId;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        dispatcher.replay(consumer, afterId);
+    }
+}
@@ -0,0 +1,117 @@
+package com.bptracker.config;
+
+import com.bptracker.util.TokenBucketStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user, per-endpoint-class token buckets for /api/readings. Runs after JwtAuthFilter so the
+ * user is known; anonymous requests pass through and are rejected by security as before.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public enum EndpointClass { CHEAP, EXPENSIVE, WRITE }
+
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${ratelimit.enabled:true}") private boolean enabled;
+    @Value("${ratelimit.max-buckets:100000}") private int maxBuckets;
+    @Value("${ratelimit.idle-ms:600000}") private long idleMs;
+    @Value("${ratelimit.cheap.capacity:30}") private int cheapCapacity;
+    @Value("${ratelimit.cheap.per-second:10}") private double cheapRate;
+    @Value("${ratelimit.expensive.capacity:5}") private int expensiveCapacity;
+    @Value("${ratelimit.expensive.per-second:0.5}") private double expensiveRate;
+    @Value("${ratelimit.write.capacity:20}") private int writeCapacity;
+    @Value("${ratelimit.write.per-second:5}") private double writeRate;
+
+    private final Map<EndpointClass, TokenBucketStore> stores = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> allowed = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+
+    @PostConstruct
+    void init() {
+        stores.put(EndpointClass.CHEAP, new TokenBucketStore(cheapCapacity, cheapRate, maxBuckets));
+        stores.put(EndpointClass.EXPENSIVE, new TokenBucketStore(expensiveCapacity, expensiveRate, maxBuckets));
+        stores.put(EndpointClass.WRITE, new TokenBucketStore(writeCapacity, writeRate, maxBuckets));
+        for (EndpointClass c : EndpointClass.values()) {
+            String tag = c.name().toLowerCase();
+            allowed.put(c, Counter.builder("bp.ratelimit.requests").tag("class", tag).tag("outcome", "allowed")
+                    .register(meterRegistry));
+            rejected.put(c, Counter.builder("bp.ratelimit.requests").tag("class", tag).tag("outcome", "rejected")
+                    .register(meterRegistry));
+            TokenBucketStore store = stores.get(c);
+            Gauge.builder("bp.ratelimit.buckets", store, TokenBucketStore::size).tag("class", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/readings");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        EndpointClass endpointClass = classify(request);
+        long waitNanos = stores.get(endpointClass).tryAcquire(auth.getName(), System.nanoTime());
+        if (waitNanos > 0) {
+            rejected.get(endpointClass).increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Too many requests, retry in " + retryAfter + "s\"}");
+            return;
+        }
+        allowed.get(endpointClass).increment();
+        chain.doFilter(request, response);
+    }
+
+    public static EndpointClass classify(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (!"GET".equals(request.getMethod())) {
+            return uri.endsWith("/parse") ? EndpointClass.CHEAP : EndpointClass.WRITE;
+        }
+        String range = request.getParameter("range");
+        if (uri.endsWith("/all") || "all".equalsIgnoreCase(range) || "3m".equalsIgnoreCase(range)) {
+            return EndpointClass.EXPENSIVE;
+        }
+        return EndpointClass.CHEAP;
+    }
+
+    @Scheduled(fixedDelayString = "${ratelimit.sweep-ms:60000}")
+    void evictIdleBuckets() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMs);
+        for (TokenBucketStore store : stores.values()) store.evictIdle(now, idleNanos);
+    }
+}
@@ -0,0 +1,51 @@
+package com.bptracker.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica (round robin) and everything else to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy so the read-only flag is known when the
+ * physical connection is fetched.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    private final int replicaCount;
+    private final ReadYourWritesTracker readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(int replicaCount, ReadYourWritesTracker readYourWrites) {
+        this.replicaCount = replicaCount;
+        this.readYourWrites = readYourWrites;
+    }
+
+    public static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = PRIMARY;
+        if (replicaCount > 0 && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !readYourWrites.mustReadPrimary(currentUsername())) {
+            key = replicaKey(Math.floorMod(next.getAndIncrement(), replicaCount));
+        }
+        log.debug("Routing connection to {}", key);
+        return key;
+    }
+
+    private String currentUsername() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : null;
+    }
+}
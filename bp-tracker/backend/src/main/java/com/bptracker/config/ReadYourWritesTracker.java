@@ -0,0 +1,55 @@
+package com.bptracker.config;
+
+import com.bptracker.service.InvalidationEvent;
+import com.bptracker.service.InvalidationListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers users who wrote recently so their reads stay on the primary until
+ * replicas have had time to catch up. Writes made on other instances arrive through
+ * the invalidation channel.
+ */
+@Component
+public class ReadYourWritesTracker implements InvalidationListener {
+
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    @Value("${app.datasource.read-your-writes-ms:5000}")
+    private long windowMs;
+
+    private final ConcurrentHashMap<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    public void markWrite(String username) {
+        markWrite(username, System.currentTimeMillis());
+    }
+
+    // The window runs from when the write happened, not from when this node heard about it
+    private void markWrite(String username, long at) {
+        lastWrite.merge(username, at, Math::max);
+        if (lastWrite.size() > SWEEP_THRESHOLD) {
+            long now = System.currentTimeMillis();
+            lastWrite.values().removeIf(t -> now - t > windowMs);
+        }
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.kind() == InvalidationEvent.Kind.READINGS_CHANGED && event.username() != null) {
+            markWrite(event.username(), event.publishedAt());
+        }
+    }
+
+    public boolean mustReadPrimary(String username) {
+        if (username == null) return false;
+        Long t = lastWrite.get(username);
+        if (t == null) return false;
+        if (System.currentTimeMillis() - t > windowMs) {
+            lastWrite.remove(username, t);
+            return false;
+        }
+        return true;
+    }
+}
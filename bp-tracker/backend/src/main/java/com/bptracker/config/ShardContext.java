@@ -0,0 +1,19 @@
+package com.bptracker.config;
+
+/**
+ * Shard selected for the current thread. Null means the directory database (users etc.).
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static void set(Integer shard) {
+        if (shard == null) CURRENT.remove(); else CURRENT.set(shard);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bptracker.config;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Physical datasources behind the sharded routing DataSource, for tools that need to
+ * talk to a specific database directly (rebalancing).
+ */
+public class ShardDataSources {
+
+    private final DataSource directory;
+    private final List<DataSource> shards;
+
+    public ShardDataSources(DataSource directory, List<DataSource> shards) {
+        this.directory = directory;
+        this.shards = shards;
+    }
+
+    public DataSource getDirectory() { return directory; }
+    public DataSource getShard(int index) { return shards.get(index); }
+    public int getShardCount() { return shards.size(); }
+}
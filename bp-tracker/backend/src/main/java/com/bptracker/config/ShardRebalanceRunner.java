@@ -0,0 +1,32 @@
+package com.bptracker.config;
+
+import com.bptracker.service.ShardRebalancer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Online rebalancing tool. Start an instance with
+ *   --app.sharding.rebalance.user-id=42 --app.sharding.rebalance.target-shard=3
+ * and it moves that user's readings once started, while continuing to serve traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sharding.rebalance.user-id")
+public class ShardRebalanceRunner implements ApplicationRunner {
+
+    @Autowired private ShardRebalancer rebalancer;
+
+    @Value("${app.sharding.rebalance.user-id}")
+    private long userId;
+
+    @Value("${app.sharding.rebalance.target-shard}")
+    private int targetShard;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebalancer.moveUser(userId, targetShard);
+    }
+}
@@ -0,0 +1,15 @@
+package com.bptracker.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes to the shard in ShardContext, or to the directory database when none is set.
+ * Wrapped in a LazyConnectionDataSourceProxy so the shard is read when the first statement runs.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,86 @@
+package com.bptracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enabled with app.sharding.enabled=true. spring.datasource.* is the directory database
+ * (users, user_shards); app.sharding.shards[n].url / username / password hold bp_readings.
+ * Not combinable with app.datasource.routing.enabled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingConfig.ShardProperties.class)
+public class ShardingConfig {
+
+    @ConfigurationProperties(prefix = "app.sharding")
+    public static class ShardProperties {
+        private List<Shard> shards = new ArrayList<>();
+
+        public List<Shard> getShards() { return shards; }
+        public void setShards(List<Shard> shards) { this.shards = shards; }
+    }
+
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+    }
+
+    @Bean
+    public ShardDataSources shardDataSources(DataSourceProperties directoryProperties, ShardProperties shardProperties) {
+        HikariDataSource directory = directoryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class).build();
+        directory.setPoolName("bp-directory");
+
+        List<DataSource> shards = new ArrayList<>();
+        List<Shard> configured = shardProperties.getShards();
+        if (configured.isEmpty()) {
+            throw new IllegalStateException("app.sharding.enabled=true but no app.sharding.shards configured");
+        }
+        for (int i = 0; i < configured.size(); i++) {
+            Shard s = configured.get(i);
+            HikariDataSource shard = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .url(s.getUrl()).username(s.getUsername()).password(s.getPassword()).build();
+            shard.setPoolName("bp-shard-" + i);
+            shards.add(shard);
+        }
+        return new ShardDataSources(directory, shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shardDataSources.getShardCount(); i++) {
+            targets.put(i, shardDataSources.getShard(i));
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(shardDataSources.getDirectory());
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,100 @@
+package com.bptracker.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Representative traffic for the AOT cache training run (-Dbp.training=true). Not a bean on
+ * purpose, so Spring AOT processing produces the same bean graph as a normal run.
+ */
+public final class TrainingWorkload {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainingWorkload.class);
+    private static final String[] RANGES = {"1d", "3d", "7d", "2w", "1m", "3m", "all"};
+    private static final int ROUNDS = 50;
+
+    private TrainingWorkload() {}
+
+    public static void run(ConfigurableApplicationContext ctx) throws Exception {
+        int port = ((WebServerApplicationContext) ctx).getWebServer().getPort();
+        ObjectMapper mapper = ctx.getBean(ObjectMapper.class);
+        HttpClient http = HttpClient.newHttpClient();
+        String base = "http://localhost:" + port;
+
+        send(http, post(base + "/api/auth/register", null,
+                "{\"username\":\"trainer\",\"email\":\"trainer@example.com\",\"password\":\"trainer123\",\"fullName\":\"Trainer\"}"));
+        HttpResponse<String> login = send(http, post(base + "/api/auth/login", null,
+                "{\"username\":\"trainer\",\"password\":\"trainer123\"}"));
+        JsonNode auth = mapper.readTree(login.body());
+        String token = auth.get("token").asText();
+        send(http, get(base + "/api/auth/health", null, null));
+
+        DateTimeFormatter iso = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+        LocalDateTime start = LocalDateTime.now().minusDays(60);
+        for (int i = 0; i < 200; i++) {
+            String body = "{\"systolic\":" + (110 + i % 60) + ",\"diastolic\":" + (70 + i % 40)
+                    + ",\"pulse\":" + (60 + i % 30) + ",\"notes\":\"training\",\"recordedAt\":\""
+                    + start.plusHours(i * 7L).format(iso) + "\"}";
+            send(http, post(base + "/api/readings", token, body));
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (String range : RANGES) {
+                send(http, get(base + "/api/readings?range=" + range, token, null));
+                send(http, get(base + "/api/readings/graph?range=" + range, token, null));
+                send(http, get(base + "/api/readings/summary?range=" + range, token, null));
+            }
+            send(http, get(base + "/api/readings/all", token, null));
+            send(http, get(base + "/api/readings/graph?range=1m", token, "application/vnd.bptracker.columnar+json"));
+            send(http, get(base + "/api/readings/all", token, "application/cbor"));
+            send(http, post(base + "/api/readings/parse", token, "{\"text\":\"one forty over ninety pulse seventy two\"}"));
+        }
+        send(http, post(base + "/api/readings/voice-save", token, "{\"text\":\"120 over 80 pulse 70\"}"));
+        sendExpectingError(http, post(base + "/api/auth/login", null, "{\"username\":\"trainer\",\"password\":\"wrong\"}"));
+        log.info("Training workload finished");
+    }
+
+    private static HttpRequest post(String url, String token, String json) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) b.header("Authorization", "Bearer " + token);
+        return b.build();
+    }
+
+    private static HttpRequest get(String url, String token, String accept) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url)).GET();
+        if (token != null) b.header("Authorization", "Bearer " + token);
+        if (accept != null) b.header("Accept", accept);
+        return b.build();
+    }
+
+    // A rejected request would train the cache on the wrong path, so the run stops instead
+    private static HttpResponse<String> send(HttpClient http, HttpRequest request) throws Exception {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Training request " + request.method() + " " + request.uri()
+                    + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static void sendExpectingError(HttpClient http, HttpRequest request) throws Exception {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 == 2) {
+            throw new IllegalStateException("Training request " + request.method() + " " + request.uri()
+                    + " should have failed but returned " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.bptracker.config;
+
+import com.bptracker.controller.TranscriptSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired private TranscriptSocketHandler transcriptSocketHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // The handshake is authenticated by JwtAuthFilter (?token=...)
+        registry.addHandler(transcriptSocketHandler, "/ws/transcript")
+                .setAllowedOrigins("http://localhost:3000", "http://localhost:5173", "http://localhost:5174");
+    }
+}
@@ -0,0 +1,56 @@
+package com.bptracker.controller;
+
+import com.bptracker.dto.AbpmDtos.*;
+import com.bptracker.service.AbpmSessionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/abpm")
+public class AbpmController {
+
+    @Autowired
+    private AbpmSessionService abpmSessionService;
+
+    // Upload a whole ambulatory session as CSV (recordedAt,systolic,diastolic[,pulse] per line)
+    @PostMapping(value = "/sessions", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<?> upload(InputStream body,
+                                    @RequestParam(required = false) String deviceId,
+                                    @AuthenticationPrincipal UserDetails user) {
+        try {
+            return ResponseEntity.ok(abpmSessionService.ingest(body, deviceId, user.getUsername()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Sessions with their day/night averages and dipping, without samples
+    @GetMapping("/sessions")
+    public ResponseEntity<List<AbpmSessionResponse>> list(@AuthenticationPrincipal UserDetails user) {
+        return ResponseEntity.ok(abpmSessionService.listSessions(user.getUsername()));
+    }
+
+    @GetMapping("/sessions/{id}")
+    public ResponseEntity<?> get(@PathVariable Long id,
+                                 @AuthenticationPrincipal UserDetails user) {
+        return abpmSessionService.getSession(id, user.getUsername())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/sessions/{id}")
+    public ResponseEntity<?> delete(@PathVariable Long id,
+                                    @AuthenticationPrincipal UserDetails user) {
+        if (abpmSessionService.deleteSession(id, user.getUsername())) {
+            return ResponseEntity.ok(Map.of("message", "Session deleted"));
+        }
+        return ResponseEntity.badRequest().body(Map.of("error", "Session not found or unauthorized"));
+    }
+}
@@ -4,7 +4,10 @@ import com.bptracker.dto.AuthDtos.*;
 import com.bptracker.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -36,6 +39,31 @@ public class AuthController {
         }
     }
 
+    // Revokes the bearer token; other sessions stay signed in
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                    @AuthenticationPrincipal UserDetails user) {
+        if (user == null || authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not signed in"));
+        }
+        try {
+            authService.logout(authHeader.substring(7));
+            return ResponseEntity.ok(Map.of("message", "Signed out"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Revokes every token issued to the user so far, including the one making this call
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(@AuthenticationPrincipal UserDetails user) {
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Not signed in"));
+        }
+        authService.logoutAll(user.getUsername());
+        return ResponseEntity.ok(Map.of("message", "Signed out of all sessions"));
+    }
+
     @GetMapping("/health")
     public ResponseEntity<?> health() {
         return ResponseEntity.ok(Map.of("status", "OK", "message", "BP Tracker API is running"));
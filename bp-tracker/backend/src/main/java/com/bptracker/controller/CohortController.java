@@ -0,0 +1,69 @@
+package com.bptracker.controller;
+
+import com.bptracker.dto.CohortDtos.*;
+import com.bptracker.service.CohortService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cohort")
+public class CohortController {
+
+    @Autowired
+    private CohortService cohortService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Patient grants a caregiver/clinician read access to their summary
+    @PostMapping("/viewers")
+    public ResponseEntity<?> addViewer(@RequestBody ViewerRequest request,
+                                       @AuthenticationPrincipal UserDetails user) {
+        try {
+            cohortService.grantViewer(user.getUsername(), request.getUsername());
+            return ResponseEntity.ok(Map.of("message", "Viewer added"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/viewers/{username}")
+    public ResponseEntity<?> removeViewer(@PathVariable String username,
+                                          @AuthenticationPrincipal UserDetails user) {
+        if (cohortService.revokeViewer(user.getUsername(), username)) {
+            return ResponseEntity.ok(Map.of("message", "Viewer removed"));
+        }
+        return ResponseEntity.badRequest().body(Map.of("error", "Viewer not found"));
+    }
+
+    @GetMapping("/viewers")
+    public ResponseEntity<List<String>> getViewers(@AuthenticationPrincipal UserDetails user) {
+        return ResponseEntity.ok(cohortService.listViewers(user.getUsername()));
+    }
+
+    // Risk-sorted summary of every patient the caller can view, streamed one patient at a time
+    @GetMapping("/summary")
+    public ResponseEntity<StreamingResponseBody> getSummary(
+            @RequestParam(defaultValue = "7d") String range,
+            @AuthenticationPrincipal UserDetails user) {
+        List<PatientSummaryResponse> rows = cohortService.summarize(user.getUsername(), range);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.writeStartArray();
+                for (PatientSummaryResponse row : rows) objectMapper.writeValue(gen, row);
+                gen.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,24 @@
+package com.bptracker.controller;
+
+import com.bptracker.service.DigestBatchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/digests")
+public class DigestController {
+
+    @Autowired
+    private DigestBatchService digestBatchService;
+
+    // Most recent weekly digest; 404 until the first weekly batch has covered the user
+    @GetMapping("/latest")
+    public ResponseEntity<?> latest(@AuthenticationPrincipal UserDetails user) {
+        return digestBatchService.latestFor(user.getUsername())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
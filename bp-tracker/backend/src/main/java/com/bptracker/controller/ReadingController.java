@@ -1,15 +1,27 @@
 package com.bptracker.controller;
 
 import com.bptracker.dto.ReadingDtos.*;
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.BpReading;
+import com.bptracker.model.ReadingField;
+import com.bptracker.service.IngestionService;
 import com.bptracker.service.ReadingService;
+import com.bptracker.service.RequestCoalescer;
+import com.bptracker.util.ColumnarReadingWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/readings")
@@ -18,6 +30,15 @@ public class ReadingController {
     @Autowired
     private ReadingService readingService;
 
+    @Autowired
+    private ColumnarReadingWriter columnarWriter;
+
+    @Autowired
+    private IngestionService ingestionService;
+
+    @Autowired
+    private RequestCoalescer coalescer;
+
     // Save a manual reading
     @PostMapping
     public ResponseEntity<?> saveReading(@RequestBody BpReadingRequest request,
@@ -30,6 +51,25 @@ public class ReadingController {
         }
     }
 
+    // Bulk ingestion for devices/gateways: 202 once every reading has committed; 500 with the ack
+    // (status PARTIAL or FAILED, failedIngestIds) if any batch failed, so only those are retried
+    @PostMapping("/ingest")
+    public CompletableFuture<ResponseEntity<?>> ingest(@RequestBody IngestRequest request,
+                                                       @AuthenticationPrincipal UserDetails user) {
+        try {
+            return ingestionService.submit(request, user.getUsername())
+                    .<ResponseEntity<?>>thenApply(ack -> "COMMITTED".equals(ack.getStatus())
+                            ? ResponseEntity.accepted().body(ack)
+                            : ResponseEntity.internalServerError().body(ack));
+        } catch (IngestionService.QueueFullException e) {
+            return CompletableFuture.<ResponseEntity<?>>completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("error", e.getMessage())));
+        } catch (Exception e) {
+            return CompletableFuture.<ResponseEntity<?>>completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+    }
+
     // Parse voice/text input only (preview before saving)
     @PostMapping("/parse")
     public ResponseEntity<?> parseVoice(@RequestBody VoiceInputRequest request,
@@ -50,34 +90,122 @@ public class ReadingController {
         }
     }
 
-    // Get readings for a range (1d, 3d, 5d, 1w, 1m, all)
+    // Get readings for a range (1d, 3d, 5d, 1w, 1m, all), optionally only some categories (category=STAGE_2,CRISIS)
+    // Accept: application/vnd.bptracker.columnar+json or application/cbor returns the columnar form
+    // fields=recordedAt,systolic,diastolic returns only those properties (JSON only, not coalesced)
     @GetMapping
-    public ResponseEntity<List<BpReadingResponse>> getReadings(
+    public ResponseEntity<?> getReadings(
             @RequestParam(defaultValue = "7d") String range,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @AuthenticationPrincipal UserDetails user) {
+        String username = user.getUsername();
+        Set<BpCategory> categories;
+        Set<ReadingField> selected;
+        try {
+            categories = readingService.parseCategories(category);
+            selected = ReadingField.parse(fields);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        String key = categories == null ? range : range + "|" + categories;
+        MediaType columnar = columnarWriter.select(accept);
+        if (columnar == null && selected != null) {
+            return sparse(out -> readingService.writeReadings(range, categories, selected, username, out));
+        }
+        if (columnar != null) {
+            List<BpReading> readings = coalescer.execute(username, "findReadings", key,
+                    () -> readingService.findReadings(range, categories, username));
+            return columnar(columnar, out -> columnarWriter.writeReadings(readings, columnar, out));
+        }
+        return ResponseEntity.ok(coalescer.execute(username, "readings", key,
+                () -> readingService.getReadings(range, categories, username)));
+    }
+
+    // Search notes: q="after coff" matches notes containing words starting with "after" and "coff"
+    @GetMapping("/search")
+    public ResponseEntity<?> searchNotes(
+            @RequestParam String q,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "50") int limit,
             @AuthenticationPrincipal UserDetails user) {
-        return ResponseEntity.ok(readingService.getReadings(range, user.getUsername()));
+        try {
+            return ResponseEntity.ok(readingService.searchNotes(q, from, to, limit, user.getUsername()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Delta sync for offline clients: pass the nextSince of the previous page (0 for a full sync)
+    @GetMapping("/changes")
+    public ResponseEntity<ChangesResponse> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit,
+            @AuthenticationPrincipal UserDetails user) {
+        return ResponseEntity.ok(readingService.getChanges(since, limit, user.getUsername()));
     }
 
-    // Get all readings
+    // Get all readings, newest first; fields= as for GET /api/readings
     @GetMapping("/all")
-    public ResponseEntity<List<BpReadingResponse>> getAllReadings(@AuthenticationPrincipal UserDetails user) {
-        return ResponseEntity.ok(readingService.getAllReadings(user.getUsername()));
+    public ResponseEntity<?> getAllReadings(
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @AuthenticationPrincipal UserDetails user) {
+        String username = user.getUsername();
+        Set<ReadingField> selected;
+        try {
+            selected = ReadingField.parse(fields);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        MediaType columnar = columnarWriter.select(accept);
+        if (columnar == null && selected != null) {
+            return sparse(out -> readingService.writeReadings(null, null, selected, username, out));
+        }
+        if (columnar != null) {
+            List<BpReading> readings = coalescer.execute(username, "findAllReadings", "",
+                    () -> readingService.findAllReadings(username));
+            return columnar(columnar, out -> columnarWriter.writeReadings(readings, columnar, out));
+        }
+        return ResponseEntity.ok(coalescer.execute(username, "allReadings", "",
+                () -> readingService.getAllReadings(username)));
     }
 
-    // Get graph data
+    // Get graph data; abpm=true adds ambulatory session samples (JSON only, 406 with a columnar Accept)
     @GetMapping("/graph")
-    public ResponseEntity<List<GraphPointResponse>> getGraphData(
+    public ResponseEntity<?> getGraphData(
             @RequestParam(defaultValue = "7d") String range,
+            @RequestParam(defaultValue = "false") boolean abpm,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             @AuthenticationPrincipal UserDetails user) {
-        return ResponseEntity.ok(readingService.getGraphData(range, user.getUsername()));
+        String username = user.getUsername();
+        MediaType columnar = columnarWriter.select(accept);
+        if (columnar != null && abpm) {
+            // Content type set explicitly: the client asked only for a columnar type
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", "abpm=true is only available as JSON; drop it or request application/json"));
+        }
+        if (columnar != null) {
+            List<BpReading> readings = coalescer.execute(username, "findReadings", range,
+                    () -> readingService.findReadings(range, username));
+            return columnar(columnar, out -> columnarWriter.writeGraph(readings, columnar, out));
+        }
+        return ResponseEntity.ok(coalescer.execute(username, "graph", abpm ? range + "|abpm" : range,
+                () -> readingService.getGraphData(range, abpm, username)));
     }
 
-    // Get summary + suggestions
+    // Get summary + suggestions; abpm=true includes ambulatory sessions and their dipping pattern
     @GetMapping("/summary")
     public ResponseEntity<SummaryResponse> getSummary(
             @RequestParam(defaultValue = "7d") String range,
+            @RequestParam(defaultValue = "false") boolean abpm,
             @AuthenticationPrincipal UserDetails user) {
-        return ResponseEntity.ok(readingService.getSummary(range, user.getUsername()));
+        String username = user.getUsername();
+        return ResponseEntity.ok(coalescer.execute(username, "summary", abpm ? range + "|abpm" : range,
+                () -> readingService.getSummary(range, abpm, username)));
     }
 
     // Delete a reading
@@ -88,4 +216,15 @@ public class ReadingController {
         if (deleted) return ResponseEntity.ok(Map.of("message", "Reading deleted"));
         return ResponseEntity.badRequest().body(Map.of("error", "Reading not found or unauthorized"));
     }
+
+    private ResponseEntity<StreamingResponseBody> sparse(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> columnar(MediaType type, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(body);
+    }
 }
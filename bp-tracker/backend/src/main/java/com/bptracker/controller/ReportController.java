@@ -0,0 +1,62 @@
+package com.bptracker.controller;
+
+import com.bptracker.dto.ReportDtos.*;
+import com.bptracker.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    // Queue a doctor report; 202 with the job to poll, or 200 when a current report already exists
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody ReportRequest request,
+                                    @AuthenticationPrincipal UserDetails user) {
+        try {
+            ReportJobResponse job = reportJobService.submit(request, user.getUsername());
+            return "DONE".equals(job.getStatus()) ? ResponseEntity.ok(job) : ResponseEntity.accepted().body(job);
+        } catch (ReportJobService.QueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Status and progress (0-100)
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable Long id,
+                                    @AuthenticationPrincipal UserDetails user) {
+        return reportJobService.getJob(id, user.getUsername())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // The stored report, sent as-is
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> getResult(@PathVariable Long id,
+                                       @AuthenticationPrincipal UserDetails user) {
+        Optional<ReportJobResponse> job = reportJobService.getJob(id, user.getUsername());
+        if (job.isEmpty()) return ResponseEntity.notFound().build();
+        Optional<String> result = reportJobService.getResult(id, user.getUsername());
+        if (result.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Report is not ready", "status", job.get().getStatus()));
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(result.get());
+    }
+}
@@ -0,0 +1,63 @@
+package com.bptracker.controller;
+
+import com.bptracker.dto.ReadingDtos.*;
+import com.bptracker.util.IncrementalVoiceParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Live dictation: the client sends {"delta": "..."} with only the text added since its last
+ * message ({"reset": true} starts over) and gets back the current best parse after each one,
+ * in the same shape as POST /api/readings/parse minus rawText. Saving still goes through
+ * POST /api/readings once the user confirms.
+ */
+@Component
+public class TranscriptSocketHandler extends TextWebSocketHandler {
+
+    private static final String PARSER = "parser";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${voice.stream.max-transcript-chars:4000}")
+    private int maxTranscriptChars;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(PARSER, new IncrementalVoiceParser());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        IncrementalVoiceParser parser = (IncrementalVoiceParser) session.getAttributes().get(PARSER);
+        TranscriptDeltaRequest request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), TranscriptDeltaRequest.class);
+        } catch (Exception e) {
+            send(session, Map.of("error", "Expected {\"delta\": \"...\"}"));
+            return;
+        }
+
+        if (request.isReset()) parser.reset();
+        String delta = request.getDelta();
+        if (delta != null && parser.length() + delta.length() > maxTranscriptChars) {
+            send(session, Map.of("error", "Transcript too long (max " + maxTranscriptChars + " characters)"));
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        send(session, parser.append(delta));
+    }
+
+    private void send(WebSocketSession session, Object payload) throws IOException {
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(payload)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.bptracker.dto;
+
+import java.util.List;
+
+public class AbpmDtos {
+
+    public static class AbpmSessionResponse {
+        private Long id;
+        private String deviceId;
+        private String startedAt;
+        private String endedAt;
+        private int sampleCount;
+        private Double avgSystolic;
+        private Double avgDiastolic;
+        private Double daySystolic;
+        private Double dayDiastolic;
+        private Double nightSystolic;
+        private Double nightDiastolic;
+        private Double dippingRatio;
+        private String dippingPattern;
+        private List<AbpmSample> samples;
+
+        public AbpmSessionResponse() {}
+        public Long getId() { return id; }
+        public void setId(Long v) { this.id = v; }
+        public String getDeviceId() { return deviceId; }
+        public void setDeviceId(String v) { this.deviceId = v; }
+        public String getStartedAt() { return startedAt; }
+        public void setStartedAt(String v) { this.startedAt = v; }
+        public String getEndedAt() { return endedAt; }
+        public void setEndedAt(String v) { this.endedAt = v; }
+        public int getSampleCount() { return sampleCount; }
+        public void setSampleCount(int v) { this.sampleCount = v; }
+        public Double getAvgSystolic() { return avgSystolic; }
+        public void setAvgSystolic(Double v) { this.avgSystolic = v; }
+        public Double getAvgDiastolic() { return avgDiastolic; }
+        public void setAvgDiastolic(Double v) { this.avgDiastolic = v; }
+        public Double getDaySystolic() { return daySystolic; }
+        public void setDaySystolic(Double v) { this.daySystolic = v; }
+        public Double getDayDiastolic() { return dayDiastolic; }
+        public void setDayDiastolic(Double v) { this.dayDiastolic = v; }
+        public Double getNightSystolic() { return nightSystolic; }
+        public void setNightSystolic(Double v) { this.nightSystolic = v; }
+        public Double getNightDiastolic() { return nightDiastolic; }
+        public void setNightDiastolic(Double v) { this.nightDiastolic = v; }
+        public Double getDippingRatio() { return dippingRatio; }
+        public void setDippingRatio(Double v) { this.dippingRatio = v; }
+        public String getDippingPattern() { return dippingPattern; }
+        public void setDippingPattern(String v) { this.dippingPattern = v; }
+        public List<AbpmSample> getSamples() { return samples; }
+        public void setSamples(List<AbpmSample> v) { this.samples = v; }
+    }
+
+    public static class AbpmSample {
+        private String recordedAt;
+        private int systolic;
+        private int diastolic;
+        private Integer pulse;
+        private String period;
+
+        public AbpmSample() {}
+        public String getRecordedAt() { return recordedAt; }
+        public void setRecordedAt(String v) { this.recordedAt = v; }
+        public int getSystolic() { return systolic; }
+        public void setSystolic(int v) { this.systolic = v; }
+        public int getDiastolic() { return diastolic; }
+        public void setDiastolic(int v) { this.diastolic = v; }
+        public Integer getPulse() { return pulse; }
+        public void setPulse(Integer v) { this.pulse = v; }
+        public String getPeriod() { return period; }
+        public void setPeriod(String v) { this.period = v; }
+    }
+}
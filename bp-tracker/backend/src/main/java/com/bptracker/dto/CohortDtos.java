@@ -0,0 +1,49 @@
+package com.bptracker.dto;
+
+public class CohortDtos {
+
+    public static class ViewerRequest {
+        private String username;
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+    }
+
+    public static class PatientSummaryResponse {
+        private Long userId;
+        private String username;
+        private String fullName;
+        private int totalReadings;
+        private double avgSystolic;
+        private double avgDiastolic;
+        private int maxSystolic;
+        private int maxDiastolic;
+        private int crisisCount;
+        private String latestCategory;
+        private String latestRecordedAt;
+
+        public PatientSummaryResponse() {}
+        public Long getUserId() { return userId; }
+        public void setUserId(Long v) { this.userId = v; }
+        public String getUsername() { return username; }
+        public void setUsername(String v) { this.username = v; }
+        public String getFullName() { return fullName; }
+        public void setFullName(String v) { this.fullName = v; }
+        public int getTotalReadings() { return totalReadings; }
+        public void setTotalReadings(int v) { this.totalReadings = v; }
+        public double getAvgSystolic() { return avgSystolic; }
+        public void setAvgSystolic(double v) { this.avgSystolic = v; }
+        public double getAvgDiastolic() { return avgDiastolic; }
+        public void setAvgDiastolic(double v) { this.avgDiastolic = v; }
+        public int getMaxSystolic() { return maxSystolic; }
+        public void setMaxSystolic(int v) { this.maxSystolic = v; }
+        public int getMaxDiastolic() { return maxDiastolic; }
+        public void setMaxDiastolic(int v) { this.maxDiastolic = v; }
+        public int getCrisisCount() { return crisisCount; }
+        public void setCrisisCount(int v) { this.crisisCount = v; }
+        public String getLatestCategory() { return latestCategory; }
+        public void setLatestCategory(String v) { this.latestCategory = v; }
+        public String getLatestRecordedAt() { return latestRecordedAt; }
+        public void setLatestRecordedAt(String v) { this.latestRecordedAt = v; }
+    }
+}
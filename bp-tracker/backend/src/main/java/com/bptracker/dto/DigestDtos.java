@@ -0,0 +1,49 @@
+package com.bptracker.dto;
+
+public class DigestDtos {
+
+    // One week (Monday to Sunday); averages are null when there were no readings
+    public static class DigestResponse {
+        private String weekStart;
+        private String weekEnd;
+        private int readingCount;
+        private Double avgSystolic;
+        private Double avgDiastolic;
+        private Double avgPulse;
+        private Integer maxSystolic;
+        private Integer maxDiastolic;
+        private int hypertensiveCount;
+        private int crisisCount;
+        private Double systolicChange;
+        private String trend;
+        private String category;
+
+        public DigestResponse() {}
+        public String getWeekStart() { return weekStart; }
+        public void setWeekStart(String v) { this.weekStart = v; }
+        public String getWeekEnd() { return weekEnd; }
+        public void setWeekEnd(String v) { this.weekEnd = v; }
+        public int getReadingCount() { return readingCount; }
+        public void setReadingCount(int v) { this.readingCount = v; }
+        public Double getAvgSystolic() { return avgSystolic; }
+        public void setAvgSystolic(Double v) { this.avgSystolic = v; }
+        public Double getAvgDiastolic() { return avgDiastolic; }
+        public void setAvgDiastolic(Double v) { this.avgDiastolic = v; }
+        public Double getAvgPulse() { return avgPulse; }
+        public void setAvgPulse(Double v) { this.avgPulse = v; }
+        public Integer getMaxSystolic() { return maxSystolic; }
+        public void setMaxSystolic(Integer v) { this.maxSystolic = v; }
+        public Integer getMaxDiastolic() { return maxDiastolic; }
+        public void setMaxDiastolic(Integer v) { this.maxDiastolic = v; }
+        public int getHypertensiveCount() { return hypertensiveCount; }
+        public void setHypertensiveCount(int v) { this.hypertensiveCount = v; }
+        public int getCrisisCount() { return crisisCount; }
+        public void setCrisisCount(int v) { this.crisisCount = v; }
+        public Double getSystolicChange() { return systolicChange; }
+        public void setSystolicChange(Double v) { this.systolicChange = v; }
+        public String getTrend() { return trend; }
+        public void setTrend(String v) { this.trend = v; }
+        public String getCategory() { return category; }
+        public void setCategory(String v) { this.category = v; }
+    }
+}
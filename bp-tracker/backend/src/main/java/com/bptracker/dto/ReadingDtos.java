@@ -84,6 +84,47 @@ public class ReadingDtos {
         public void setMessage(String message) { this.message = message; }
     }
 
+    public static class ReadingChange {
+        private long seq;
+        private String op;
+        private Long id;
+        private BpReadingResponse reading;
+
+        public ReadingChange() {}
+        public long getSeq() { return seq; }
+        public void setSeq(long seq) { this.seq = seq; }
+        public String getOp() { return op; }
+        public void setOp(String op) { this.op = op; }
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public BpReadingResponse getReading() { return reading; }
+        public void setReading(BpReadingResponse reading) { this.reading = reading; }
+    }
+
+    public static class ChangesResponse {
+        private List<ReadingChange> changes;
+        private long nextSince;
+        private boolean hasMore;
+
+        public ChangesResponse() {}
+        public List<ReadingChange> getChanges() { return changes; }
+        public void setChanges(List<ReadingChange> changes) { this.changes = changes; }
+        public long getNextSince() { return nextSince; }
+        public void setNextSince(long nextSince) { this.nextSince = nextSince; }
+        public boolean isHasMore() { return hasMore; }
+        public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    }
+
+    public static class TranscriptDeltaRequest {
+        private String delta;
+        private boolean reset;
+
+        public String getDelta() { return delta; }
+        public void setDelta(String delta) { this.delta = delta; }
+        public boolean isReset() { return reset; }
+        public void setReset(boolean reset) { this.reset = reset; }
+    }
+
     public static class SummaryResponse {
         private double avgSystolic;
         private double avgDiastolic;
@@ -91,12 +132,18 @@ public class ReadingDtos {
         private int maxSystolic, minSystolic;
         private int maxDiastolic, minDiastolic;
         private int maxPulse, minPulse;
+        private int p50Systolic, p90Systolic;
+        private int p50Diastolic, p90Diastolic;
+        private int p50Pulse, p90Pulse;
         private String category;
         private String suggestion;
         private String trend;
         private int totalReadings;
         private String range;
         private List<String> alerts;
+        private Integer abpmSamples;
+        private Double dippingRatio;
+        private String dippingPattern;
 
         public SummaryResponse() {}
         public double getAvgSystolic() { return avgSystolic; }
@@ -117,6 +164,18 @@ public class ReadingDtos {
         public void setMaxPulse(int v) { this.maxPulse = v; }
         public int getMinPulse() { return minPulse; }
         public void setMinPulse(int v) { this.minPulse = v; }
+        public int getP50Systolic() { return p50Systolic; }
+        public void setP50Systolic(int v) { this.p50Systolic = v; }
+        public int getP90Systolic() { return p90Systolic; }
+        public void setP90Systolic(int v) { this.p90Systolic = v; }
+        public int getP50Diastolic() { return p50Diastolic; }
+        public void setP50Diastolic(int v) { this.p50Diastolic = v; }
+        public int getP90Diastolic() { return p90Diastolic; }
+        public void setP90Diastolic(int v) { this.p90Diastolic = v; }
+        public int getP50Pulse() { return p50Pulse; }
+        public void setP50Pulse(int v) { this.p50Pulse = v; }
+        public int getP90Pulse() { return p90Pulse; }
+        public void setP90Pulse(int v) { this.p90Pulse = v; }
         public String getCategory() { return category; }
         public void setCategory(String v) { this.category = v; }
         public String getSuggestion() { return suggestion; }
@@ -129,6 +188,12 @@ public class ReadingDtos {
         public void setRange(String v) { this.range = v; }
         public List<String> getAlerts() { return alerts; }
         public void setAlerts(List<String> v) { this.alerts = v; }
+        public Integer getAbpmSamples() { return abpmSamples; }
+        public void setAbpmSamples(Integer v) { this.abpmSamples = v; }
+        public Double getDippingRatio() { return dippingRatio; }
+        public void setDippingRatio(Double v) { this.dippingRatio = v; }
+        public String getDippingPattern() { return dippingPattern; }
+        public void setDippingPattern(String v) { this.dippingPattern = v; }
     }
 
     public static class GraphPointResponse {
@@ -138,6 +203,7 @@ public class ReadingDtos {
         private int pulse;
         private String category;
         private String timeLabel;
+        private String source;
 
         public GraphPointResponse() {}
         public String getTimestamp() { return timestamp; }
@@ -152,5 +218,42 @@ public class ReadingDtos {
         public void setCategory(String v) { this.category = v; }
         public String getTimeLabel() { return timeLabel; }
         public void setTimeLabel(String v) { this.timeLabel = v; }
+        public String getSource() { return source; }
+        public void setSource(String v) { this.source = v; }
+    }
+
+    public static class IngestRequest {
+        private String deviceId;
+        private List<BpReadingRequest> readings;
+
+        public String getDeviceId() { return deviceId; }
+        public void setDeviceId(String v) { this.deviceId = v; }
+        public List<BpReadingRequest> getReadings() { return readings; }
+        public void setReadings(List<BpReadingRequest> v) { this.readings = v; }
+    }
+
+    public static class IngestAckResponse {
+        private int accepted;
+        private List<Long> ingestIds;
+        // Null where the reading was not stored
+        private List<Long> readingIds;
+        private List<Long> failedIngestIds;
+        // COMMITTED, PARTIAL or FAILED
+        private String status;
+        private String error;
+
+        public IngestAckResponse() {}
+        public int getAccepted() { return accepted; }
+        public void setAccepted(int v) { this.accepted = v; }
+        public List<Long> getIngestIds() { return ingestIds; }
+        public void setIngestIds(List<Long> v) { this.ingestIds = v; }
+        public List<Long> getReadingIds() { return readingIds; }
+        public void setReadingIds(List<Long> v) { this.readingIds = v; }
+        public List<Long> getFailedIngestIds() { return failedIngestIds; }
+        public void setFailedIngestIds(List<Long> v) { this.failedIngestIds = v; }
+        public String getStatus() { return status; }
+        public void setStatus(String v) { this.status = v; }
+        public String getError() { return error; }
+        public void setError(String v) { this.error = v; }
     }
-}
\ No newline at end of file
+}
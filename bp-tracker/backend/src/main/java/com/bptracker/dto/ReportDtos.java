@@ -0,0 +1,155 @@
+package com.bptracker.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class ReportDtos {
+
+    // Dates are yyyy-MM-dd, both inclusive; options default to true
+    public static class ReportRequest {
+        private String from;
+        private String to;
+        private Boolean monthly;
+        private Boolean percentiles;
+        private Boolean alerts;
+
+        public String getFrom() { return from; }
+        public void setFrom(String v) { this.from = v; }
+        public String getTo() { return to; }
+        public void setTo(String v) { this.to = v; }
+        public Boolean getMonthly() { return monthly; }
+        public void setMonthly(Boolean v) { this.monthly = v; }
+        public Boolean getPercentiles() { return percentiles; }
+        public void setPercentiles(Boolean v) { this.percentiles = v; }
+        public Boolean getAlerts() { return alerts; }
+        public void setAlerts(Boolean v) { this.alerts = v; }
+    }
+
+    public static class ReportJobResponse {
+        private Long id;
+        private String status;
+        private int progress;
+        private String from;
+        private String to;
+        private String createdAt;
+        private String finishedAt;
+        private String error;
+        private boolean reused;
+
+        public ReportJobResponse() {}
+        public Long getId() { return id; }
+        public void setId(Long v) { this.id = v; }
+        public String getStatus() { return status; }
+        public void setStatus(String v) { this.status = v; }
+        public int getProgress() { return progress; }
+        public void setProgress(int v) { this.progress = v; }
+        public String getFrom() { return from; }
+        public void setFrom(String v) { this.from = v; }
+        public String getTo() { return to; }
+        public void setTo(String v) { this.to = v; }
+        public String getCreatedAt() { return createdAt; }
+        public void setCreatedAt(String v) { this.createdAt = v; }
+        public String getFinishedAt() { return finishedAt; }
+        public void setFinishedAt(String v) { this.finishedAt = v; }
+        public String getError() { return error; }
+        public void setError(String v) { this.error = v; }
+        public boolean isReused() { return reused; }
+        public void setReused(boolean v) { this.reused = v; }
+    }
+
+    public static class DoctorReport {
+        private String from;
+        private String to;
+        private String generatedAt;
+        private ReportStats overall;
+        private List<ReportStats> months;
+        private List<AlertEntry> alertHistory;
+        private boolean alertHistoryTruncated;
+
+        public DoctorReport() {}
+        public String getFrom() { return from; }
+        public void setFrom(String v) { this.from = v; }
+        public String getTo() { return to; }
+        public void setTo(String v) { this.to = v; }
+        public String getGeneratedAt() { return generatedAt; }
+        public void setGeneratedAt(String v) { this.generatedAt = v; }
+        public ReportStats getOverall() { return overall; }
+        public void setOverall(ReportStats v) { this.overall = v; }
+        public List<ReportStats> getMonths() { return months; }
+        public void setMonths(List<ReportStats> v) { this.months = v; }
+        public List<AlertEntry> getAlertHistory() { return alertHistory; }
+        public void setAlertHistory(List<AlertEntry> v) { this.alertHistory = v; }
+        public boolean isAlertHistoryTruncated() { return alertHistoryTruncated; }
+        public void setAlertHistoryTruncated(boolean v) { this.alertHistoryTruncated = v; }
+    }
+
+    public static class ReportStats {
+        private String period;
+        private long totalReadings;
+        private double avgSystolic;
+        private double avgDiastolic;
+        private double avgPulse;
+        private int minSystolic;
+        private int maxSystolic;
+        private int minDiastolic;
+        private int maxDiastolic;
+        private String category;
+        private int hypertensiveCount;
+        private int crisisCount;
+        private Map<String, Integer> systolicPercentiles;
+        private Map<String, Integer> diastolicPercentiles;
+        private Map<String, Integer> pulsePercentiles;
+
+        public ReportStats() {}
+        public String getPeriod() { return period; }
+        public void setPeriod(String v) { this.period = v; }
+        public long getTotalReadings() { return totalReadings; }
+        public void setTotalReadings(long v) { this.totalReadings = v; }
+        public double getAvgSystolic() { return avgSystolic; }
+        public void setAvgSystolic(double v) { this.avgSystolic = v; }
+        public double getAvgDiastolic() { return avgDiastolic; }
+        public void setAvgDiastolic(double v) { this.avgDiastolic = v; }
+        public double getAvgPulse() { return avgPulse; }
+        public void setAvgPulse(double v) { this.avgPulse = v; }
+        public int getMinSystolic() { return minSystolic; }
+        public void setMinSystolic(int v) { this.minSystolic = v; }
+        public int getMaxSystolic() { return maxSystolic; }
+        public void setMaxSystolic(int v) { this.maxSystolic = v; }
+        public int getMinDiastolic() { return minDiastolic; }
+        public void setMinDiastolic(int v) { this.minDiastolic = v; }
+        public int getMaxDiastolic() { return maxDiastolic; }
+        public void setMaxDiastolic(int v) { this.maxDiastolic = v; }
+        public String getCategory() { return category; }
+        public void setCategory(String v) { this.category = v; }
+        public int getHypertensiveCount() { return hypertensiveCount; }
+        public void setHypertensiveCount(int v) { this.hypertensiveCount = v; }
+        public int getCrisisCount() { return crisisCount; }
+        public void setCrisisCount(int v) { this.crisisCount = v; }
+        public Map<String, Integer> getSystolicPercentiles() { return systolicPercentiles; }
+        public void setSystolicPercentiles(Map<String, Integer> v) { this.systolicPercentiles = v; }
+        public Map<String, Integer> getDiastolicPercentiles() { return diastolicPercentiles; }
+        public void setDiastolicPercentiles(Map<String, Integer> v) { this.diastolicPercentiles = v; }
+        public Map<String, Integer> getPulsePercentiles() { return pulsePercentiles; }
+        public void setPulsePercentiles(Map<String, Integer> v) { this.pulsePercentiles = v; }
+    }
+
+    public static class AlertEntry {
+        private String recordedAt;
+        private int systolic;
+        private int diastolic;
+        private Integer pulse;
+        private String level;
+
+        public AlertEntry() {}
+        public String getRecordedAt() { return recordedAt; }
+        public void setRecordedAt(String v) { this.recordedAt = v; }
+        public int getSystolic() { return systolic; }
+        public void setSystolic(int v) { this.systolic = v; }
+        public int getDiastolic() { return diastolic; }
+        public void setDiastolic(int v) { this.diastolic = v; }
+        public Integer getPulse() { return pulse; }
+        public void setPulse(Integer v) { this.pulse = v; }
+        public String getLevel() { return level; }
+        public void setLevel(String v) { this.level = v; }
+    }
+}
@@ -0,0 +1,113 @@
+package com.bptracker.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarizes the com.bptracker.* events in a .jfr file: per-operation latency histograms
+ * and the top-N slowest (user hash, range) pairs.
+ *
+ *   java -cp target/classes com.bptracker.jfr.JfrSummaryTool recording.jfr [topN]
+ *
+ * Record in production with e.g. -XX:StartFlightRecording=filename=bp.jfr,settings=default
+ * or `jcmd <pid> JFR.start duration=5m filename=bp.jfr`.
+ */
+public final class JfrSummaryTool {
+
+    private static final String PREFIX = "com.bptracker.";
+    private static final int BUCKETS = 32;
+
+    // Latency histogram with power-of-two microsecond buckets
+    static final class Stats {
+        final long[] buckets = new long[BUCKETS];
+        long count;
+        long totalMicros;
+        long maxMicros;
+
+        void add(long micros) {
+            int b = micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets[b]++;
+            count++;
+            totalMicros += micros;
+            maxMicros = Math.max(maxMicros, micros);
+        }
+
+        // Upper bound of the bucket holding the q-quantile
+        long quantile(double q) {
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += buckets[b];
+                if (seen >= rank) return b == 0 ? 0 : 1L << b;
+            }
+            return maxMicros;
+        }
+    }
+
+    private JfrSummaryTool() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JfrSummaryTool <recording.jfr> [topN]");
+            System.exit(1);
+        }
+        int topN = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Map<String, Stats> byOperation = new TreeMap<>();
+        Map<String, Stats> byUserRange = new TreeMap<>();
+
+        try (RecordingFile file = new RecordingFile(Path.of(args[0]))) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent e = file.readEvent();
+                String type = e.getEventType().getName();
+                if (!type.startsWith(PREFIX)) continue;
+
+                long micros = e.getDuration().toNanos() / 1000;
+                String name = type.substring(PREFIX.length());
+                String detail = e.hasField("operation") ? e.getString("operation")
+                        : e.hasField("outcome") ? e.getString("outcome") : null;
+                String key = detail != null ? name + ":" + detail : name;
+                byOperation.computeIfAbsent(key, k -> new Stats()).add(micros);
+
+                if (e.hasField("range") && e.hasField("userHash")) {
+                    String userRange = String.format("user %08x range %s", e.getInt("userHash"), e.getString("range"));
+                    byUserRange.computeIfAbsent(userRange, k -> new Stats()).add(micros);
+                }
+            }
+        }
+
+        System.out.printf("%-36s %8s %10s %10s %10s %10s %10s%n", "operation", "count", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "max(us)");
+        byOperation.forEach((op, s) -> System.out.printf("%-36s %8d %10d %10d %10d %10d %10d%n",
+                op, s.count, s.totalMicros / s.count, s.quantile(0.5), s.quantile(0.9), s.quantile(0.99), s.maxMicros));
+
+        System.out.println();
+        byOperation.forEach((op, s) -> {
+            System.out.println(op);
+            long peak = 0;
+            for (long b : s.buckets) peak = Math.max(peak, b);
+            for (int b = 0; b < BUCKETS; b++) {
+                if (s.buckets[b] == 0) continue;
+                int bar = (int) Math.max(1, 50 * s.buckets[b] / peak);
+                System.out.printf("  <= %10d us %8d %s%n", b == 0 ? 0 : 1L << b, s.buckets[b], "#".repeat(bar));
+            }
+        });
+
+        List<Map.Entry<String, Stats>> slowest = new ArrayList<>(byUserRange.entrySet());
+        slowest.sort(Comparator.comparingLong((Map.Entry<String, Stats> en) -> en.getValue().maxMicros).reversed());
+        System.out.println();
+        System.out.println("Top " + topN + " slowest user/range pairs (by max latency)");
+        for (int i = 0; i < Math.min(topN, slowest.size()); i++) {
+            Stats s = slowest.get(i).getValue();
+            System.out.printf("  %-32s max %8d us  mean %8d us  calls %6d  total %10d us%n",
+                    slowest.get(i).getKey(), s.maxMicros, s.totalMicros / s.count, s.count, s.totalMicros);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bptracker.jfr;
+
+public final class JfrSupport {
+
+    private JfrSupport() {}
+
+    // Stable, non-reversible-at-a-glance user key so recordings don't carry usernames
+    public static int userHash(String username) {
+        if (username == null) return 0;
+        int h = username.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,20 @@
+package com.bptracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.bptracker.PasswordHash")
+@Label("BCrypt Hash")
+@Category({"BP Tracker", "Security"})
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("User Hash")
+    public int userHash;
+}
@@ -0,0 +1,37 @@
+package com.bptracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.bptracker.ReadingOperation")
+@Label("Reading Operation")
+@Category({"BP Tracker", "Readings"})
+@StackTrace(false)
+public class ReadingOperationEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("User Hash")
+    public int userHash;
+
+    @Label("Range")
+    public String range;
+
+    @Label("Rows Loaded")
+    public int rowsLoaded;
+
+    public static ReadingOperationEvent begin(String operation, String username, String range) {
+        ReadingOperationEvent event = new ReadingOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.userHash = JfrSupport.userHash(username);
+            event.range = range;
+            event.begin();
+        }
+        return event;
+    }
+}
@@ -0,0 +1,20 @@
+package com.bptracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.bptracker.TokenValidation")
+@Label("JWT Validation")
+@Category({"BP Tracker", "Security"})
+@StackTrace(false)
+public class TokenValidationEvent extends Event {
+
+    @Label("User Hash")
+    public int userHash;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,20 @@
+package com.bptracker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.bptracker.VoiceParse")
+@Label("Voice Parse")
+@Category({"BP Tracker", "Readings"})
+@StackTrace(false)
+public class VoiceParseEvent extends Event {
+
+    @Label("Input Length")
+    public int inputLength;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,88 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One ambulatory BP monitoring session (typically 24-48h, a sample every 15-30 minutes). The
+ * samples are stored packed in a single column (see AbpmCodec); the day/night averages and
+ * nocturnal dipping are computed once at ingest and kept alongside.
+ */
+@Entity
+@Table(name = "abpm_sessions",
+       indexes = @Index(name = "idx_abpm_user_end", columnList = "user_id, ended_at"))
+public class AbpmSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(length = 64)
+    private String deviceId;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at", nullable = false)
+    private LocalDateTime endedAt;
+
+    private int sampleCount;
+
+    private Double avgSystolic;
+    private Double avgDiastolic;
+    private Double daySystolic;
+    private Double dayDiastolic;
+    private Double nightSystolic;
+    private Double nightDiastolic;
+
+    // Night mean systolic / day mean systolic; null without enough samples in both periods
+    private Double dippingRatio;
+
+    @Column(length = 24)
+    private String dippingPattern;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "BLOB")
+    private byte[] samples;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() { createdAt = LocalDateTime.now(); }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getDeviceId() { return deviceId; }
+    public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    public LocalDateTime getEndedAt() { return endedAt; }
+    public void setEndedAt(LocalDateTime endedAt) { this.endedAt = endedAt; }
+    public int getSampleCount() { return sampleCount; }
+    public void setSampleCount(int sampleCount) { this.sampleCount = sampleCount; }
+    public Double getAvgSystolic() { return avgSystolic; }
+    public void setAvgSystolic(Double avgSystolic) { this.avgSystolic = avgSystolic; }
+    public Double getAvgDiastolic() { return avgDiastolic; }
+    public void setAvgDiastolic(Double avgDiastolic) { this.avgDiastolic = avgDiastolic; }
+    public Double getDaySystolic() { return daySystolic; }
+    public void setDaySystolic(Double daySystolic) { this.daySystolic = daySystolic; }
+    public Double getDayDiastolic() { return dayDiastolic; }
+    public void setDayDiastolic(Double dayDiastolic) { this.dayDiastolic = dayDiastolic; }
+    public Double getNightSystolic() { return nightSystolic; }
+    public void setNightSystolic(Double nightSystolic) { this.nightSystolic = nightSystolic; }
+    public Double getNightDiastolic() { return nightDiastolic; }
+    public void setNightDiastolic(Double nightDiastolic) { this.nightDiastolic = nightDiastolic; }
+    public Double getDippingRatio() { return dippingRatio; }
+    public void setDippingRatio(Double dippingRatio) { this.dippingRatio = dippingRatio; }
+    public String getDippingPattern() { return dippingPattern; }
+    public void setDippingPattern(String dippingPattern) { this.dippingPattern = dippingPattern; }
+    public byte[] getSamples() { return samples; }
+    public void setSamples(byte[] samples) { this.samples = samples; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,30 @@
+package com.bptracker.model;
+
+public enum BpCategory {
+    NORMAL("Normal"),
+    ELEVATED("Elevated"),
+    STAGE_1("High BP Stage 1"),
+    STAGE_2("High BP Stage 2"),
+    CRISIS("Hypertensive Crisis"),
+    UNKNOWN("Unknown");
+
+    private final String label;
+
+    BpCategory(String label) { this.label = label; }
+
+    public String getLabel() { return label; }
+
+    // Stored category, falling back to classifying rows the backfill hasn't reached yet
+    public static BpCategory of(BpReading r) {
+        return r.getCategory() != null ? r.getCategory() : classify(r.getSystolic(), r.getDiastolic());
+    }
+
+    public static BpCategory classify(double sys, double dia) {
+        if (sys > 180 || dia > 120) return CRISIS;
+        if (sys >= 140 || dia >= 90) return STAGE_2;
+        if (sys >= 130 || dia >= 80) return STAGE_1;
+        if (sys >= 120 && dia < 80) return ELEVATED;
+        if (sys < 120 && dia < 80) return NORMAL;
+        return UNKNOWN;
+    }
+}
@@ -1,10 +1,17 @@
 package com.bptracker.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.SQLRestriction;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bp_readings")
+@Table(name = "bp_readings",
+       indexes = {
+           @Index(name = "idx_user_category", columnList = "user_id, category, recorded_at"),
+           @Index(name = "idx_user_change", columnList = "user_id, change_seq")
+       })
+// Deleted readings stay as tombstones for sync (GET /api/readings/changes) and are hidden everywhere else
+@SQLRestriction("deleted = false")
 public class BpReading {
 
     @Id
@@ -27,16 +34,29 @@ public class BpReading {
     @Enumerated(EnumType.STRING)
     private ReadingType readingType = ReadingType.MANUAL;
 
+    // Stored as the enum ordinal in a TINYINT; null only for rows not yet backfilled
+    @Enumerated(EnumType.ORDINAL)
+    @Column(columnDefinition = "TINYINT")
+    private BpCategory category;
+
     @Column(nullable = false)
     private LocalDateTime recordedAt;
 
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
+    // Per-user, increases on every insert and delete (see ChangeSequenceService)
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Column(nullable = false)
+    private boolean deleted = false;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         if (recordedAt == null) recordedAt = LocalDateTime.now();
+        if (category == null) category = BpCategory.classify(systolic, diastolic);
     }
 
     public enum ReadingType { MANUAL, VOICE, TEXT }
@@ -55,7 +75,13 @@ public class BpReading {
     public void setNotes(String notes) { this.notes = notes; }
     public ReadingType getReadingType() { return readingType; }
     public void setReadingType(ReadingType readingType) { this.readingType = readingType; }
+    public BpCategory getCategory() { return category; }
+    public void setCategory(BpCategory category) { this.category = category; }
     public LocalDateTime getRecordedAt() { return recordedAt; }
     public void setRecordedAt(LocalDateTime recordedAt) { this.recordedAt = recordedAt; }
     public LocalDateTime getCreatedAt() { return createdAt; }
+    public Long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One broadcast InvalidationEvent (see DbInvalidationChannel). Written and read with plain JDBC;
+ * mapped so the table exists wherever the schema is generated from entities.
+ */
+@Entity
+@Table(name = "cache_invalidations",
+       indexes = @Index(name = "idx_invalidation_published", columnList = "published_at"))
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 24, nullable = false)
+    private String kind;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(length = 50)
+    private String username;
+
+    @Column(length = 100)
+    private String detail;
+
+    @Column(length = 64, nullable = false)
+    private String origin;
+
+    // Publisher's clock, epoch millis
+    @Column(name = "published_at", nullable = false)
+    private Long publishedAt;
+
+    public Long getId() { return id; }
+    public String getKind() { return kind; }
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public String getDetail() { return detail; }
+    public String getOrigin() { return origin; }
+    public Long getPublishedAt() { return publishedAt; }
+}
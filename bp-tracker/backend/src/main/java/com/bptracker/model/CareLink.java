@@ -0,0 +1,41 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Grants a viewer (caregiver, clinic account) read access to a patient's readings.
+ * Created by the patient.
+ */
+@Entity
+@Table(name = "care_links",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"viewer_id", "patient_id"}),
+       indexes = @Index(name = "idx_care_viewer", columnList = "viewer_id"))
+public class CareLink {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "viewer_id", nullable = false)
+    private User viewer;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "patient_id", nullable = false)
+    private User patient;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() { createdAt = LocalDateTime.now(); }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public User getViewer() { return viewer; }
+    public void setViewer(User viewer) { this.viewer = viewer; }
+    public User getPatient() { return patient; }
+    public void setPatient(User patient) { this.patient = patient; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
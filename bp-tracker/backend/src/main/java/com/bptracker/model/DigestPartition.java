@@ -0,0 +1,37 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint: a partition of a digest run whose digests are committed. Written in the same
+ * transaction as the partition's weekly_digests rows, so a partition is either done or redone.
+ */
+@Entity
+@Table(name = "digest_partitions",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"week_start", "partition_no"}))
+public class DigestPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "week_start", nullable = false)
+    private LocalDate weekStart;
+
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+
+    @Column(nullable = false)
+    private Integer users;
+
+    @Column(nullable = false)
+    private LocalDateTime finishedAt;
+
+    public Long getId() { return id; }
+    public LocalDate getWeekStart() { return weekStart; }
+    public Integer getPartitionNo() { return partitionNo; }
+    public Integer getUsers() { return users; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+}
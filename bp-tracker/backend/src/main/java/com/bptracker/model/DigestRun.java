@@ -0,0 +1,50 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One weekly digest batch (see DigestBatchService). The user id span and partition size are
+ * fixed when the run starts, so a resumed run splits the id space exactly as the first attempt did.
+ */
+@Entity
+@Table(name = "digest_runs")
+public class DigestRun {
+
+    public enum Status { RUNNING, DONE, INCOMPLETE }
+
+    // Monday of the digested week
+    @Id
+    private LocalDate weekStart;
+
+    @Column(nullable = false)
+    private Long firstUserId;
+
+    @Column(nullable = false)
+    private Long lastUserId;
+
+    @Column(nullable = false)
+    private Integer partitionSize;
+
+    @Column(nullable = false)
+    private Integer partitions;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Status status;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    public LocalDate getWeekStart() { return weekStart; }
+    public Long getFirstUserId() { return firstUserId; }
+    public Long getLastUserId() { return lastUserId; }
+    public Integer getPartitionSize() { return partitionSize; }
+    public Integer getPartitions() { return partitions; }
+    public Status getStatus() { return status; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+}
@@ -0,0 +1,57 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only outbox row describing one change to bp_readings. Written in the same transaction
+ * as the change (see ReadingEventOutbox) and delivered to consumers by ReadingEventDispatcher.
+ */
+@Entity
+@Table(name = "reading_events",
+       indexes = @Index(name = "idx_events_created", columnList = "created_at"))
+public class ReadingEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "reading_id", nullable = false)
+    private Long readingId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", length = 16, nullable = false)
+    private Type type;
+
+    private Integer systolic;
+    private Integer diastolic;
+    private Integer pulse;
+    private LocalDateTime recordedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public enum Type { CREATED, DELETED }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getReadingId() { return readingId; }
+    public void setReadingId(Long readingId) { this.readingId = readingId; }
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+    public Integer getSystolic() { return systolic; }
+    public void setSystolic(Integer systolic) { this.systolic = systolic; }
+    public Integer getDiastolic() { return diastolic; }
+    public void setDiastolic(Integer diastolic) { this.diastolic = diastolic; }
+    public Integer getPulse() { return pulse; }
+    public void setPulse(Integer pulse) { this.pulse = pulse; }
+    public LocalDateTime getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(LocalDateTime recordedAt) { this.recordedAt = recordedAt; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,24 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Last reading_events id a consumer has fully processed. Kept in the same database (or shard)
+ * as the events it refers to.
+ */
+@Entity
+@Table(name = "reading_event_checkpoints")
+public class ReadingEventCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String consumer;
+
+    @Column(nullable = false)
+    private Long lastEventId;
+
+    public String getConsumer() { return consumer; }
+    public void setConsumer(String consumer) { this.consumer = consumer; }
+    public Long getLastEventId() { return lastEventId; }
+    public void setLastEventId(Long lastEventId) { this.lastEventId = lastEventId; }
+}
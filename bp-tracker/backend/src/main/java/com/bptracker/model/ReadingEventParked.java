@@ -0,0 +1,47 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A reading_events row a consumer gave up on after outbox.max-attempts failures. The dispatcher
+ * moves past it so the consumer's checkpoint isn't held forever; replay or fix up from here.
+ * Kept in the same database (or shard) as the event.
+ */
+@Entity
+@Table(name = "reading_event_parked",
+       indexes = @Index(name = "idx_parked_consumer", columnList = "consumer, event_id"))
+public class ReadingEventParked {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 64, nullable = false)
+    private String consumer;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(nullable = false)
+    private LocalDateTime parkedAt;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getConsumer() { return consumer; }
+    public void setConsumer(String consumer) { this.consumer = consumer; }
+    public Long getEventId() { return eventId; }
+    public void setEventId(Long eventId) { this.eventId = eventId; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getParkedAt() { return parkedAt; }
+    public void setParkedAt(LocalDateTime parkedAt) { this.parkedAt = parkedAt; }
+}
@@ -0,0 +1,52 @@
+package com.bptracker.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Reading fields as the API names them (BpReadingResponse properties, in that order), for fields=
+public enum ReadingField {
+    ID("id", "id"),
+    SYSTOLIC("systolic", "systolic"),
+    DIASTOLIC("diastolic", "diastolic"),
+    PULSE("pulse", "pulse"),
+    NOTES("notes", "notes"),
+    RECORDED_AT("recordedAt", "recorded_at"),
+    READING_TYPE("readingType", "reading_type"),
+    CATEGORY("category", "category");
+
+    private static final ReadingField[] VALUES = values();
+
+    private final String property;
+    private final String column;
+
+    ReadingField(String property, String column) {
+        this.property = property;
+        this.column = column;
+    }
+
+    public String getProperty() { return property; }
+
+    public String getColumn() { return column; }
+
+    // "recordedAt,systolic" -> {SYSTOLIC, RECORDED_AT}; null or blank means every field
+    public static Set<ReadingField> parse(String fields) {
+        if (fields == null || fields.isBlank()) return null;
+        Set<ReadingField> result = EnumSet.noneOf(ReadingField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) continue;
+            result.add(byProperty(trimmed));
+        }
+        if (result.isEmpty()) return null;
+        return result;
+    }
+
+    private static ReadingField byProperty(String property) {
+        for (ReadingField f : VALUES) {
+            if (f.property.equals(property)) return f;
+        }
+        StringBuilder known = new StringBuilder();
+        for (ReadingField f : VALUES) known.append(known.length() > 0 ? ", " : "").append(f.property);
+        throw new RuntimeException("Unknown field: " + property + " (expected " + known + ")");
+    }
+}
@@ -0,0 +1,62 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * One row per distinct token in a reading's notes (inverted index for note search).
+ * The key starts with (user_id, term) so a prefix search is a range scan over one user's terms.
+ * Written and queried with plain JDBC by NoteIndexService; mapped here so the schema is managed.
+ */
+@Entity
+@Table(name = "reading_note_terms",
+       indexes = @Index(name = "idx_note_terms_reading", columnList = "reading_id"))
+@IdClass(ReadingNoteTerm.Key.class)
+public class ReadingNoteTerm {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(length = 32)
+    private String term;
+
+    @Id
+    @Column(name = "recorded_at")
+    private LocalDateTime recordedAt;
+
+    @Id
+    @Column(name = "reading_id")
+    private Long readingId;
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private String term;
+        private LocalDateTime recordedAt;
+        private Long readingId;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(userId, k.userId) && Objects.equals(term, k.term)
+                    && Objects.equals(recordedAt, k.recordedAt) && Objects.equals(readingId, k.readingId);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(userId, term, recordedAt, readingId); }
+    }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getTerm() { return term; }
+    public void setTerm(String term) { this.term = term; }
+    public LocalDateTime getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(LocalDateTime recordedAt) { this.recordedAt = recordedAt; }
+    public Long getReadingId() { return readingId; }
+    public void setReadingId(Long readingId) { this.readingId = readingId; }
+}
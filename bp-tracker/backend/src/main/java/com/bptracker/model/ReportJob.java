@@ -0,0 +1,109 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A doctor report computed in the background (see ReportJobService). The finished report is kept
+ * as JSON together with the user's change_seq at the time it was computed, so it can be handed out
+ * again for the same request until the user's readings change.
+ */
+@Entity
+@Table(name = "report_jobs",
+       indexes = {
+           @Index(name = "idx_report_user_key", columnList = "user_id, request_key"),
+           @Index(name = "idx_report_created", columnList = "created_at")
+       })
+public class ReportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // from|to|options, identical requests share a key
+    @Column(name = "request_key", length = 64, nullable = false)
+    private String requestKey;
+
+    @Column(nullable = false)
+    private LocalDate fromDate;
+
+    @Column(nullable = false)
+    private LocalDate toDate;
+
+    private boolean monthly;
+    private boolean percentiles;
+    private boolean alerts;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Status status;
+
+    private int progress;
+
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
+    @Lob
+    @Column(columnDefinition = "LONGTEXT")
+    private String result;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    // Node that queued the job, and the last time that node reported it still has it
+    @Column(length = 64)
+    private String owner;
+
+    private LocalDateTime heartbeatAt;
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    @PrePersist
+    protected void onCreate() { createdAt = LocalDateTime.now(); }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getRequestKey() { return requestKey; }
+    public void setRequestKey(String requestKey) { this.requestKey = requestKey; }
+    public LocalDate getFromDate() { return fromDate; }
+    public void setFromDate(LocalDate fromDate) { this.fromDate = fromDate; }
+    public LocalDate getToDate() { return toDate; }
+    public void setToDate(LocalDate toDate) { this.toDate = toDate; }
+    public boolean isMonthly() { return monthly; }
+    public void setMonthly(boolean monthly) { this.monthly = monthly; }
+    public boolean isPercentiles() { return percentiles; }
+    public void setPercentiles(boolean percentiles) { this.percentiles = percentiles; }
+    public boolean isAlerts() { return alerts; }
+    public void setAlerts(boolean alerts) { this.alerts = alerts; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public int getProgress() { return progress; }
+    public void setProgress(int progress) { this.progress = progress; }
+    public Long getChangeSeq() { return changeSeq; }
+    public void setChangeSeq(Long changeSeq) { this.changeSeq = changeSeq; }
+    public String getResult() { return result; }
+    public void setResult(String result) { this.result = result; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+}
@@ -0,0 +1,47 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Denylist entry. tokenId is either a token's jti (logout) or "user:<username>" (revoke all
+ * sessions), in which case every token of that user issued at or before revokedAt is rejected
+ * (millisecond precision, compared with the token's iatMs claim).
+ * Rows are only needed until the tokens they cover have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens",
+       indexes = @Index(name = "idx_revoked_expires", columnList = "expires_at"))
+public class RevokedToken {
+
+    @Id
+    @Column(name = "token_id", length = 80)
+    private String tokenId;
+
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    @Column(name = "revoked_at", nullable = false, columnDefinition = "DATETIME(3)")
+    private LocalDateTime revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RevokedToken() {}
+
+    public RevokedToken(String tokenId, String username, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        this.tokenId = tokenId;
+        this.username = username;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenId() { return tokenId; }
+    public void setTokenId(String tokenId) { this.tokenId = tokenId; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(LocalDateTime revokedAt) { this.revokedAt = revokedAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,23 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Last change sequence number handed out for a user's readings. Lives next to the user's
+ * bp_readings rows (same database or shard).
+ */
+@Entity
+@Table(name = "user_change_seqs")
+public class UserChangeSeq {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long lastSeq;
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getLastSeq() { return lastSeq; }
+    public void setLastSeq(Long lastSeq) { this.lastSeq = lastSeq; }
+}
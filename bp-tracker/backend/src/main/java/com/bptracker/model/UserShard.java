@@ -0,0 +1,26 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Directory entry pinning a user to a shard. Only users moved by the rebalancer have one;
+ * everyone else lives on the shard picked by the hash of their id.
+ */
+@Entity
+@Table(name = "user_shards")
+public class UserShard {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    public UserShard() {}
+    public UserShard(Long userId, Integer shard) { this.userId = userId; this.shard = shard; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Integer getShard() { return shard; }
+    public void setShard(Integer shard) { this.shard = shard; }
+}
@@ -0,0 +1,69 @@
+package com.bptracker.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A user's BP digest for one week, produced by the weekly batch. Users without readings that
+ * week get a row with readingCount 0 so "no data" can be told apart from "not computed yet".
+ */
+@Entity
+@Table(name = "weekly_digests",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "week_start"}),
+       indexes = @Index(name = "idx_digest_week", columnList = "week_start, user_id"))
+public class WeeklyDigest {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "week_start", nullable = false)
+    private LocalDate weekStart;
+
+    @Column(nullable = false)
+    private Integer readingCount;
+
+    private Double avgSystolic;
+    private Double avgDiastolic;
+    private Double avgPulse;
+    private Integer maxSystolic;
+    private Integer maxDiastolic;
+
+    @Column(nullable = false)
+    private Integer hypertensiveCount;
+
+    @Column(nullable = false)
+    private Integer crisisCount;
+
+    // Least-squares change in systolic over the week, mmHg
+    private Double systolicChange;
+
+    @Column(length = 32)
+    private String trend;
+
+    @Column(length = 32)
+    private String category;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public LocalDate getWeekStart() { return weekStart; }
+    public Integer getReadingCount() { return readingCount; }
+    public Double getAvgSystolic() { return avgSystolic; }
+    public Double getAvgDiastolic() { return avgDiastolic; }
+    public Double getAvgPulse() { return avgPulse; }
+    public Integer getMaxSystolic() { return maxSystolic; }
+    public Integer getMaxDiastolic() { return maxDiastolic; }
+    public Integer getHypertensiveCount() { return hypertensiveCount; }
+    public Integer getCrisisCount() { return crisisCount; }
+    public Double getSystolicChange() { return systolicChange; }
+    public String getTrend() { return trend; }
+    public String getCategory() { return category; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,16 @@
+package com.bptracker.repository;
+
+import com.bptracker.model.AbpmSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AbpmSessionRepository extends JpaRepository<AbpmSession, Long> {
+
+    // Sessions with at least one sample at or after since, oldest first
+    List<AbpmSession> findByUserIdAndEndedAtGreaterThanEqualOrderByStartedAtAsc(Long userId, LocalDateTime since);
+
+    List<AbpmSession> findByUserIdOrderByStartedAtDesc(Long userId);
+}
@@ -1,5 +1,6 @@
 package com.bptracker.repository;
 
+import com.bptracker.model.BpCategory;
 import com.bptracker.model.BpReading;
 import com.bptracker.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,6 +22,17 @@ public interface BpReadingRepository extends JpaRepository<BpReading, Long> {
     @Query("SELECT b FROM BpReading b WHERE b.user = :user AND b.recordedAt >= :since ORDER BY b.recordedAt ASC")
     List<BpReading> findByUserSince(@Param("user") User user, @Param("since") LocalDateTime since);
 
+    // Served by idx_user_category (user_id, category, recorded_at)
+    @Query("SELECT b FROM BpReading b WHERE b.user = :user AND b.category IN :categories AND b.recordedAt >= :since ORDER BY b.recordedAt ASC")
+    List<BpReading> findByUserAndCategorySince(@Param("user") User user,
+                                               @Param("categories") Collection<BpCategory> categories,
+                                               @Param("since") LocalDateTime since);
+
+    // Half-open [from, to), so consecutive windows don't share readings
+    @Query("SELECT b FROM BpReading b WHERE b.user = :user AND b.recordedAt >= :from AND b.recordedAt < :to ORDER BY b.recordedAt ASC")
+    List<BpReading> findByUserInWindow(@Param("user") User user, @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
     @Query("SELECT b FROM BpReading b WHERE b.user = :user ORDER BY b.recordedAt DESC")
     List<BpReading> findLatestByUser(@Param("user") User user);
 
@@ -0,0 +1,22 @@
+package com.bptracker.repository;
+
+import com.bptracker.model.CareLink;
+import com.bptracker.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CareLinkRepository extends JpaRepository<CareLink, Long> {
+
+    Optional<CareLink> findByViewerAndPatient(User viewer, User patient);
+
+    @Query("SELECT c.patient FROM CareLink c WHERE c.viewer = :viewer")
+    List<User> findPatientsOf(@Param("viewer") User viewer);
+
+    @Query("SELECT c.viewer FROM CareLink c WHERE c.patient = :patient")
+    List<User> findViewersOf(@Param("patient") User patient);
+}
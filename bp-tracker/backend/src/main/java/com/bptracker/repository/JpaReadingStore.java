@@ -0,0 +1,209 @@
+package com.bptracker.repository;
+
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.BpReading;
+import com.bptracker.model.ReadingField;
+import com.bptracker.model.User;
+import com.bptracker.util.AbpmCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Readings in bp_readings. Entity reads go through BpReadingRepository; the change feed and
+ * the scans use plain JDBC, the first because the mapping hides tombstones and the scans so they
+ * don't build entities (forEachRow also selects only the requested columns).
+ */
+@Repository
+@ConditionalOnProperty(name = "storage.backend", havingValue = "jpa", matchIfMissing = true)
+public class JpaReadingStore implements ReadingStore {
+
+    private static final String RANGE_SQL =
+            "SELECT id, systolic, diastolic, pulse, category, recorded_at FROM bp_readings " +
+            "WHERE user_id = ? AND recorded_at >= ? AND recorded_at < ? AND deleted = false ORDER BY recorded_at";
+
+    @Autowired private BpReadingRepository readingRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Value("${readings.fetch-size:1000}")
+    private int fetchSize;
+
+    // Proxy for the user_id parameter; never loaded
+    private User userRef(long userId) {
+        return userRepository.getReferenceById(userId);
+    }
+
+    @Override
+    public BpReading save(BpReading reading) {
+        return readingRepository.save(reading);
+    }
+
+    @Override
+    public List<BpReading> saveAll(List<BpReading> readings) {
+        return readingRepository.saveAll(readings);
+    }
+
+    @Override
+    public Optional<BpReading> findOwned(long userId, long id) {
+        return readingRepository.findById(id).filter(r -> r.getUser().getId() == userId);
+    }
+
+    @Override
+    public void markDeleted(BpReading reading) {
+        reading.setDeleted(true);
+        reading.setNotes(null);
+        readingRepository.save(reading);
+    }
+
+    @Override
+    public List<BpReading> findInRange(long userId, LocalDateTime from, LocalDateTime to) {
+        return to == null
+                ? readingRepository.findByUserSince(userRef(userId), from)
+                : readingRepository.findByUserInWindow(userRef(userId), from, to);
+    }
+
+    @Override
+    public List<BpReading> findByCategorySince(long userId, Set<BpCategory> categories, LocalDateTime since) {
+        return readingRepository.findByUserAndCategorySince(userRef(userId), categories, since);
+    }
+
+    @Override
+    public List<BpReading> findAllNewestFirst(long userId) {
+        return readingRepository.findByUserOrderByRecordedAtDesc(userRef(userId));
+    }
+
+    @Override
+    public List<BpReading> findAllById(long userId, Collection<Long> ids) {
+        return readingRepository.findAllById(ids).stream().filter(r -> r.getUser().getId() == userId).toList();
+    }
+
+    @Override
+    public List<BpReading> findChangesSince(long userId, long since, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, systolic, diastolic, pulse, notes, reading_type, category, recorded_at, change_seq, deleted " +
+                "FROM bp_readings WHERE user_id = ? AND change_seq > ? ORDER BY change_seq LIMIT " + limit,
+                (rs, i) -> {
+                    BpReading r = new BpReading();
+                    r.setId(rs.getLong("id"));
+                    r.setSystolic(rs.getInt("systolic"));
+                    r.setDiastolic(rs.getInt("diastolic"));
+                    r.setPulse(rs.getObject("pulse", Integer.class));
+                    r.setNotes(rs.getString("notes"));
+                    String type = rs.getString("reading_type");
+                    r.setReadingType(type != null ? BpReading.ReadingType.valueOf(type) : null);
+                    Integer category = rs.getObject("category", Integer.class);
+                    r.setCategory(category != null ? BpCategory.values()[category] : null);
+                    r.setRecordedAt(rs.getTimestamp("recorded_at").toLocalDateTime());
+                    r.setChangeSeq(rs.getLong("change_seq"));
+                    r.setDeleted(rs.getBoolean("deleted"));
+                    return r;
+                }, userId, since);
+    }
+
+    @Override
+    public long count(long userId) {
+        return readingRepository.countByUser(userRef(userId));
+    }
+
+    @Override
+    public void forEachInRange(long userId, LocalDateTime from, LocalDateTime to, ReadingVisitor visitor) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusYears(100);
+        jdbcTemplate.query(RANGE_SQL, rs -> {
+            int pulse = rs.getInt("pulse");
+            int category = rs.getInt("category");
+            if (rs.wasNull()) category = -1;
+            visitor.visit(rs.getLong("id"), AbpmCodec.toEpoch(rs.getTimestamp("recorded_at").toLocalDateTime()),
+                    rs.getInt("systolic"), rs.getInt("diastolic"), pulse, category);
+        }, userId, Timestamp.valueOf(from), Timestamp.valueOf(end));
+    }
+
+    @Override
+    public int forEachRow(long userId, LocalDateTime from, Set<BpCategory> categories, boolean newestFirst,
+                          Set<ReadingField> fields, RowCursor cursor, int limit, RowVisitor visitor) {
+        Set<ReadingField> columns = EnumSet.copyOf(fields);
+        columns.add(ReadingField.ID);
+        columns.add(ReadingField.RECORDED_AT);
+        if (fields.contains(ReadingField.CATEGORY)) {
+            columns.add(ReadingField.SYSTOLIC);
+            columns.add(ReadingField.DIASTOLIC);
+        }
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (ReadingField f : columns) sql.append(f.getColumn()).append(", ");
+        sql.setLength(sql.length() - 2);
+        sql.append(" FROM bp_readings WHERE user_id = ? AND deleted = false");
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        if (from != null) {
+            sql.append(" AND recorded_at >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (categories != null && !categories.isEmpty()) {
+            sql.append(" AND category IN (");
+            for (BpCategory c : categories) {
+                sql.append("?, ");
+                params.add(c.ordinal());
+            }
+            sql.setLength(sql.length() - 2);
+            sql.append(")");
+        }
+        // Keyset on (recorded_at, id), so a page doesn't depend on rows inserted or deleted before it
+        if (cursor.time != null) {
+            String cmp = newestFirst ? "<" : ">";
+            sql.append(" AND (recorded_at ").append(cmp).append(" ? OR (recorded_at = ? AND id ").append(cmp).append(" ?))");
+            params.add(Timestamp.valueOf(cursor.time));
+            params.add(Timestamp.valueOf(cursor.time));
+            params.add(cursor.id);
+        }
+        sql.append(newestFirst ? " ORDER BY recorded_at DESC, id DESC" : " ORDER BY recorded_at, id");
+        sql.append(" LIMIT ").append(limit);
+
+        boolean systolic = columns.contains(ReadingField.SYSTOLIC);
+        boolean diastolic = columns.contains(ReadingField.DIASTOLIC);
+        boolean pulse = columns.contains(ReadingField.PULSE);
+        boolean notes = columns.contains(ReadingField.NOTES);
+        boolean type = columns.contains(ReadingField.READING_TYPE);
+        boolean category = columns.contains(ReadingField.CATEGORY);
+        ReadingRow row = new ReadingRow();
+        int[] count = new int[1];
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString());
+            ps.setFetchSize(Math.min(fetchSize, limit));
+            for (int i = 0; i < params.size(); i++) ps.setObject(i + 1, params.get(i));
+            return ps;
+        }, rs -> {
+            row.id = rs.getLong("id");
+            if (systolic) row.systolic = rs.getInt("systolic");
+            if (diastolic) row.diastolic = rs.getInt("diastolic");
+            if (pulse) row.pulse = rs.getInt("pulse");
+            if (notes) row.notes = rs.getString("notes");
+            row.recordedAt = rs.getTimestamp("recorded_at").toLocalDateTime();
+            if (type) row.readingType = rs.getString("reading_type");
+            if (category) {
+                row.category = rs.getInt("category");
+                if (rs.wasNull()) row.category = -1;
+            }
+            cursor.advance(row.recordedAt, row.id);
+            count[0]++;
+            visitor.visit(row);
+        });
+        return count[0];
+    }
+
+    @Override
+    public boolean isRelational() {
+        return true;
+    }
+}
@@ -0,0 +1,114 @@
+package com.bptracker.repository;
+
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.BpReading;
+import com.bptracker.model.ReadingField;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Where readings are kept. storage.backend picks the implementation: "jpa" (default, bp_readings
+ * through Hibernate) or "mmap" (MappedReadingStore, append-only files for single-node installs
+ * without a database server). Ranges are by recorded time; lists never include tombstones except
+ * findChangesSince.
+ */
+public interface ReadingStore {
+
+    // A reading seen without building an entity: epochSecond is local time read as UTC (see
+    // AbpmCodec.toEpoch), pulse 0 means not recorded, category -1 means not stored yet
+    @FunctionalInterface
+    interface ReadingVisitor {
+        void visit(long id, long epochSecond, int systolic, int diastolic, int pulse, int category);
+    }
+
+    // One row of a forEachRow scan. The same instance is refilled for every row and only the
+    // requested fields are set, plus id and recordedAt (the paging key) and systolic/diastolic
+    // when category is requested (for rows the backfill hasn't reached). pulse 0 means not
+    // recorded, category -1 means not stored yet.
+    final class ReadingRow {
+        public long id;
+        public int systolic;
+        public int diastolic;
+        public int pulse;
+        public String notes;
+        public LocalDateTime recordedAt;
+        public String readingType;
+        public int category;
+
+        public ReadingRow copy() {
+            ReadingRow c = new ReadingRow();
+            c.id = id;
+            c.systolic = systolic;
+            c.diastolic = diastolic;
+            c.pulse = pulse;
+            c.notes = notes;
+            c.recordedAt = recordedAt;
+            c.readingType = readingType;
+            c.category = category;
+            return c;
+        }
+    }
+
+    // Where a paged forEachRow scan stopped: the recorded time and id of the last row visited and
+    // every id visited at that time (for stores whose ties aren't in id order). Starts empty.
+    final class RowCursor {
+        public LocalDateTime time;
+        public long id;
+        public final Set<Long> idsAtTime = new HashSet<>();
+
+        public void advance(LocalDateTime rowTime, long rowId) {
+            if (!rowTime.equals(time)) idsAtTime.clear();
+            time = rowTime;
+            id = rowId;
+            idsAtTime.add(rowId);
+        }
+    }
+
+    @FunctionalInterface
+    interface RowVisitor {
+        void visit(ReadingRow row);
+    }
+
+    // Inserts and assigns the id; the reading's user, recordedAt, category and changeSeq must be set
+    BpReading save(BpReading reading);
+
+    // Same, for a batch from one writer; returns the readings in order with ids assigned
+    List<BpReading> saveAll(List<BpReading> readings);
+
+    Optional<BpReading> findOwned(long userId, long id);
+
+    // Turns the reading into a tombstone carrying its (already updated) changeSeq
+    void markDeleted(BpReading reading);
+
+    // Oldest first; from inclusive, to exclusive
+    List<BpReading> findInRange(long userId, LocalDateTime from, LocalDateTime to);
+
+    List<BpReading> findByCategorySince(long userId, Set<BpCategory> categories, LocalDateTime since);
+
+    List<BpReading> findAllNewestFirst(long userId);
+
+    List<BpReading> findAllById(long userId, Collection<Long> ids);
+
+    // Inserts and tombstones with changeSeq > since, in changeSeq order
+    List<BpReading> findChangesSince(long userId, long since, int limit);
+
+    long count(long userId);
+
+    // Oldest first, from inclusive, to exclusive; no entities are created
+    void forEachInRange(long userId, LocalDateTime from, LocalDateTime to, ReadingVisitor visitor);
+
+    // One page of a scan reading only the given fields: at most limit rows after the cursor, which
+    // is moved past them; fewer than limit means the scan is done. from is inclusive and may be
+    // null for everything; categories null means no filter. Oldest first unless newestFirst.
+    // Pages are separate reads, so callers can release locks and connections between them
+    int forEachRow(long userId, LocalDateTime from, Set<BpCategory> categories, boolean newestFirst,
+                   Set<ReadingField> fields, RowCursor cursor, int limit, RowVisitor visitor);
+
+    // True when readings live in bp_readings, so code may query or batch-insert that table directly
+    boolean isRelational();
+}
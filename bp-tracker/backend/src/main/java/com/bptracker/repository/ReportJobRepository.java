@@ -0,0 +1,43 @@
+package com.bptracker.repository;
+
+import com.bptracker.model.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    Optional<ReportJob> findFirstByUserIdAndRequestKeyAndStatusOrderByIdDesc(
+            Long userId, String requestKey, ReportJob.Status status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.progress = :progress WHERE j.id = :id")
+    void updateProgress(@Param("id") Long id, @Param("progress") int progress);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.heartbeatAt = :now WHERE j.owner = :owner AND j.status IN :statuses")
+    int heartbeat(@Param("owner") String owner, @Param("statuses") Collection<ReportJob.Status> statuses,
+                  @Param("now") LocalDateTime now);
+
+    // Jobs whose node went away before finishing them: no heartbeat since before, and not ours
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = com.bptracker.model.ReportJob.Status.FAILED, j.error = 'Interrupted' " +
+           "WHERE j.status IN :statuses AND j.heartbeatAt < :before AND j.owner <> :owner")
+    int failStale(@Param("statuses") Collection<ReportJob.Status> statuses, @Param("before") LocalDateTime before,
+                  @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ReportJob j WHERE j.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,27 @@
+package com.bptracker.repository;
+
+import com.bptracker.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Query("SELECT r.tokenId FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findLiveIds(@Param("now") LocalDateTime now);
+
+    // Live revoke-all entries (token id user:<username>)
+    @Query("SELECT r FROM RevokedToken r WHERE r.expiresAt > :now AND r.tokenId LIKE 'user:%'")
+    List<RevokedToken> findLiveUserRevocations(@Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
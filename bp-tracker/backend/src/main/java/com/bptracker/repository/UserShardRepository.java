@@ -0,0 +1,9 @@
+package com.bptracker.repository;
+
+import com.bptracker.model.UserShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserShardRepository extends JpaRepository<UserShard, Long> {
+}
@@ -0,0 +1,12 @@
+package com.bptracker.repository;
+
+import com.bptracker.model.WeeklyDigest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface WeeklyDigestRepository extends JpaRepository<WeeklyDigest, Long> {
+
+    Optional<WeeklyDigest> findFirstByUserIdOrderByWeekStartDesc(Long userId);
+}
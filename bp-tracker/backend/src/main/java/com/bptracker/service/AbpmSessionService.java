@@ -0,0 +1,280 @@
+package com.bptracker.service;
+
+import com.bptracker.config.ReadYourWritesTracker;
+import com.bptracker.dto.AbpmDtos.*;
+import com.bptracker.model.AbpmSession;
+import com.bptracker.model.User;
+import com.bptracker.repository.AbpmSessionRepository;
+import com.bptracker.repository.UserRepository;
+import com.bptracker.util.AbpmCodec;
+import com.bptracker.util.ReadingSketch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ambulatory (ABPM) sessions. A session file is parsed, validated, packed and summarised in a
+ * single pass over the upload, and stored as one abpm_sessions row on the user's shard.
+ *
+ * The file is CSV, one sample per line: recordedAt,systolic,diastolic[,pulse] with recordedAt as
+ * yyyy-MM-dd HH:mm[:ss] (or with a T), in time order. A header line and # comments are skipped.
+ *
+ * Day and night are fixed clock windows (abpm.day-start-hour / abpm.night-start-hour). The
+ * dipping ratio is night mean systolic over day mean systolic: above 1.0 reverse dipper, above
+ * 0.9 non-dipper, above 0.8 dipper, otherwise extreme dipper.
+ */
+@Service
+public class AbpmSessionService {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter SAMPLE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd['T'][' ']HH:mm[:ss]");
+
+    @Autowired private AbpmSessionRepository sessionRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private ReadYourWritesTracker readYourWrites;
+    @Autowired private RequestCoalescer coalescer;
+    @Autowired private InvalidationChannel invalidations;
+
+    @Value("${abpm.max-samples:2000}")
+    private int maxSamples;
+
+    @Value("${abpm.day-start-hour:6}")
+    private int dayStartHour;
+
+    @Value("${abpm.night-start-hour:22}")
+    private int nightStartHour;
+
+    @Value("${abpm.min-day-samples:10}")
+    private int minDaySamples;
+
+    @Value("${abpm.min-night-samples:5}")
+    private int minNightSamples;
+
+    // Session samples within a range, folded into the same sketch the summary uses for readings
+    public record RangeStats(ReadingSketch sketch, int hypertensive, int crisis,
+                             Double dippingRatio, String dippingPattern) {}
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
+    public AbpmSessionResponse ingest(InputStream csv, String deviceId, String username) {
+        User user = getUser(username);
+        AbpmCodec.Writer writer = new AbpmCodec.Writer();
+        long[] sums = new long[6]; // day sys, day dia, day n, night sys, night dia, night n
+        LocalDateTime first = null, last = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (!Character.isDigit(line.charAt(0))) {
+                    if (writer.getCount() == 0) continue; // header
+                    throw new RuntimeException("Line " + lineNo + ": expected recordedAt,systolic,diastolic[,pulse]");
+                }
+                String[] f = line.split("[,;\t]");
+                if (f.length < 3) {
+                    throw new RuntimeException("Line " + lineNo + ": expected recordedAt,systolic,diastolic[,pulse]");
+                }
+                LocalDateTime at;
+                int sys, dia;
+                Integer pulse = null;
+                try {
+                    at = LocalDateTime.parse(f[0].trim(), SAMPLE_TIME);
+                    sys = Integer.parseInt(f[1].trim());
+                    dia = Integer.parseInt(f[2].trim());
+                    if (f.length > 3 && !f[3].isBlank()) pulse = Integer.parseInt(f[3].trim());
+                } catch (Exception e) {
+                    throw new RuntimeException("Line " + lineNo + ": cannot parse \"" + line + "\"");
+                }
+                if (sys < 60 || sys > 250 || dia < 40 || dia > 150) {
+                    throw new RuntimeException("Line " + lineNo + ": BP values out of range: " + sys + "/" + dia);
+                }
+                if (pulse != null && (pulse < 20 || pulse > 250)) {
+                    throw new RuntimeException("Line " + lineNo + ": pulse out of range: " + pulse);
+                }
+                if (writer.getCount() >= maxSamples) {
+                    throw new RuntimeException("Too many samples in one session (max " + maxSamples + ")");
+                }
+                try {
+                    writer.add(AbpmCodec.toEpoch(at), sys, dia, pulse);
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeException("Line " + lineNo + ": " + e.getMessage());
+                }
+
+                int offset = isDay(at.getHour()) ? 0 : 3;
+                sums[offset] += sys;
+                sums[offset + 1] += dia;
+                sums[offset + 2]++;
+                if (first == null) first = at;
+                last = at;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read session file: " + e.getMessage());
+        }
+        if (writer.getCount() == 0) {
+            throw new RuntimeException("No samples in session file");
+        }
+
+        AbpmSession session = new AbpmSession();
+        session.setUserId(user.getId());
+        session.setDeviceId(deviceId);
+        session.setStartedAt(first);
+        session.setEndedAt(last);
+        session.setSampleCount(writer.getCount());
+        session.setSamples(writer.toBytes());
+        long n = sums[2] + sums[5];
+        session.setAvgSystolic(round((double) (sums[0] + sums[3]) / n));
+        session.setAvgDiastolic(round((double) (sums[1] + sums[4]) / n));
+        if (sums[2] > 0) {
+            session.setDaySystolic(round((double) sums[0] / sums[2]));
+            session.setDayDiastolic(round((double) sums[1] / sums[2]));
+        }
+        if (sums[5] > 0) {
+            session.setNightSystolic(round((double) sums[3] / sums[5]));
+            session.setNightDiastolic(round((double) sums[4] / sums[5]));
+        }
+        if (sums[2] >= minDaySamples && sums[5] >= minNightSamples) {
+            double ratio = ((double) sums[3] / sums[5]) / ((double) sums[0] / sums[2]);
+            session.setDippingRatio(Math.round(ratio * 1000.0) / 1000.0);
+            session.setDippingPattern(ratio > 1.0 ? "REVERSE_DIPPER"
+                    : ratio > 0.9 ? "NON_DIPPER"
+                    : ratio > 0.8 ? "DIPPER"
+                    : "EXTREME_DIPPER");
+        } else {
+            session.setDippingPattern("INSUFFICIENT_DATA");
+        }
+
+        AbpmSession saved = shardRouter.onUserShard(user.getId(), false, () -> sessionRepository.save(session));
+        readYourWrites.markWrite(username);
+        coalescer.invalidateAfterCommit(username);
+        invalidations.publishAfterCommit(InvalidationEvent.readingsChanged(user.getId(), username));
+        return toResponse(saved, false);
+    }
+
+    public List<AbpmSessionResponse> listSessions(String username) {
+        User user = getUser(username);
+        List<AbpmSession> sessions = shardRouter.onUserShard(user.getId(), true,
+                () -> sessionRepository.findByUserIdOrderByStartedAtDesc(user.getId()));
+        List<AbpmSessionResponse> result = new ArrayList<>(sessions.size());
+        for (AbpmSession s : sessions) result.add(toResponse(s, false));
+        return result;
+    }
+
+    public Optional<AbpmSessionResponse> getSession(Long id, String username) {
+        User user = getUser(username);
+        return shardRouter.onUserShard(user.getId(), true, () -> sessionRepository.findById(id))
+                .filter(s -> s.getUserId().equals(user.getId()))
+                .map(s -> toResponse(s, true));
+    }
+
+    public boolean deleteSession(Long id, String username) {
+        User user = getUser(username);
+        boolean deleted = shardRouter.onUserShard(user.getId(), false, () -> {
+            Optional<AbpmSession> session = sessionRepository.findById(id);
+            if (session.isEmpty() || !session.get().getUserId().equals(user.getId())) return false;
+            sessionRepository.delete(session.get());
+            return true;
+        });
+        if (deleted) {
+            readYourWrites.markWrite(username);
+            coalescer.invalidateAfterCommit(username);
+            invalidations.publishAfterCommit(InvalidationEvent.readingsChanged(user.getId(), username));
+        }
+        return deleted;
+    }
+
+    // Samples recorded at or after since, across the user's sessions, in session order
+    public void forEachSample(long userId, LocalDateTime since, AbpmCodec.SampleVisitor visitor) {
+        long from = AbpmCodec.toEpoch(since);
+        for (AbpmSession s : loadSince(userId, since)) {
+            AbpmCodec.forEach(s.getSamples(), (t, sys, dia, pulse) -> {
+                if (t >= from) visitor.visit(t, sys, dia, pulse);
+            });
+        }
+    }
+
+    public RangeStats rangeStats(long userId, LocalDateTime since) {
+        long from = AbpmCodec.toEpoch(since);
+        ReadingSketch sketch = new ReadingSketch();
+        int[] counts = new int[2];
+        Double ratio = null;
+        String pattern = null;
+        for (AbpmSession s : loadSince(userId, since)) {
+            AbpmCodec.forEach(s.getSamples(), (t, sys, dia, pulse) -> {
+                if (t < from) return;
+                sketch.add(sys, dia, pulse != 0 ? pulse : null);
+                if (sys >= 140 || dia >= 90) counts[0]++;
+                if (sys > 180 || dia > 120) counts[1]++;
+            });
+            // Latest session with a usable day/night split wins
+            if (s.getDippingRatio() != null) {
+                ratio = s.getDippingRatio();
+                pattern = s.getDippingPattern();
+            }
+        }
+        return new RangeStats(sketch, counts[0], counts[1], ratio, pattern);
+    }
+
+    public boolean isDay(int hour) {
+        return hour >= dayStartHour && hour < nightStartHour;
+    }
+
+    private List<AbpmSession> loadSince(long userId, LocalDateTime since) {
+        return shardRouter.onUserShard(userId, true,
+                () -> sessionRepository.findByUserIdAndEndedAtGreaterThanEqualOrderByStartedAtAsc(userId, since));
+    }
+
+    private AbpmSessionResponse toResponse(AbpmSession s, boolean withSamples) {
+        AbpmSessionResponse res = new AbpmSessionResponse();
+        res.setId(s.getId());
+        res.setDeviceId(s.getDeviceId());
+        res.setStartedAt(s.getStartedAt().format(FORMATTER));
+        res.setEndedAt(s.getEndedAt().format(FORMATTER));
+        res.setSampleCount(s.getSampleCount());
+        res.setAvgSystolic(s.getAvgSystolic());
+        res.setAvgDiastolic(s.getAvgDiastolic());
+        res.setDaySystolic(s.getDaySystolic());
+        res.setDayDiastolic(s.getDayDiastolic());
+        res.setNightSystolic(s.getNightSystolic());
+        res.setNightDiastolic(s.getNightDiastolic());
+        res.setDippingRatio(s.getDippingRatio());
+        res.setDippingPattern(s.getDippingPattern());
+        if (withSamples) {
+            List<AbpmSample> samples = new ArrayList<>(s.getSampleCount());
+            AbpmCodec.forEach(s.getSamples(), (t, sys, dia, pulse) -> {
+                LocalDateTime at = AbpmCodec.fromEpoch(t);
+                AbpmSample sample = new AbpmSample();
+                sample.setRecordedAt(at.format(FORMATTER));
+                sample.setSystolic(sys);
+                sample.setDiastolic(dia);
+                sample.setPulse(pulse != 0 ? pulse : null);
+                sample.setPeriod(isDay(at.getHour()) ? "DAY" : "NIGHT");
+                samples.add(sample);
+            });
+            res.setSamples(samples);
+        }
+        return res;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 10.0) / 10.0;
+    }
+}
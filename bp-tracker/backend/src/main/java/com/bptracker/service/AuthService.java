@@ -1,14 +1,19 @@
 package com.bptracker.service;
 
+import com.bptracker.config.ReadYourWritesTracker;
 import com.bptracker.dto.AuthDtos.*;
+import com.bptracker.jfr.JfrSupport;
+import com.bptracker.jfr.PasswordHashEvent;
 import com.bptracker.model.User;
 import com.bptracker.repository.UserRepository;
 import com.bptracker.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AuthService {
@@ -18,7 +23,10 @@ public class AuthService {
     @Autowired private AuthenticationManager authenticationManager;
     @Autowired private CustomUserDetailsService userDetailsService;
     @Autowired private JwtUtil jwtUtil;
+    @Autowired private ReadYourWritesTracker readYourWrites;
+    @Autowired private TokenRevocationService revocations;
 
+    @Transactional
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByUsername(request.getUsername())) {
             throw new RuntimeException("Username already taken");
@@ -30,21 +38,37 @@ public class AuthService {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
+        PasswordHashEvent hashEvent = new PasswordHashEvent();
+        hashEvent.begin();
         user.setPassword(passwordEncoder.encode(request.getPassword()));
+        if (hashEvent.shouldCommit()) {
+            hashEvent.operation = "encode";
+            hashEvent.userHash = JfrSupport.userHash(request.getUsername());
+            hashEvent.commit();
+        }
         user.setFullName(request.getFullName());
         userRepository.save(user);
+        readYourWrites.markWrite(user.getUsername());
 
         String token = jwtUtil.generateToken(user.getUsername());
         return new AuthResponse(token, user.getUsername(), user.getFullName(), user.getEmail(), user.getId());
     }
 
     public AuthResponse login(LoginRequest request) {
+        PasswordHashEvent hashEvent = new PasswordHashEvent();
+        hashEvent.begin();
         try {
             authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
             );
         } catch (BadCredentialsException e) {
             throw new RuntimeException("Invalid username or password");
+        } finally {
+            if (hashEvent.shouldCommit()) {
+                hashEvent.operation = "verify";
+                hashEvent.userHash = JfrSupport.userHash(request.getUsername());
+                hashEvent.commit();
+            }
         }
 
         UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
@@ -53,4 +77,20 @@ public class AuthService {
         User user = userRepository.findByUsername(request.getUsername()).orElseThrow();
         return new AuthResponse(token, user.getUsername(), user.getFullName(), user.getEmail(), user.getId());
     }
+
+    // Revokes the token the request was made with
+    public void logout(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtil.extractAllClaims(token);
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid token");
+        }
+        revocations.revoke(claims);
+    }
+
+    // Signs the user out everywhere: every token issued so far stops working
+    public void logoutAll(String username) {
+        revocations.revokeAll(username);
+    }
 }
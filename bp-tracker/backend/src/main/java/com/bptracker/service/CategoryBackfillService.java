@@ -0,0 +1,71 @@
+package com.bptracker.service;
+
+import com.bptracker.model.BpCategory;
+import com.bptracker.repository.ReadingStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills bp_readings.category for rows written before the column existed. Walks the table by id
+ * in keyset batches, one short transaction per batch, so it can run next to live traffic and
+ * simply be restarted if interrupted (it only ever looks at rows where category is still null).
+ */
+@Service
+public class CategoryBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryBackfillService.class);
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private ReadingStore readingStore;
+
+    @Value("${app.category-backfill.batch-size:1000}")
+    private int batchSize;
+
+    private record Row(long id, int systolic, int diastolic) {}
+
+    public long backfill() {
+        if (!readingStore.isRelational()) {
+            throw new IllegalStateException("Category backfill needs storage.backend=jpa");
+        }
+        long total = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            long[] lastId = {0};
+            while (true) {
+                int s = shard;
+                Integer n = shardRouter.isEnabled()
+                        ? shardRouter.onShard(s, false, () -> backfillBatch(lastId))
+                        : transactionTemplate.execute(status -> backfillBatch(lastId));
+                if (n == null || n == 0) break;
+                total += n;
+            }
+            log.info("Category backfill: shard {} done, {} rows updated so far", shard, total);
+        }
+        return total;
+    }
+
+    private int backfillBatch(long[] lastId) {
+        List<Row> rows = jdbcTemplate.query(
+                "SELECT id, systolic, diastolic FROM bp_readings WHERE id > ? AND category IS NULL ORDER BY id LIMIT " + batchSize,
+                (rs, i) -> new Row(rs.getLong("id"), rs.getInt("systolic"), rs.getInt("diastolic")),
+                lastId[0]);
+        if (rows.isEmpty()) return 0;
+
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Row r : rows) {
+            args.add(new Object[]{BpCategory.classify(r.systolic(), r.diastolic()).ordinal(), r.id()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE bp_readings SET category = ? WHERE id = ? AND category IS NULL", args);
+        lastId[0] = rows.get(rows.size() - 1).id();
+        return rows.size();
+    }
+}
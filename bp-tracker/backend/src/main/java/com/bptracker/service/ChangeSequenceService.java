@@ -0,0 +1,42 @@
+package com.bptracker.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Hands out per-user change sequence numbers for bp_readings. Must be called inside the write
+ * transaction, on the user's shard: the UPDATE row-locks the user's counter until commit, so
+ * one user's changes commit in sequence order and a client syncing "since N" can't miss a
+ * lower number that commits late.
+ */
+@Service
+public class ChangeSequenceService {
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    // Reserves count numbers and returns the first
+    public long next(long userId, int count) {
+        int updated = jdbcTemplate.update(
+                "UPDATE user_change_seqs SET last_seq = last_seq + ? WHERE user_id = ?", count, userId);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO user_change_seqs (user_id, last_seq) VALUES (?, ?)", userId, count);
+                return 1;
+            } catch (DuplicateKeyException e) {
+                // Another first write for this user got there first
+                return next(userId, count);
+            }
+        }
+        Long last = jdbcTemplate.queryForObject(
+                "SELECT last_seq FROM user_change_seqs WHERE user_id = ?", Long.class, userId);
+        return last - count + 1;
+    }
+
+    // Last number handed out for the user, 0 if none; call on the user's shard
+    public long current(long userId) {
+        return jdbcTemplate.query("SELECT last_seq FROM user_change_seqs WHERE user_id = ?",
+                rs -> rs.next() ? rs.getLong(1) : 0L, userId);
+    }
+}
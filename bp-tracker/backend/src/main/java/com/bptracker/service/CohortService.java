@@ -0,0 +1,188 @@
+package com.bptracker.service;
+
+import com.bptracker.dto.CohortDtos.*;
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.CareLink;
+import com.bptracker.model.User;
+import com.bptracker.util.AbpmCodec;
+import com.bptracker.repository.CareLinkRepository;
+import com.bptracker.repository.ReadingStore;
+import com.bptracker.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Caregiver/clinic cohorts. Patients grant viewers access; a viewer's cohort summary is computed
+ * with one grouped query over all their patients (one per shard when sharded) instead of one
+ * summary call per patient. Without bp_readings (storage.backend=mmap) each patient's window is
+ * scanned through the ReadingStore instead.
+ */
+@Service
+public class CohortService {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int IN_CHUNK = 1000;
+
+    // Per-patient aggregates plus the latest reading in the window, in one pass over bp_readings
+    private static final String COHORT_SQL =
+            "SELECT a.user_id, a.n, a.avg_sys, a.avg_dia, a.max_sys, a.max_dia, a.crisis, a.latest_at, " +
+            "       l.systolic AS latest_sys, l.diastolic AS latest_dia " +
+            "FROM (SELECT r.user_id, COUNT(*) AS n, AVG(r.systolic) AS avg_sys, AVG(r.diastolic) AS avg_dia, " +
+            "             MAX(r.systolic) AS max_sys, MAX(r.diastolic) AS max_dia, " +
+            "             SUM(CASE WHEN r.systolic > 180 OR r.diastolic > 120 THEN 1 ELSE 0 END) AS crisis, " +
+            "             MAX(r.recorded_at) AS latest_at " +
+            "      FROM bp_readings r WHERE r.user_id IN (:ids) AND r.recorded_at >= :since AND r.deleted = false " +
+            "      GROUP BY r.user_id) a " +
+            "JOIN bp_readings l ON l.user_id = a.user_id AND l.recorded_at = a.latest_at AND l.deleted = false";
+
+    @Autowired private CareLinkRepository careLinkRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private NamedParameterJdbcTemplate jdbc;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private ReadingStore readingStore;
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
+    @Transactional
+    public void grantViewer(String patientUsername, String viewerUsername) {
+        User patient = getUser(patientUsername);
+        User viewer = userRepository.findByUsername(viewerUsername)
+                .orElseThrow(() -> new RuntimeException("No such user: " + viewerUsername));
+        if (patient.getId().equals(viewer.getId())) {
+            throw new RuntimeException("You cannot add yourself as a viewer");
+        }
+        if (careLinkRepository.findByViewerAndPatient(viewer, patient).isEmpty()) {
+            CareLink link = new CareLink();
+            link.setViewer(viewer);
+            link.setPatient(patient);
+            careLinkRepository.save(link);
+        }
+    }
+
+    @Transactional
+    public boolean revokeViewer(String patientUsername, String viewerUsername) {
+        User patient = getUser(patientUsername);
+        Optional<User> viewer = userRepository.findByUsername(viewerUsername);
+        if (viewer.isEmpty()) return false;
+        Optional<CareLink> link = careLinkRepository.findByViewerAndPatient(viewer.get(), patient);
+        link.ifPresent(careLinkRepository::delete);
+        return link.isPresent();
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> listViewers(String patientUsername) {
+        return careLinkRepository.findViewersOf(getUser(patientUsername)).stream().map(User::getUsername).toList();
+    }
+
+    // Sorted by risk: latest category, then crisis count, then average systolic; patients without data last
+    @Transactional(readOnly = true)
+    public List<PatientSummaryResponse> summarize(String viewerUsername, String range) {
+        List<User> patients = careLinkRepository.findPatientsOf(getUser(viewerUsername));
+        LocalDateTime since = ReadingService.parseSince(range);
+
+        Map<Long, PatientSummaryResponse> rows = new HashMap<>();
+        if (readingStore.isRelational()) {
+            Map<Integer, List<Long>> idsByShard = new HashMap<>();
+            for (User p : patients) {
+                idsByShard.computeIfAbsent(shardRouter.shardFor(p.getId()), k -> new ArrayList<>()).add(p.getId());
+            }
+            idsByShard.forEach((shard, ids) -> shardRouter.onShard(shard, true, () -> {
+                for (int i = 0; i < ids.size(); i += IN_CHUNK) {
+                    aggregate(ids.subList(i, Math.min(i + IN_CHUNK, ids.size())), since, rows);
+                }
+                return null;
+            }));
+        } else {
+            for (User p : patients) {
+                PatientSummaryResponse row = scan(p.getId(), since);
+                if (row != null) rows.put(p.getId(), row);
+            }
+        }
+
+        List<PatientSummaryResponse> result = new ArrayList<>(patients.size());
+        for (User p : patients) {
+            PatientSummaryResponse row = rows.get(p.getId());
+            if (row == null) {
+                row = new PatientSummaryResponse();
+                row.setLatestCategory("No Data");
+            }
+            row.setUserId(p.getId());
+            row.setUsername(p.getUsername());
+            row.setFullName(p.getFullName());
+            result.add(row);
+        }
+        result.sort(Comparator.comparingInt(CohortService::severity)
+                .thenComparingInt(PatientSummaryResponse::getCrisisCount)
+                .thenComparingDouble(PatientSummaryResponse::getAvgSystolic)
+                .reversed());
+        return result;
+    }
+
+    private void aggregate(List<Long> ids, LocalDateTime since, Map<Long, PatientSummaryResponse> rows) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("since", Timestamp.valueOf(since));
+        jdbc.query(COHORT_SQL, params, rs -> {
+            long userId = rs.getLong("user_id");
+            if (rows.containsKey(userId)) return; // two readings sharing the latest timestamp
+            PatientSummaryResponse row = new PatientSummaryResponse();
+            row.setTotalReadings(rs.getInt("n"));
+            row.setAvgSystolic(Math.round(rs.getDouble("avg_sys") * 10.0) / 10.0);
+            row.setAvgDiastolic(Math.round(rs.getDouble("avg_dia") * 10.0) / 10.0);
+            row.setMaxSystolic(rs.getInt("max_sys"));
+            row.setMaxDiastolic(rs.getInt("max_dia"));
+            row.setCrisisCount(rs.getInt("crisis"));
+            row.setLatestCategory(BpCategory.classify(rs.getInt("latest_sys"), rs.getInt("latest_dia")).getLabel());
+            row.setLatestRecordedAt(rs.getTimestamp("latest_at").toLocalDateTime().format(FORMATTER));
+            rows.put(userId, row);
+        });
+    }
+
+    // Same figures as COHORT_SQL from one oldest-first pass over the patient's window
+    private PatientSummaryResponse scan(long userId, LocalDateTime since) {
+        long[] acc = new long[9]; // n, sum sys, sum dia, max sys, max dia, crisis, latest at, latest sys, latest dia
+        readingStore.forEachInRange(userId, since, null, (id, at, sys, dia, pulse, category) -> {
+            acc[0]++;
+            acc[1] += sys;
+            acc[2] += dia;
+            acc[3] = Math.max(acc[3], sys);
+            acc[4] = Math.max(acc[4], dia);
+            if (sys > 180 || dia > 120) acc[5]++;
+            if (acc[0] == 1 || at > acc[6]) {
+                acc[6] = at;
+                acc[7] = sys;
+                acc[8] = dia;
+            }
+        });
+        if (acc[0] == 0) return null;
+        PatientSummaryResponse row = new PatientSummaryResponse();
+        row.setTotalReadings((int) acc[0]);
+        row.setAvgSystolic(Math.round((double) acc[1] / acc[0] * 10.0) / 10.0);
+        row.setAvgDiastolic(Math.round((double) acc[2] / acc[0] * 10.0) / 10.0);
+        row.setMaxSystolic((int) acc[3]);
+        row.setMaxDiastolic((int) acc[4]);
+        row.setCrisisCount((int) acc[5]);
+        row.setLatestCategory(BpCategory.classify((int) acc[7], (int) acc[8]).getLabel());
+        row.setLatestRecordedAt(AbpmCodec.fromEpoch(acc[6]).format(FORMATTER));
+        return row;
+    }
+
+    private static int severity(PatientSummaryResponse row) {
+        for (BpCategory c : BpCategory.values()) {
+            if (c != BpCategory.UNKNOWN && c.getLabel().equals(row.getLatestCategory())) return c.ordinal();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,186 @@
+package com.bptracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Invalidation channel over a shared table, so it needs nothing beyond the directory database.
+ *
+ * publish() appends a row to cache_invalidations from a background thread. Every instance polls
+ * for rows past the last id it has seen and delivers the ones published by other instances.
+ * Ids are assigned at insert but become visible at commit, so a poll can see id 11 before 10:
+ * skipped ids are remembered as gaps and re-queried for invalidation.gap-timeout-ms before they
+ * are given up on (a rolled-back insert leaves a gap forever). Re-delivery is harmless since
+ * listeners are idempotent.
+ *
+ * bp.invalidation.staleness times publish-to-delivery per event, i.e. how long another node's
+ * caches could serve stale data; it reads the publisher's clock, so nodes need synchronized clocks.
+ */
+@Service
+@ConditionalOnProperty(name = "invalidation.channel", havingValue = "db", matchIfMissing = true)
+public class DbInvalidationChannel implements InvalidationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(DbInvalidationChannel.class);
+
+    private static final int MAX_GAPS = 1000;
+    private static final String COLUMNS = "id, kind, user_id, username, detail, origin, published_at";
+    private static final String INSERT_SQL =
+            "INSERT INTO cache_invalidations (kind, user_id, username, detail, origin, published_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private record Row(long id, String origin, InvalidationEvent event) {}
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, i) -> new Row(rs.getLong("id"), rs.getString("origin"),
+            new InvalidationEvent(InvalidationEvent.Kind.valueOf(rs.getString("kind")), rs.getLong("user_id"),
+                    rs.getString("username"), rs.getString("detail"), rs.getLong("published_at")));
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private MeterRegistry meterRegistry;
+    // Looked up per delivery: listeners may themselves publish, so they can't be constructor-time dependencies
+    @Autowired private ObjectProvider<InvalidationListener> listeners;
+
+    @Value("${invalidation.node-id:}")
+    private String nodeId;
+
+    @Value("${invalidation.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${invalidation.gap-timeout-ms:5000}")
+    private long gapTimeoutMs;
+
+    @Value("${invalidation.retention-ms:3600000}")
+    private long retentionMs;
+
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "invalidation-publisher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Poller thread only
+    private long lastId = -1;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    private Counter published;
+    private Counter publishFailed;
+    private Counter received;
+    private Timer staleness;
+
+    @PostConstruct
+    void start() {
+        if (nodeId == null || nodeId.isBlank()) nodeId = UUID.randomUUID().toString();
+        published = Counter.builder("bp.invalidation.events").tag("outcome", "published").register(meterRegistry);
+        publishFailed = Counter.builder("bp.invalidation.events").tag("outcome", "publish_failed").register(meterRegistry);
+        received = Counter.builder("bp.invalidation.events").tag("outcome", "received").register(meterRegistry);
+        staleness = Timer.builder("bp.invalidation.staleness")
+                .description("Time from publish on one node to delivery on another")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        publisher.shutdown();
+        publisher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void publish(InvalidationEvent event) {
+        try {
+            publisher.execute(() -> {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, event.kind().name(), event.userId(), event.username(),
+                            event.detail(), nodeId, event.publishedAt());
+                    published.increment();
+                } catch (Exception e) {
+                    publishFailed.increment();
+                    log.warn("Could not publish {} for user {}: {}", event.kind(), event.userId(), e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            publishFailed.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${invalidation.poll-ms:250}")
+    public void poll() {
+        try {
+            if (lastId < 0) {
+                // Start from now: caches are empty at startup, there is nothing older to forget
+                lastId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cache_invalidations", Long.class);
+                return;
+            }
+            recheckGaps();
+            List<Row> rows;
+            do {
+                rows = jdbcTemplate.query("SELECT " + COLUMNS + " FROM cache_invalidations WHERE id > ? ORDER BY id LIMIT "
+                        + batchSize, ROW_MAPPER, lastId);
+                long now = System.currentTimeMillis();
+                for (Row row : rows) {
+                    for (long missing = lastId + 1; missing < row.id() && gaps.size() < MAX_GAPS; missing++) {
+                        gaps.put(missing, now);
+                    }
+                    lastId = row.id();
+                    deliver(row);
+                }
+            } while (rows.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Invalidation poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void recheckGaps() {
+        if (gaps.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(noticed -> now - noticed > gapTimeoutMs);
+        if (gaps.isEmpty()) return;
+        String ids = gaps.keySet().stream().map(String::valueOf).collect(Collectors.joining(","));
+        for (Row row : jdbcTemplate.query("SELECT " + COLUMNS + " FROM cache_invalidations WHERE id IN (" + ids + ")",
+                ROW_MAPPER)) {
+            gaps.remove(row.id());
+            deliver(row);
+        }
+    }
+
+    private void deliver(Row row) {
+        if (nodeId.equals(row.origin())) return;
+        received.increment();
+        staleness.record(Math.max(0, System.currentTimeMillis() - row.event().publishedAt()), TimeUnit.MILLISECONDS);
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onInvalidation(row.event());
+            } catch (Exception e) {
+                log.warn("Invalidation listener {} failed on {}: {}",
+                        listener.getClass().getSimpleName(), row.event().kind(), e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${invalidation.purge-ms:600000}")
+    public void purge() {
+        try {
+            jdbcTemplate.update("DELETE FROM cache_invalidations WHERE published_at < ?",
+                    System.currentTimeMillis() - retentionMs);
+        } catch (Exception e) {
+            log.error("Invalidation purge failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.bptracker.service;
+
+import com.bptracker.dto.DigestDtos.*;
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.User;
+import com.bptracker.model.WeeklyDigest;
+import com.bptracker.repository.ReadingStore;
+import com.bptracker.repository.UserRepository;
+import com.bptracker.repository.WeeklyDigestRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Weekly BP digest for every user, computed as a partitioned batch instead of one summary per user.
+ *
+ * The user id span is cut into ranges of digest.partition-size ids. Partitions run on a
+ * work-stealing ForkJoinPool; each one reads the week's readings for its id range with one
+ * ordered range scan per shard (idx_range), folds them into per-user running sums as the rows
+ * stream past, then writes the partition's digests in JDBC batches together with its checkpoint
+ * row in a single directory transaction. A restarted run skips checkpointed partitions and redoes
+ * the rest; a failed partition leaves the run INCOMPLETE for the next resume.
+ *
+ * Each worker holds at most one connection at a time, so digest.parallelism should stay well
+ * below the connection pool size. With MySQL add rewriteBatchedStatements=true to the URL so
+ * the batches are sent as multi-row inserts.
+ */
+@Service
+public class DigestBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(DigestBatchService.class);
+
+    private static final BpCategory[] CATEGORIES = BpCategory.values();
+    private static final String SCAN_SQL =
+            "SELECT user_id, systolic, diastolic, pulse, recorded_at, category FROM bp_readings " +
+            "WHERE user_id >= ? AND user_id < ? AND recorded_at >= ? AND recorded_at < ? AND deleted = false " +
+            "ORDER BY user_id";
+    private static final String INSERT_SQL =
+            "INSERT INTO weekly_digests (user_id, week_start, reading_count, avg_systolic, avg_diastolic, avg_pulse, " +
+            "max_systolic, max_diastolic, hypertensive_count, crisis_count, systolic_change, trend, category, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private ReadingStore readingStore;
+    @Autowired private UserRepository userRepository;
+    @Autowired private WeeklyDigestRepository digestRepository;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Value("${digest.partition-size:10000}")
+    private int partitionSize;
+
+    @Value("${digest.parallelism:4}")
+    private int parallelism;
+
+    @Value("${digest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${digest.fetch-size:1000}")
+    private int fetchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private Counter usersDigested;
+    private Counter partitionsFailed;
+    private Timer partitionTimer;
+
+    private record Spec(LocalDate weekStart, long firstUserId, long lastUserId, int partitionSize, int partitions) {}
+
+    public record RunResult(LocalDate weekStart, int partitions, int partitionsRun, int partitionsFailed,
+                            long users, long millis) {
+        public double usersPerSecond() {
+            return millis == 0 ? 0 : users * 1000.0 / millis;
+        }
+    }
+
+    // Running sums for one user; systolic is also regressed on time (days into the week) for the trend
+    private static class Acc {
+        int n, nPulse, maxSys, maxDia, hypertensive, crisis;
+        long sumSys, sumDia, sumPulse;
+        double sx, sxx, sxy;
+
+        // Stage 2 and crisis counted as in the report (BpCategory.of: stored category, else classify)
+        void add(int sys, int dia, Integer pulse, BpCategory category, double day) {
+            n++;
+            sumSys += sys;
+            sumDia += dia;
+            if (pulse != null) {
+                sumPulse += pulse;
+                nPulse++;
+            }
+            maxSys = Math.max(maxSys, sys);
+            maxDia = Math.max(maxDia, dia);
+            if (category == BpCategory.STAGE_2 || category == BpCategory.CRISIS) hypertensive++;
+            if (category == BpCategory.CRISIS) crisis++;
+            sx += day;
+            sxx += day * day;
+            sxy += day * sys;
+        }
+
+        // Fitted systolic change across the 7 days, null when there are too few readings to tell
+        Double weeklyChange() {
+            double denominator = n * sxx - sx * sx;
+            if (n < 3 || denominator < 1e-9) return null;
+            return (n * sxy - sx * sumSys) / denominator * 7;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        usersDigested = Counter.builder("bp.digest.users").register(meterRegistry);
+        partitionsFailed = Counter.builder("bp.digest.partitions.failed").register(meterRegistry);
+        partitionTimer = Timer.builder("bp.digest.partition").register(meterRegistry);
+    }
+
+    // Monday of the last complete week
+    public static LocalDate lastCompleteWeek(LocalDate today) {
+        return today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+    }
+
+    public List<LocalDate> unfinishedRuns() {
+        return jdbcTemplate.queryForList("SELECT week_start FROM digest_runs WHERE status <> 'DONE' ORDER BY week_start",
+                Date.class).stream().map(Date::toLocalDate).toList();
+    }
+
+    // Starts the week's run, or resumes it if an earlier attempt didn't finish
+    public RunResult run(LocalDate weekStart) {
+        if (!readingStore.isRelational()) {
+            throw new IllegalStateException("The digest batch needs storage.backend=jpa");
+        }
+        if (weekStart.getDayOfWeek() != DayOfWeek.MONDAY) {
+            throw new RuntimeException("Digest weeks start on a Monday, got " + weekStart);
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A digest run is already in progress");
+        }
+        try {
+            return doRun(weekStart);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RunResult doRun(LocalDate weekStart) {
+        long started = System.currentTimeMillis();
+        Spec spec = startOrResume(weekStart);
+        if (spec == null) return new RunResult(weekStart, 0, 0, 0, 0, 0);
+
+        Set<Integer> done = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT partition_no FROM digest_partitions WHERE week_start = ?", Integer.class, Date.valueOf(weekStart)));
+        int[] pending = new int[spec.partitions() - done.size()];
+        for (int p = 0, i = 0; p < spec.partitions(); p++) {
+            if (!done.contains(p)) pending[i++] = p;
+        }
+        log.info("Digest {}: {} of {} partitions to run (users {}..{}, {} per partition)", weekStart,
+                pending.length, spec.partitions(), spec.firstUserId(), spec.lastUserId(), spec.partitionSize());
+
+        LongAdder users = new LongAdder();
+        AtomicInteger failed = new AtomicInteger();
+        if (pending.length > 0) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName("digest-" + t.getPoolIndex());
+                return t;
+            }, null, false);
+            try {
+                pool.invoke(new PartitionTask(spec, pending, 0, pending.length, users, failed));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        boolean complete = failed.get() == 0;
+        jdbcTemplate.update("UPDATE digest_runs SET status = ?, finished_at = ? WHERE week_start = ?",
+                complete ? "DONE" : "INCOMPLETE", Timestamp.valueOf(LocalDateTime.now()), Date.valueOf(weekStart));
+        RunResult result = new RunResult(weekStart, spec.partitions(), pending.length, failed.get(),
+                users.sum(), System.currentTimeMillis() - started);
+        log.info("Digest {} {}: {} users in {} ms ({} users/s), {} partition(s) failed", weekStart,
+                complete ? "done" : "incomplete", result.users(), result.millis(),
+                Math.round(result.usersPerSecond()), result.partitionsFailed());
+        return result;
+    }
+
+    private Spec startOrResume(LocalDate weekStart) {
+        List<String> status = jdbcTemplate.queryForList("SELECT status FROM digest_runs WHERE week_start = ?",
+                String.class, Date.valueOf(weekStart));
+        if (!status.isEmpty()) {
+            if ("DONE".equals(status.get(0))) {
+                log.info("Digest {} already done", weekStart);
+                return null;
+            }
+            jdbcTemplate.update("UPDATE digest_runs SET status = 'RUNNING', finished_at = NULL WHERE week_start = ?",
+                    Date.valueOf(weekStart));
+            return jdbcTemplate.queryForObject(
+                    "SELECT first_user_id, last_user_id, partition_size, partitions FROM digest_runs WHERE week_start = ?",
+                    (rs, i) -> new Spec(weekStart, rs.getLong("first_user_id"), rs.getLong("last_user_id"),
+                            rs.getInt("partition_size"), rs.getInt("partitions")),
+                    Date.valueOf(weekStart));
+        }
+
+        Map<String, Object> span = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM users");
+        if (span.get("lo") == null) return null;
+        long first = ((Number) span.get("lo")).longValue();
+        long last = ((Number) span.get("hi")).longValue();
+        int partitions = (int) ((last - first) / partitionSize + 1);
+        jdbcTemplate.update("INSERT INTO digest_runs (week_start, first_user_id, last_user_id, partition_size, partitions, " +
+                        "status, started_at) VALUES (?, ?, ?, ?, ?, 'RUNNING', ?)",
+                Date.valueOf(weekStart), first, last, partitionSize, partitions, Timestamp.valueOf(LocalDateTime.now()));
+        return new Spec(weekStart, first, last, partitionSize, partitions);
+    }
+
+    // Splits the pending partitions in halves until one is left, so idle workers steal the other halves
+    private class PartitionTask extends RecursiveAction {
+        private final Spec spec;
+        private final int[] pending;
+        private final int from, to;
+        private final LongAdder users;
+        private final AtomicInteger failed;
+
+        PartitionTask(Spec spec, int[] pending, int from, int to, LongAdder users, AtomicInteger failed) {
+            this.spec = spec;
+            this.pending = pending;
+            this.from = from;
+            this.to = to;
+            this.users = users;
+            this.failed = failed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runPartition(spec, pending[from], users, failed);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PartitionTask(spec, pending, from, mid, users, failed),
+                    new PartitionTask(spec, pending, mid, to, users, failed));
+        }
+    }
+
+    private void runPartition(Spec spec, int partition, LongAdder users, AtomicInteger failed) {
+        long lo = spec.firstUserId() + (long) partition * spec.partitionSize();
+        long hi = Math.min(lo + spec.partitionSize(), spec.lastUserId() + 1);
+        try {
+            partitionTimer.record(() -> {
+                Map<Long, Acc> sums = new HashMap<>();
+                for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                    shardRouter.onShard(shard, true, () -> {
+                        scan(spec.weekStart(), lo, hi, sums);
+                        return null;
+                    });
+                }
+                Integer n = transactionTemplate.execute(status -> write(spec.weekStart(), partition, lo, hi, sums));
+                users.add(n);
+                usersDigested.increment(n);
+            });
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            partitionsFailed.increment();
+            log.warn("Digest {} partition {} (users {}..{}) failed: {}", spec.weekStart(), partition, lo, hi - 1,
+                    e.getMessage());
+        }
+    }
+
+    private void scan(LocalDate weekStart, long lo, long hi, Map<Long, Acc> sums) {
+        Timestamp start = Timestamp.valueOf(weekStart.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(weekStart.plusWeeks(1).atStartOfDay());
+        long startMillis = start.getTime();
+        Acc[] current = {null};
+        long[] currentUser = {-1};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SCAN_SQL);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, lo);
+            ps.setLong(2, hi);
+            ps.setTimestamp(3, start);
+            ps.setTimestamp(4, end);
+            return ps;
+        }, rs -> {
+            // Rows arrive grouped by user, so the map is only touched when the user changes
+            long userId = rs.getLong(1);
+            if (userId != currentUser[0]) {
+                currentUser[0] = userId;
+                current[0] = sums.computeIfAbsent(userId, id -> new Acc());
+            }
+            int pulse = rs.getInt(4);
+            Integer pulseValue = rs.wasNull() ? null : pulse;
+            double day = (rs.getTimestamp(5).getTime() - startMillis) / 86_400_000.0;
+            int sys = rs.getInt(2), dia = rs.getInt(3);
+            int stored = rs.getInt(6);
+            BpCategory category = rs.wasNull() ? BpCategory.classify(sys, dia) : CATEGORIES[stored];
+            current[0].add(sys, dia, pulseValue, category, day);
+        });
+    }
+
+    // Replaces the partition's digests and checkpoints it; runs in one directory transaction
+    private int write(LocalDate weekStart, int partition, long lo, long hi, Map<Long, Acc> sums) {
+        Date week = Date.valueOf(weekStart);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM weekly_digests WHERE week_start = ? AND user_id >= ? AND user_id < ?", week, lo, hi);
+
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users WHERE id >= ? AND id < ? ORDER BY id",
+                Long.class, lo, hi);
+        List<Object[]> batch = new ArrayList<>(Math.min(batchSize, userIds.size()));
+        for (Long userId : userIds) {
+            batch.add(toRow(userId, week, sums.get(userId), now));
+            if (batch.size() == batchSize) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+
+        jdbcTemplate.update("INSERT INTO digest_partitions (week_start, partition_no, users, finished_at) VALUES (?, ?, ?, ?)",
+                week, partition, userIds.size(), now);
+        return userIds.size();
+    }
+
+    private static Object[] toRow(long userId, Date week, Acc acc, Timestamp now) {
+        if (acc == null) {
+            return new Object[]{userId, week, 0, null, null, null, null, null, 0, 0, null, "Insufficient data", "No Data", now};
+        }
+        double avgSys = (double) acc.sumSys / acc.n;
+        double avgDia = (double) acc.sumDia / acc.n;
+        Double change = acc.weeklyChange();
+        return new Object[]{userId, week, acc.n, round(avgSys), round(avgDia),
+                acc.nPulse > 0 ? round((double) acc.sumPulse / acc.nPulse) : null,
+                acc.maxSys, acc.maxDia, acc.hypertensive, acc.crisis,
+                change != null ? round(change) : null, trend(change),
+                BpCategory.classify(avgSys, avgDia).getLabel(), now};
+    }
+
+    // Same thresholds and labels as the summary's trend, but not the same metric: the summary
+    // compares the averages of the first and second half of the readings, while this is the
+    // regression slope over the week (the scan isn't ordered by time within a user). The two can
+    // disagree for the same week.
+    private static String trend(Double change) {
+        if (change == null) return "Insufficient data";
+        if (change > 5) return "Increasing ↑";
+        if (change < -5) return "Decreasing ↓";
+        return "Stable →";
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 10.0) / 10.0;
+    }
+
+    public Optional<DigestResponse> latestFor(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return digestRepository.findFirstByUserIdOrderByWeekStartDesc(user.getId()).map(DigestBatchService::toResponse);
+    }
+
+    private static DigestResponse toResponse(WeeklyDigest d) {
+        DigestResponse res = new DigestResponse();
+        res.setWeekStart(d.getWeekStart().toString());
+        res.setWeekEnd(d.getWeekStart().plusDays(6).toString());
+        res.setReadingCount(d.getReadingCount());
+        res.setAvgSystolic(d.getAvgSystolic());
+        res.setAvgDiastolic(d.getAvgDiastolic());
+        res.setAvgPulse(d.getAvgPulse());
+        res.setMaxSystolic(d.getMaxSystolic());
+        res.setMaxDiastolic(d.getMaxDiastolic());
+        res.setHypertensiveCount(d.getHypertensiveCount());
+        res.setCrisisCount(d.getCrisisCount());
+        res.setSystolicChange(d.getSystolicChange());
+        res.setTrend(d.getTrend());
+        res.setCategory(d.getCategory());
+        return res;
+    }
+}
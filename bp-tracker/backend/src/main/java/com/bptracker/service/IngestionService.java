@@ -0,0 +1,353 @@
+package com.bptracker.service;
+
+import com.bptracker.config.ReadYourWritesTracker;
+import com.bptracker.dto.ReadingDtos.*;
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.BpReading;
+import com.bptracker.model.ReadingEvent;
+import com.bptracker.model.User;
+import com.bptracker.repository.ReadingStore;
+import com.bptracker.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * High-rate ingestion path for devices. Readings are validated and given an ingest id on the
+ * request thread, queued, and written by writer threads in group-committed JDBC batches (or
+ * one saveAll per batch when readings are not kept in the database, see ReadingStore).
+ * Each request's future completes only after every batch holding its readings has finished.
+ *
+ * A request can span several group commits (it is larger than ingest.batch-size, or shares the
+ * queue with other requests), so one commit can fail while another succeeds. The ack then says
+ * which readings were stored and which were not (status PARTIAL or FAILED), so a client retries
+ * only the failed ones instead of storing duplicates.
+ */
+@Service
+public class IngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
+
+    private static final DateTimeFormatter ISO_LOCAL = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final int MAX_NOTES_LENGTH = 500; // bp_readings.notes VARCHAR(500)
+    private static final String INSERT_SQL =
+            "INSERT INTO bp_readings (user_id, systolic, diastolic, pulse, notes, reading_type, category, recorded_at, created_at, change_seq, deleted) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false)";
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ReadYourWritesTracker readYourWrites;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private RequestCoalescer coalescer;
+    @Autowired private NoteIndexService noteIndex;
+    @Autowired private ReadingEventOutbox outbox;
+    @Autowired private ChangeSequenceService changeSeqs;
+    @Autowired private InvalidationChannel invalidations;
+    @Autowired private ReadingStore readingStore;
+
+    @Value("${ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${ingest.writer-threads:2}")
+    private int writerThreads;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ingest.max-readings-per-request:1000}")
+    private int maxReadingsPerRequest;
+
+    private final LinkedBlockingQueue<PendingReading> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong ingestIds = new AtomicLong(System.currentTimeMillis() << 16);
+    private final List<Thread> writers = new ArrayList<>();
+    private Semaphore capacity;
+    private volatile boolean running = true;
+
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) { super(message); }
+    }
+
+    private record PendingReading(long ingestId, long userId, int systolic, int diastolic, Integer pulse,
+                                  String notes, BpReading.ReadingType type, LocalDateTime recordedAt,
+                                  CompletableFuture<Long> committed) {}
+
+    @PostConstruct
+    void start() {
+        capacity = new Semaphore(queueCapacity);
+        for (int i = 0; i < writerThreads; i++) {
+            Thread t = new Thread(this::drainLoop, "ingest-writer-" + i);
+            t.setDaemon(true);
+            t.start();
+            writers.add(t);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread t : writers) t.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public CompletableFuture<IngestAckResponse> submit(IngestRequest request, String username) {
+        List<BpReadingRequest> readings = request.getReadings();
+        if (readings == null || readings.isEmpty()) {
+            throw new RuntimeException("No readings provided");
+        }
+        if (readings.size() > maxReadingsPerRequest) {
+            throw new RuntimeException("Too many readings in one request (max " + maxReadingsPerRequest + ")");
+        }
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+
+        List<PendingReading> pending = new ArrayList<>(readings.size());
+        for (BpReadingRequest r : readings) {
+            pending.add(toPending(r, user.getId()));
+        }
+
+        // Reserve queue space for the whole request up front so it is accepted or rejected atomically
+        if (!capacity.tryAcquire(pending.size())) {
+            throw new QueueFullException("Ingestion queue is full, retry later");
+        }
+        queue.addAll(pending);
+
+        List<Long> ingestIdList = new ArrayList<>(pending.size());
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[pending.size()];
+        for (int i = 0; i < pending.size(); i++) {
+            ingestIdList.add(pending.get(i).ingestId());
+            futures[i] = pending.get(i).committed();
+        }
+
+        // handle, not thenApply: a failed batch must not hide the ones that committed
+        return CompletableFuture.allOf(futures).handle((v, error) -> {
+            List<Long> readingIds = new ArrayList<>(pending.size());
+            List<Long> failedIngestIds = new ArrayList<>();
+            for (PendingReading p : pending) {
+                CompletableFuture<Long> committed = p.committed();
+                if (committed.isCompletedExceptionally()) {
+                    readingIds.add(null);
+                    failedIngestIds.add(p.ingestId());
+                } else {
+                    readingIds.add(committed.join());
+                }
+            }
+            int stored = pending.size() - failedIngestIds.size();
+            if (stored > 0) {
+                readYourWrites.markWrite(username);
+                coalescer.invalidate(username);
+                invalidations.publish(InvalidationEvent.readingsChanged(user.getId(), username));
+            }
+            IngestAckResponse ack = new IngestAckResponse();
+            ack.setAccepted(stored);
+            ack.setIngestIds(ingestIdList);
+            ack.setReadingIds(readingIds);
+            ack.setFailedIngestIds(failedIngestIds);
+            if (failedIngestIds.isEmpty()) {
+                ack.setStatus("COMMITTED");
+            } else if (stored == 0) {
+                ack.setStatus("FAILED");
+                ack.setError("Ingestion failed, no readings were stored");
+            } else {
+                ack.setStatus("PARTIAL");
+                ack.setError(failedIngestIds.size() + " of " + pending.size()
+                        + " readings were not stored; retry only those (see failedIngestIds)");
+            }
+            return ack;
+        });
+    }
+
+    private PendingReading toPending(BpReadingRequest r, long userId) {
+        if (r.getSystolic() == null || r.getDiastolic() == null) {
+            throw new RuntimeException("Systolic and diastolic are required");
+        }
+        if (r.getSystolic() < 60 || r.getSystolic() > 250 || r.getDiastolic() < 40 || r.getDiastolic() > 150) {
+            throw new RuntimeException("BP values out of range: " + r.getSystolic() + "/" + r.getDiastolic());
+        }
+        if (r.getPulse() != null && (r.getPulse() < 20 || r.getPulse() > 250)) {
+            throw new RuntimeException("Pulse out of range: " + r.getPulse());
+        }
+        // Checked here, not left to the insert: a value the column rejects would fail the whole
+        // group-commit batch, including other users' readings
+        if (r.getNotes() != null && r.getNotes().length() > MAX_NOTES_LENGTH) {
+            throw new RuntimeException("Notes too long (max " + MAX_NOTES_LENGTH + " characters)");
+        }
+
+        LocalDateTime recordedAt = LocalDateTime.now();
+        if (r.getRecordedAt() != null && !r.getRecordedAt().isEmpty()) {
+            try {
+                recordedAt = LocalDateTime.parse(r.getRecordedAt(), ISO_LOCAL);
+            } catch (Exception e) {
+                throw new RuntimeException("Invalid recordedAt: " + r.getRecordedAt());
+            }
+        }
+
+        BpReading.ReadingType type = BpReading.ReadingType.MANUAL;
+        if (r.getReadingType() != null) {
+            try {
+                type = BpReading.ReadingType.valueOf(r.getReadingType());
+            } catch (Exception ignored) {
+                // keep MANUAL, same as the synchronous path
+            }
+        }
+
+        return new PendingReading(ingestIds.incrementAndGet(), userId, r.getSystolic(), r.getDiastolic(),
+                r.getPulse(), r.getNotes(), type, recordedAt, new CompletableFuture<>());
+    }
+
+    private void drainLoop() {
+        List<PendingReading> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingReading first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                capacity.release(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingReading> batch) {
+        try {
+            if (!shardRouter.isEnabled()) {
+                long[] ids = transactionTemplate.execute(status -> insertBatch(batch));
+                complete(batch, ids);
+                return;
+            }
+            // One group commit per shard; user stripes stay locked so a rebalance can't flip them mid-write
+            Set<Long> userIds = new HashSet<>();
+            for (PendingReading p : batch) userIds.add(p.userId());
+            shardRouter.withUsersLocked(userIds, () -> {
+                Map<Integer, List<PendingReading>> byShard = new HashMap<>();
+                for (PendingReading p : batch) {
+                    byShard.computeIfAbsent(shardRouter.shardFor(p.userId()), k -> new ArrayList<>()).add(p);
+                }
+                byShard.forEach((shard, group) ->
+                        complete(group, shardRouter.onShard(shard, false, () -> insertBatch(group))));
+            });
+        } catch (Exception e) {
+            log.error("Ingest batch of {} readings failed: {}", batch.size(), e.getMessage());
+            for (PendingReading p : batch) p.committed().completeExceptionally(e);
+        }
+    }
+
+    private void complete(List<PendingReading> group, long[] ids) {
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).committed().complete(ids[i]);
+        }
+    }
+
+    private long[] insertBatch(List<PendingReading> batch) {
+        // One block of change numbers per user, taken in user id order so writer threads can't deadlock
+        Map<Long, Integer> perUser = new TreeMap<>();
+        for (PendingReading p : batch) perUser.merge(p.userId(), 1, Integer::sum);
+        Map<Long, Long> nextSeq = new HashMap<>();
+        perUser.forEach((userId, count) -> nextSeq.put(userId, changeSeqs.next(userId, count)));
+
+        long[] generated = readingStore.isRelational() ? insertRows(batch, nextSeq) : storeRows(batch, nextSeq);
+
+        // Same transaction as the insert: note index and outbox rows
+        List<NoteIndexService.Entry> notes = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingReading p = batch.get(i);
+            if (p.notes() != null) notes.add(new NoteIndexService.Entry(generated[i], p.userId(), p.notes(), p.recordedAt()));
+        }
+        noteIndex.indexAll(notes);
+
+        List<ReadingEventOutbox.Change> changes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingReading p = batch.get(i);
+            changes.add(new ReadingEventOutbox.Change(ReadingEvent.Type.CREATED, p.userId(), generated[i],
+                    p.systolic(), p.diastolic(), p.pulse(), p.recordedAt()));
+        }
+        outbox.append(changes);
+        return generated;
+    }
+
+    private long[] insertRows(List<PendingReading> batch, Map<Long, Long> nextSeq) {
+        return jdbcTemplate.execute((ConnectionCallback<long[]>) con -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingReading p : batch) {
+                    ps.setLong(1, p.userId());
+                    ps.setInt(2, p.systolic());
+                    ps.setInt(3, p.diastolic());
+                    if (p.pulse() != null) ps.setInt(4, p.pulse()); else ps.setNull(4, Types.INTEGER);
+                    ps.setString(5, p.notes());
+                    ps.setString(6, p.type().name());
+                    ps.setInt(7, BpCategory.classify(p.systolic(), p.diastolic()).ordinal());
+                    ps.setTimestamp(8, Timestamp.valueOf(p.recordedAt()));
+                    ps.setTimestamp(9, now);
+                    ps.setLong(10, nextSeq.merge(p.userId(), 1L, Long::sum) - 1);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                long[] ids = new long[batch.size()];
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < ids.length) ids[i++] = keys.getLong(1);
+                }
+                return ids;
+            }
+        });
+    }
+
+    private long[] storeRows(List<PendingReading> batch, Map<Long, Long> nextSeq) {
+        List<BpReading> readings = new ArrayList<>(batch.size());
+        for (PendingReading p : batch) {
+            User user = new User();
+            user.setId(p.userId());
+            BpReading r = new BpReading();
+            r.setUser(user);
+            r.setSystolic(p.systolic());
+            r.setDiastolic(p.diastolic());
+            r.setPulse(p.pulse());
+            r.setNotes(p.notes());
+            r.setReadingType(p.type());
+            r.setCategory(BpCategory.classify(p.systolic(), p.diastolic()));
+            r.setRecordedAt(p.recordedAt());
+            r.setChangeSeq(nextSeq.merge(p.userId(), 1L, Long::sum) - 1);
+            readings.add(r);
+        }
+        List<BpReading> saved = readingStore.saveAll(readings);
+        long[] ids = new long[saved.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = saved.get(i).getId();
+        return ids;
+    }
+}
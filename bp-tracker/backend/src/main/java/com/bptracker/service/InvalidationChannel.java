@@ -0,0 +1,29 @@
+package com.bptracker.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Broadcasts InvalidationEvents to the other app instances, which hand them to their
+ * InvalidationListener beans. Selected with invalidation.channel: db (default, see
+ * DbInvalidationChannel) or none for a single instance.
+ */
+public interface InvalidationChannel {
+
+    // Must not block the caller on the broadcast, nor fail it if the broadcast fails
+    void publish(InvalidationEvent event);
+
+    // Publishes once the current transaction commits (immediately if there is none)
+    default void publishAfterCommit(InvalidationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.bptracker.service;
+
+/**
+ * A "this user's data changed" notice sent between app instances. publishedAt is the publishing
+ * node's clock, so staleness measured from it includes any clock skew between nodes.
+ */
+public record InvalidationEvent(Kind kind, long userId, String username, String detail, long publishedAt) {
+
+    public enum Kind {
+        // Readings or ABPM sessions were written or deleted
+        READINGS_CHANGED,
+        // detail = the revoked denylist key (jti or user:<username>)
+        TOKENS_REVOKED,
+        // The user was pinned to another shard
+        SHARD_MOVED
+    }
+
+    public static InvalidationEvent readingsChanged(long userId, String username) {
+        return new InvalidationEvent(Kind.READINGS_CHANGED, userId, username, null, System.currentTimeMillis());
+    }
+
+    public static InvalidationEvent tokensRevoked(String username, String key) {
+        return new InvalidationEvent(Kind.TOKENS_REVOKED, 0, username, key, System.currentTimeMillis());
+    }
+
+    public static InvalidationEvent shardMoved(long userId) {
+        return new InvalidationEvent(Kind.SHARD_MOVED, userId, null, null, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,11 @@
+package com.bptracker.service;
+
+/**
+ * A node-local cache that must forget something when another node changes a user's data.
+ * Called on the channel's poller thread for events published elsewhere; the publishing node
+ * invalidates its own caches directly. Implementations must be quick and idempotent.
+ */
+public interface InvalidationListener {
+
+    void onInvalidation(InvalidationEvent event);
+}
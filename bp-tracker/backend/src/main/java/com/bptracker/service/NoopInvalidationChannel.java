@@ -0,0 +1,14 @@
+package com.bptracker.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+// Single instance: local caches are invalidated in place, nothing to broadcast
+@Service
+@ConditionalOnProperty(name = "invalidation.channel", havingValue = "none")
+public class NoopInvalidationChannel implements InvalidationChannel {
+
+    @Override
+    public void publish(InvalidationEvent event) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.bptracker.service;
+
+import com.bptracker.repository.ReadingStore;
+import com.bptracker.util.NoteTokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Maintains reading_note_terms, the per-user inverted index over reading notes, and answers
+ * note searches from it. Index rows live next to the readings (same database or shard) and
+ * are written in the caller's transaction, so they commit or roll back with the reading.
+ *
+ * A search tokenizes the query the same way as the notes and treats every token as a prefix.
+ * The most selective (longest) token drives it: its matches are read newest first in bounded
+ * pages, and each page is narrowed by the other tokens with a lookup on just those reading ids,
+ * until limit readings match. A single-token search is one query with LIMIT limit.
+ */
+@Service
+public class NoteIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteIndexService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO reading_note_terms (user_id, term, recorded_at, reading_id) VALUES (?, ?, ?, ?)";
+    // DISTINCT: one reading can match a prefix through several of its terms
+    private static final String DRIVER_SQL =
+            "SELECT DISTINCT reading_id, recorded_at FROM reading_note_terms " +
+            "WHERE user_id = :userId AND term LIKE :prefix AND recorded_at >= :from AND recorded_at < :to";
+    private static final String NARROW_SQL =
+            "SELECT DISTINCT reading_id FROM reading_note_terms " +
+            "WHERE user_id = :userId AND term LIKE :prefix AND reading_id IN (:ids)";
+    // Driver rows read per page when other tokens still have to match
+    private static final int CANDIDATE_PAGE = 500;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private NamedParameterJdbcTemplate namedJdbc;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private ReadingStore readingStore;
+
+    @Value("${app.note-index.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    public record Entry(long readingId, long userId, String notes, LocalDateTime recordedAt) {}
+
+    public void index(long readingId, long userId, String notes, LocalDateTime recordedAt) {
+        indexAll(List.of(new Entry(readingId, userId, notes, recordedAt)));
+    }
+
+    public void indexAll(List<Entry> entries) {
+        List<Object[]> args = new ArrayList<>();
+        for (Entry e : entries) {
+            Timestamp at = Timestamp.valueOf(e.recordedAt());
+            for (String term : NoteTokenizer.tokenize(e.notes())) {
+                args.add(new Object[]{e.userId(), term, at, e.readingId()});
+            }
+        }
+        if (!args.isEmpty()) jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    public void remove(long readingId) {
+        jdbcTemplate.update("DELETE FROM reading_note_terms WHERE reading_id = ?", readingId);
+    }
+
+    // Matching reading ids, newest first; must run on the user's shard
+    public List<Long> search(long userId, String query, LocalDateTime from, LocalDateTime to, int limit) {
+        List<String> tokens = new ArrayList<>(NoteTokenizer.tokenize(query));
+        if (tokens.isEmpty()) return List.of();
+        tokens.sort(Comparator.comparingInt(String::length).reversed());
+        List<String> others = tokens.subList(1, tokens.size());
+        int page = others.isEmpty() ? limit : Math.max(limit, CANDIDATE_PAGE);
+
+        List<Long> result = new ArrayList<>();
+        LocalDateTime afterAt = null;
+        long afterId = 0;
+        while (result.size() < limit) {
+            // tokens are letters/digits only, nothing to escape in the LIKE patterns
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("userId", userId)
+                    .addValue("prefix", tokens.get(0) + "%")
+                    .addValue("from", Timestamp.valueOf(from))
+                    .addValue("to", Timestamp.valueOf(to));
+            String sql = DRIVER_SQL;
+            if (afterAt != null) {
+                sql += " AND (recorded_at < :afterAt OR (recorded_at = :afterAt AND reading_id < :afterId))";
+                params.addValue("afterAt", Timestamp.valueOf(afterAt)).addValue("afterId", afterId);
+            }
+            sql += " ORDER BY recorded_at DESC, reading_id DESC LIMIT " + page;
+            Map<Long, LocalDateTime> hits = new LinkedHashMap<>();
+            namedJdbc.query(sql, params, rs -> {
+                hits.put(rs.getLong("reading_id"), rs.getTimestamp("recorded_at").toLocalDateTime());
+            });
+            if (hits.isEmpty()) break;
+
+            Set<Long> candidates = new HashSet<>(hits.keySet());
+            for (String token : others) {
+                Set<Long> matches = new HashSet<>(namedJdbc.queryForList(NARROW_SQL, new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("prefix", token + "%")
+                        .addValue("ids", candidates), Long.class));
+                candidates.retainAll(matches);
+                if (candidates.isEmpty()) break;
+            }
+            for (Map.Entry<Long, LocalDateTime> hit : hits.entrySet()) {
+                if (result.size() == limit) break;
+                if (candidates.contains(hit.getKey())) result.add(hit.getKey());
+                afterId = hit.getKey();
+                afterAt = hit.getValue();
+            }
+            if (hits.size() < page) break;
+        }
+        return result;
+    }
+
+    // Indexes notes written before the index existed; safe to re-run (each batch replaces its rows).
+    // Reads bp_readings, so only with the jpa backend
+    public long rebuild() {
+        if (!readingStore.isRelational()) {
+            throw new IllegalStateException("Note index rebuild needs storage.backend=jpa");
+        }
+        long total = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            long[] lastId = {0};
+            while (true) {
+                Integer n = shardRouter.isEnabled()
+                        ? shardRouter.onShard(shard, false, () -> rebuildBatch(lastId))
+                        : transactionTemplate.execute(status -> rebuildBatch(lastId));
+                if (n == null || n == 0) break;
+                total += n;
+            }
+            log.info("Note index rebuild: shard {} done, {} readings indexed so far", shard, total);
+        }
+        return total;
+    }
+
+    private int rebuildBatch(long[] lastId) {
+        List<Entry> entries = jdbcTemplate.query(
+                "SELECT id, user_id, notes, recorded_at FROM bp_readings WHERE id > ? AND notes IS NOT NULL AND deleted = false ORDER BY id LIMIT " + rebuildBatchSize,
+                (rs, i) -> new Entry(rs.getLong("id"), rs.getLong("user_id"), rs.getString("notes"),
+                        rs.getTimestamp("recorded_at").toLocalDateTime()),
+                lastId[0]);
+        if (entries.isEmpty()) return 0;
+
+        List<Object[]> ids = new ArrayList<>(entries.size());
+        for (Entry e : entries) ids.add(new Object[]{e.readingId()});
+        jdbcTemplate.batchUpdate("DELETE FROM reading_note_terms WHERE reading_id = ?", ids);
+        indexAll(entries);
+        lastId[0] = entries.get(entries.size() - 1).readingId();
+        return entries.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.bptracker.service;
+
+import com.bptracker.model.ReadingEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Records how long events take from commit to delivery (bp.outbox.lag). Doubles as the
+ * simplest possible consumer; disable with outbox.consumers.lag-metrics.enabled=false.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.consumers.lag-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxLagConsumer implements ReadingEventConsumer {
+
+    private final Timer lag;
+
+    public OutboxLagConsumer(MeterRegistry meterRegistry) {
+        this.lag = Timer.builder("bp.outbox.lag")
+                .description("Time from writing a reading event to delivering it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "lag-metrics";
+    }
+
+    @Override
+    public void onEvent(ReadingEvent event) {
+        lag.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,20 @@
+package com.bptracker.service;
+
+import com.bptracker.model.ReadingEvent;
+
+/**
+ * Asynchronous subscriber to reading changes. Register one by making it a bean.
+ *
+ * Delivery is at-least-once and in order per user: events for one user are handed over one at
+ * a time in commit order, different users may be processed in parallel. If onEvent throws, that
+ * event and the user's later ones are delivered again on the next poll, so implementations must
+ * be idempotent. After outbox.max-attempts failures the event is parked (reading_event_parked)
+ * and the user's later events go on without it.
+ */
+public interface ReadingEventConsumer {
+
+    // Checkpoint key; must stay stable across restarts
+    String name();
+
+    void onEvent(ReadingEvent event) throws Exception;
+}
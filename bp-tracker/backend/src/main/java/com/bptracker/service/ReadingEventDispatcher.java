@@ -0,0 +1,280 @@
+package com.bptracker.service;
+
+import com.bptracker.model.ReadingEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Delivers reading_events to every ReadingEventConsumer bean.
+ *
+ * Each poll reads, per database/shard, the events past the slowest consumer's checkpoint and
+ * splits them into lanes by user. A lane is a single thread, so one user's events reach a
+ * consumer in id order while different users run in parallel. When an event fails, only that
+ * user's later events are held back: the consumer's checkpoint moves up to just before its
+ * oldest failed event, and the events past it that were already delivered are remembered (in
+ * memory, per shard) so the retry doesn't send them again. After outbox.max-attempts failures
+ * an event is parked in reading_event_parked and skipped, and the user's later events go
+ * through. Replay is just moving a checkpoint back (see replay()).
+ *
+ * Events are only picked up once they are outbox.settle-ms old. Ids are assigned at insert but
+ * become visible at commit, so without the delay a slow transaction could commit a lower id
+ * after the checkpoint had already passed it. Run the dispatcher on one node only
+ * (outbox.dispatcher.enabled=false elsewhere).
+ */
+@Service
+public class ReadingEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingEventDispatcher.class);
+
+    private static final String SELECT_SQL =
+            "SELECT id, user_id, reading_id, event_type, systolic, diastolic, pulse, recorded_at, created_at " +
+            "FROM reading_events WHERE id > ? AND created_at <= ? ORDER BY id LIMIT ";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired(required = false) private List<ReadingEventConsumer> consumers = List.of();
+
+    @Value("${outbox.dispatcher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.lanes:4}")
+    private int laneCount;
+
+    @Value("${outbox.settle-ms:1000}")
+    private long settleMs;
+
+    @Value("${outbox.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    private final List<ExecutorService> lanes = new ArrayList<>();
+    private final Map<String, Counter> delivered = new HashMap<>();
+    private final Map<String, Counter> failed = new HashMap<>();
+    private final Map<String, Counter> parked = new HashMap<>();
+    // "shard:consumer" -> what happened past that consumer's checkpoint on that shard
+    private final Map<String, Progress> progress = new ConcurrentHashMap<>();
+
+    // Events past the checkpoint that are done (delivered or parked), and failure counts
+    private static class Progress {
+        final Set<Long> done = ConcurrentHashMap.newKeySet();
+        final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+
+        void forgetUpTo(long checkpoint) {
+            done.removeIf(id -> id <= checkpoint);
+            attempts.keySet().removeIf(id -> id <= checkpoint);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        for (int i = 0; i < laneCount; i++) {
+            int lane = i;
+            lanes.add(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "outbox-lane-" + lane);
+                t.setDaemon(true);
+                return t;
+            }));
+        }
+        for (ReadingEventConsumer c : consumers) {
+            delivered.put(c.name(), Counter.builder("bp.outbox.events").tag("consumer", c.name())
+                    .tag("outcome", "delivered").register(meterRegistry));
+            failed.put(c.name(), Counter.builder("bp.outbox.events").tag("consumer", c.name())
+                    .tag("outcome", "failed").register(meterRegistry));
+            parked.put(c.name(), Counter.builder("bp.outbox.events").tag("consumer", c.name())
+                    .tag("outcome", "parked").register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        lanes.forEach(ExecutorService::shutdown);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-ms:200}")
+    public void poll() {
+        if (!enabled || consumers.isEmpty()) return;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            try {
+                // Keep going while full batches come back, so a backlog drains without waiting a poll interval
+                int n;
+                do {
+                    n = pollShard(shard);
+                } while (n == batchSize);
+            } catch (Exception e) {
+                log.error("Outbox poll on shard {} failed: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    // Moves the consumer back so everything after afterEventId (on every shard) is delivered again
+    public void replay(String consumer, long afterEventId) {
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            shardRouter.onShard(shard, false, () -> {
+                saveCheckpoint(consumer, afterEventId);
+                return null;
+            });
+            progress.remove(shard + ":" + consumer);
+        }
+        log.info("Outbox consumer {} will replay events after id {}", consumer, afterEventId);
+    }
+
+    private int pollShard(int shard) throws Exception {
+        Map<String, Long> checkpoints = shardRouter.onShard(shard, true, this::loadCheckpoints);
+        long from = Collections.min(checkpoints.values());
+        Timestamp settled = Timestamp.valueOf(LocalDateTime.now().minusNanos(settleMs * 1_000_000));
+        List<ReadingEvent> events = shardRouter.onShard(shard, true,
+                () -> jdbcTemplate.query(SELECT_SQL + batchSize, (rs, i) -> {
+                    ReadingEvent e = new ReadingEvent();
+                    e.setId(rs.getLong("id"));
+                    e.setUserId(rs.getLong("user_id"));
+                    e.setReadingId(rs.getLong("reading_id"));
+                    e.setType(ReadingEvent.Type.valueOf(rs.getString("event_type")));
+                    e.setSystolic(rs.getObject("systolic", Integer.class));
+                    e.setDiastolic(rs.getObject("diastolic", Integer.class));
+                    e.setPulse(rs.getObject("pulse", Integer.class));
+                    Timestamp recordedAt = rs.getTimestamp("recorded_at");
+                    e.setRecordedAt(recordedAt != null ? recordedAt.toLocalDateTime() : null);
+                    e.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                    return e;
+                }, from, settled));
+        if (events.isEmpty()) return 0;
+
+        List<List<ReadingEvent>> byLane = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) byLane.add(new ArrayList<>());
+        for (ReadingEvent e : events) byLane.get(Math.floorMod(Long.hashCode(e.getUserId()), laneCount)).add(e);
+
+        // Consumer -> oldest event that failed this time and will be retried
+        Map<String, Long> oldestFailed = new ConcurrentHashMap<>();
+        List<Future<?>> pending = new ArrayList<>();
+        for (int i = 0; i < laneCount; i++) {
+            List<ReadingEvent> laneEvents = byLane.get(i);
+            if (laneEvents.isEmpty()) continue;
+            pending.add(lanes.get(i).submit(() -> deliver(shard, laneEvents, checkpoints, oldestFailed)));
+        }
+        for (Future<?> f : pending) f.get();
+
+        long last = events.get(events.size() - 1).getId();
+        shardRouter.onShard(shard, false, () -> {
+            for (ReadingEventConsumer c : consumers) {
+                long next = oldestFailed.containsKey(c.name()) ? oldestFailed.get(c.name()) - 1 : last;
+                if (checkpoints.get(c.name()) < next) saveCheckpoint(c.name(), next);
+                progress(shard, c.name()).forgetUpTo(next);
+            }
+            return null;
+        });
+        // After a failure, wait for the next poll instead of re-reading the same batch straight away
+        return oldestFailed.isEmpty() ? events.size() : 0;
+    }
+
+    private Progress progress(int shard, String consumer) {
+        return progress.computeIfAbsent(shard + ":" + consumer, k -> new Progress());
+    }
+
+    private void deliver(int shard, List<ReadingEvent> events, Map<String, Long> checkpoints, Map<String, Long> oldestFailed) {
+        for (ReadingEventConsumer c : consumers) {
+            long checkpoint = checkpoints.get(c.name());
+            Progress p = progress(shard, c.name());
+            Set<Long> failedUsers = new HashSet<>();
+            for (ReadingEvent e : events) {
+                if (e.getId() <= checkpoint || p.done.contains(e.getId())) continue;
+                // Once a user's event fails, hold back that user's later events to keep their order
+                if (failedUsers.contains(e.getUserId())) continue;
+                try {
+                    c.onEvent(e);
+                    delivered.get(c.name()).increment();
+                    p.done.add(e.getId());
+                } catch (Exception ex) {
+                    failed.get(c.name()).increment();
+                    int attempts = p.attempts.merge(e.getId(), 1, Integer::sum);
+                    if (attempts >= maxAttempts) {
+                        park(shard, c.name(), e, ex);
+                        p.done.add(e.getId());
+                        continue;
+                    }
+                    failedUsers.add(e.getUserId());
+                    oldestFailed.merge(c.name(), e.getId(), Math::min);
+                    log.warn("Outbox consumer {} failed on event {} (attempt {} of {}): {}",
+                            c.name(), e.getId(), attempts, maxAttempts, ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private void park(int shard, String consumer, ReadingEvent e, Exception ex) {
+        String error = ex.getMessage() != null ? ex.getMessage() : ex.getClass().getName();
+        shardRouter.onShard(shard, false, () -> jdbcTemplate.update(
+                "INSERT INTO reading_event_parked (consumer, event_id, user_id, error, parked_at) VALUES (?, ?, ?, ?, ?)",
+                consumer, e.getId(), e.getUserId(), error.length() > 500 ? error.substring(0, 500) : error,
+                Timestamp.valueOf(LocalDateTime.now())));
+        parked.get(consumer).increment();
+        log.error("Outbox consumer {} gave up on event {} for user {} after {} attempts, parked: {}",
+                consumer, e.getId(), e.getUserId(), maxAttempts, error);
+    }
+
+    private Map<String, Long> loadCheckpoints() {
+        Map<String, Long> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT consumer, last_event_id FROM reading_event_checkpoints",
+                rs -> { stored.put(rs.getString("consumer"), rs.getLong("last_event_id")); });
+        Map<String, Long> checkpoints = new HashMap<>();
+        // A consumer seen for the first time starts from the oldest retained event
+        for (ReadingEventConsumer c : consumers) checkpoints.put(c.name(), stored.getOrDefault(c.name(), 0L));
+        return checkpoints;
+    }
+
+    private void saveCheckpoint(String consumer, long lastEventId) {
+        int updated = jdbcTemplate.update(
+                "UPDATE reading_event_checkpoints SET last_event_id = ? WHERE consumer = ?", lastEventId, consumer);
+        if (updated == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO reading_event_checkpoints (consumer, last_event_id) VALUES (?, ?)", consumer, lastEventId);
+        }
+    }
+
+    // Drops events every consumer has processed once they are older than the retention period
+    @Scheduled(fixedDelayString = "${outbox.purge-ms:3600000}")
+    public void purge() {
+        if (!enabled) return;
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours));
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            try {
+                long safe = consumers.isEmpty() ? Long.MAX_VALUE
+                        : Collections.min(shardRouter.onShard(shard, true, this::loadCheckpoints).values());
+                int removed;
+                do {
+                    removed = shardRouter.onShard(shard, false, () -> {
+                        List<Object[]> ids = jdbcTemplate.query(
+                                "SELECT id FROM reading_events WHERE id <= ? AND created_at < ? ORDER BY id LIMIT " + batchSize,
+                                (rs, i) -> new Object[]{rs.getLong("id")}, safe, cutoff);
+                        if (!ids.isEmpty()) jdbcTemplate.batchUpdate("DELETE FROM reading_events WHERE id = ?", ids);
+                        return ids.size();
+                    });
+                } while (removed == batchSize);
+            } catch (Exception e) {
+                log.error("Outbox purge on shard {} failed: {}", shard, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.bptracker.service;
+
+import com.bptracker.model.BpReading;
+import com.bptracker.model.ReadingEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appends to reading_events. Callers must be inside the transaction (and on the shard) that
+ * writes the reading itself, so the event exists if and only if the change committed.
+ */
+@Service
+public class ReadingEventOutbox {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO reading_events (user_id, reading_id, event_type, systolic, diastolic, pulse, recorded_at, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Value("${outbox.enabled:true}")
+    private boolean enabled;
+
+    public record Change(ReadingEvent.Type type, long userId, long readingId, Integer systolic, Integer diastolic,
+                         Integer pulse, LocalDateTime recordedAt) {}
+
+    public void created(BpReading r) {
+        append(List.of(change(ReadingEvent.Type.CREATED, r)));
+    }
+
+    public void deleted(BpReading r) {
+        append(List.of(change(ReadingEvent.Type.DELETED, r)));
+    }
+
+    public void append(List<Change> changes) {
+        if (!enabled || changes.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(changes.size());
+        for (Change c : changes) {
+            args.add(new Object[]{c.userId(), c.readingId(), c.type().name(), c.systolic(), c.diastolic(), c.pulse(),
+                    c.recordedAt() != null ? Timestamp.valueOf(c.recordedAt()) : null, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    private static Change change(ReadingEvent.Type type, BpReading r) {
+        return new Change(type, r.getUser().getId(), r.getId(), r.getSystolic(), r.getDiastolic(), r.getPulse(),
+                r.getRecordedAt());
+    }
+}
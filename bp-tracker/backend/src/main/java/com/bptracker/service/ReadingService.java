@@ -1,36 +1,86 @@
 package com.bptracker.service;
 
+import com.bptracker.config.ReadYourWritesTracker;
 import com.bptracker.dto.ReadingDtos.*;
+import com.bptracker.jfr.ReadingOperationEvent;
+import com.bptracker.model.BpCategory;
 import com.bptracker.model.BpReading;
+import com.bptracker.model.ReadingField;
 import com.bptracker.model.User;
-import com.bptracker.repository.BpReadingRepository;
+import com.bptracker.repository.ReadingStore;
 import com.bptracker.repository.UserRepository;
+import com.bptracker.util.AbpmCodec;
+import com.bptracker.util.BpHistogram;
+import com.bptracker.util.ReadingSketch;
+import com.bptracker.util.SparseReadingWriter;
 import com.bptracker.util.VoiceParserUtil;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class ReadingService {
 
-    @Autowired private BpReadingRepository readingRepository;
+    @Autowired private ReadingStore readings;
     @Autowired private UserRepository userRepository;
     @Autowired private VoiceParserUtil voiceParser;
+    @Autowired private ReadYourWritesTracker readYourWrites;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private RequestCoalescer coalescer;
+    @Autowired private NoteIndexService noteIndex;
+    @Autowired private ReadingEventOutbox outbox;
+    @Autowired private ChangeSequenceService changeSeqs;
+    @Autowired private AbpmSessionService abpmSessions;
+    @Autowired private InvalidationChannel invalidations;
+    @Autowired private SparseReadingWriter sparseWriter;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Value("${readings.page-size:1000}")
+    private int pageSize;
+
+    private TransactionTemplate readOnlyTx;
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     private static final DateTimeFormatter TIME_LABEL = DateTimeFormatter.ofPattern("MMM dd, HH:mm");
+    private static final int MAX_CHANGES_PAGE = 1000;
+    private static final BpCategory[] CATEGORIES = BpCategory.values();
+
+    @PostConstruct
+    void init() {
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
 
     private User getUser(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
+    @Transactional
     public BpReadingResponse saveReading(BpReadingRequest request, String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("save", username, null);
+        try {
+            return doSaveReading(request, username);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private BpReadingResponse doSaveReading(BpReadingRequest request, String username) {
         User user = getUser(username);
 
         BpReading reading = new BpReading();
@@ -39,6 +89,7 @@ public class ReadingService {
         reading.setDiastolic(request.getDiastolic());
         reading.setPulse(request.getPulse());
         reading.setNotes(request.getNotes());
+        reading.setCategory(BpCategory.classify(request.getSystolic(), request.getDiastolic()));
 
         if (request.getRecordedAt() != null && !request.getRecordedAt().isEmpty()) {
             try {
@@ -59,7 +110,16 @@ public class ReadingService {
             }
         }
 
-        BpReading saved = readingRepository.save(reading);
+        BpReading saved = shardRouter.onUserShard(user.getId(), false, () -> {
+            reading.setChangeSeq(changeSeqs.next(user.getId(), 1));
+            BpReading r = readings.save(reading);
+            noteIndex.index(r.getId(), user.getId(), r.getNotes(), r.getRecordedAt());
+            outbox.created(r);
+            return r;
+        });
+        readYourWrites.markWrite(username);
+        coalescer.invalidateAfterCommit(username);
+        invalidations.publishAfterCommit(InvalidationEvent.readingsChanged(user.getId(), username));
         return toResponse(saved);
     }
 
@@ -67,6 +127,7 @@ public class ReadingService {
         return voiceParser.parse(text);
     }
 
+    @Transactional
     public BpReadingResponse saveFromVoice(VoiceInputRequest request, String username) {
         ParsedReadingResponse parsed = voiceParser.parse(request.getText());
         if (!parsed.isSuccess()) {
@@ -83,42 +144,226 @@ public class ReadingService {
         return saveReading(readingRequest, username);
     }
 
-    public List<BpReadingResponse> getReadings(String range, String username) {
-        User user = getUser(username);
-        LocalDateTime since = parseSince(range);
-        List<BpReading> readings = readingRepository.findByUserSince(user, since);
-        return readings.stream().map(this::toResponse).collect(Collectors.toList());
+    // Raw entities for the streaming columnar/CBOR writers
+    public List<BpReading> findReadings(String range, String username) {
+        return findReadings(range, null, username);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BpReading> findReadings(String range, Set<BpCategory> categories, String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("findReadings", username, range);
+        try {
+            List<BpReading> readings = loadRange(range, categories, username);
+            event.rowsLoaded = readings.size();
+            return readings;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<BpReading> findAllReadings(String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("findAllReadings", username, "all");
+        try {
+            List<BpReading> readings = loadAll(username);
+            event.rowsLoaded = readings.size();
+            return readings;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<BpReadingResponse> getReadings(String range, Set<BpCategory> categories, String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("readings", username, range);
+        try {
+            List<BpReading> readings = loadRange(range, categories, username);
+            event.rowsLoaded = readings.size();
+            return readings.stream().map(this::toResponse).collect(Collectors.toList());
+        } finally {
+            event.commit();
+        }
     }
 
+    @Transactional(readOnly = true)
     public List<BpReadingResponse> getAllReadings(String username) {
-        User user = getUser(username);
-        return readingRepository.findByUserOrderByRecordedAtDesc(user)
-                .stream().map(this::toResponse).collect(Collectors.toList());
+        ReadingOperationEvent event = ReadingOperationEvent.begin("allReadings", username, "all");
+        try {
+            List<BpReading> readings = loadAll(username);
+            event.rowsLoaded = readings.size();
+            return readings.stream().map(this::toResponse).collect(Collectors.toList());
+        } finally {
+            event.commit();
+        }
     }
 
-    public List<GraphPointResponse> getGraphData(String range, String username) {
-        User user = getUser(username);
-        LocalDateTime since = parseSince(range);
-        List<BpReading> readings = readingRepository.findByUserSince(user, since);
-
-        return readings.stream().map(r -> {
-            GraphPointResponse gp = new GraphPointResponse();
-            gp.setTimestamp(r.getRecordedAt().format(FORMATTER));
-            gp.setTimeLabel(r.getRecordedAt().format(TIME_LABEL));
-            gp.setSystolic(r.getSystolic());
-            gp.setDiastolic(r.getDiastolic());
-            gp.setPulse(r.getPulse() != null ? r.getPulse() : 0);
-            gp.setCategory(classifyBP(r.getSystolic(), r.getDiastolic()));
-            return gp;
-        }).collect(Collectors.toList());
+    // fields= responses; range null means all readings, newest first. Rows are read in pages of
+    // readings.page-size, each in its own short read, and a page is written to the client only
+    // after its read has released the connection (or the mmap store's lock), so a slow client
+    // holds neither. Rows written while the response streams may or may not be included.
+    public void writeReadings(String range, Set<BpCategory> categories, Set<ReadingField> fields,
+                              String username, OutputStream out) throws IOException {
+        ReadingOperationEvent event = ReadingOperationEvent.begin(range != null ? "readingFields" : "allReadingFields",
+                username, range != null ? range : "all");
+        try {
+            User user = getUser(username);
+            LocalDateTime since = range != null ? parseSince(range) : null;
+            event.rowsLoaded = sparseWriter.write(fields, visitor -> {
+                ReadingStore.RowCursor cursor = new ReadingStore.RowCursor();
+                List<ReadingStore.ReadingRow> page = new ArrayList<>(pageSize);
+                int n;
+                do {
+                    page.clear();
+                    n = readPage(user.getId(), () -> readings.forEachRow(user.getId(), since, categories,
+                            range == null, fields, cursor, pageSize, row -> page.add(row.copy())));
+                    page.forEach(visitor::visit);
+                } while (n == pageSize);
+            }, out);
+        } finally {
+            event.commit();
+        }
     }
 
-    public SummaryResponse getSummary(String range, String username) {
-        User user = getUser(username);
-        LocalDateTime since = parseSince(range);
-        List<BpReading> readings = readingRepository.findByUserSince(user, since);
+    // One short read on the user's shard, read-only so it may go to a replica
+    private <T> T readPage(long userId, Supplier<T> work) {
+        if (shardRouter.isEnabled()) return shardRouter.onUserShard(userId, true, work);
+        if (!readings.isRelational()) return work.get();
+        return readOnlyTx.execute(status -> work.get());
+    }
 
-        if (readings.isEmpty()) {
+    // includeAbpm adds ambulatory session samples, decoded straight into points (source "ABPM")
+    @Transactional(readOnly = true)
+    public List<GraphPointResponse> getGraphData(String range, boolean includeAbpm, String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("graph", username, range);
+        try {
+            // Visited straight from storage, no reading entities
+            User user = getUser(username);
+            LocalDateTime since = parseSince(range);
+            List<GraphPointResponse> points = new ArrayList<>();
+            shardRouter.onUserShard(user.getId(), true, () -> {
+                readings.forEachInRange(user.getId(), since, null, (id, t, sys, dia, pulse, category) -> {
+                    LocalDateTime at = AbpmCodec.fromEpoch(t);
+                    GraphPointResponse gp = new GraphPointResponse();
+                    gp.setTimestamp(at.format(FORMATTER));
+                    gp.setTimeLabel(at.format(TIME_LABEL));
+                    gp.setSystolic(sys);
+                    gp.setDiastolic(dia);
+                    gp.setPulse(pulse);
+                    gp.setCategory((category >= 0 ? CATEGORIES[category] : BpCategory.classify(sys, dia)).getLabel());
+                    gp.setSource("READING");
+                    points.add(gp);
+                });
+                return null;
+            });
+            event.rowsLoaded = points.size();
+            if (!includeAbpm) return points;
+
+            abpmSessions.forEachSample(user.getId(), since, (t, sys, dia, pulse) -> {
+                LocalDateTime at = AbpmCodec.fromEpoch(t);
+                GraphPointResponse gp = new GraphPointResponse();
+                gp.setTimestamp(at.format(FORMATTER));
+                gp.setTimeLabel(at.format(TIME_LABEL));
+                gp.setSystolic(sys);
+                gp.setDiastolic(dia);
+                gp.setPulse(pulse);
+                gp.setCategory(BpCategory.classify(sys, dia).getLabel());
+                gp.setSource("ABPM");
+                points.add(gp);
+            });
+            // yyyy-MM-dd HH:mm sorts chronologically; the sort is stable for equal minutes
+            points.sort(Comparator.comparing(GraphPointResponse::getTimestamp));
+            return points;
+        } finally {
+            event.commit();
+        }
+    }
+
+    // Note search: every query token is a prefix, all must match; from/to are yyyy-MM-dd, both optional
+    @Transactional(readOnly = true)
+    public List<BpReadingResponse> searchNotes(String query, String from, String to, int limit, String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("search", username, null);
+        try {
+            User user = getUser(username);
+            LocalDateTime start = parseDate(from, LocalDateTime.now().minusYears(10));
+            LocalDateTime end = parseDate(to, null);
+            end = end != null ? end.plusDays(1) : LocalDateTime.now().plusDays(1);
+            LocalDateTime until = end;
+            int max = Math.max(1, Math.min(limit, 500));
+
+            List<BpReading> readings = shardRouter.onUserShard(user.getId(), true, () -> {
+                List<Long> ids = noteIndex.search(user.getId(), query, start, until, max);
+                if (ids.isEmpty()) return List.<BpReading>of();
+                Map<Long, BpReading> byId = readings.findAllById(user.getId(), ids).stream()
+                        .collect(Collectors.toMap(BpReading::getId, r -> r));
+                List<BpReading> ordered = new ArrayList<>(ids.size());
+                for (Long id : ids) {
+                    BpReading r = byId.get(id);
+                    if (r != null) ordered.add(r);
+                }
+                return ordered;
+            });
+            event.rowsLoaded = readings.size();
+            return readings.stream().map(this::toResponse).collect(Collectors.toList());
+        } finally {
+            event.commit();
+        }
+    }
+
+    // Delta sync: inserts and deletes after the given sequence number, oldest first, one page at a time
+    @Transactional(readOnly = true)
+    public ChangesResponse getChanges(long since, int limit, String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("changes", username, null);
+        try {
+            User user = getUser(username);
+            int pageSize = Math.max(1, Math.min(limit, MAX_CHANGES_PAGE));
+            List<BpReading> rows = shardRouter.onUserShard(user.getId(), true,
+                    () -> readings.findChangesSince(user.getId(), since, pageSize + 1));
+            List<ReadingChange> changes = new ArrayList<>(rows.size());
+            for (BpReading r : rows) {
+                ReadingChange change = new ReadingChange();
+                change.setSeq(r.getChangeSeq());
+                change.setId(r.getId());
+                if (r.isDeleted()) {
+                    change.setOp("delete");
+                } else {
+                    change.setOp("upsert");
+                    change.setReading(toResponse(r));
+                }
+                changes.add(change);
+            }
+            event.rowsLoaded = changes.size();
+
+            ChangesResponse response = new ChangesResponse();
+            response.setHasMore(changes.size() > pageSize);
+            if (response.isHasMore()) changes = changes.subList(0, pageSize);
+            response.setChanges(changes);
+            response.setNextSince(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq());
+            return response;
+        } finally {
+            event.commit();
+        }
+    }
+
+    // includeAbpm folds ambulatory session samples into the statistics without loading them as readings
+    @Transactional(readOnly = true)
+    public SummaryResponse getSummary(String range, boolean includeAbpm, String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("summary", username, range);
+        try {
+            List<BpReading> readings = loadRange(range, username);
+            event.rowsLoaded = readings.size();
+            AbpmSessionService.RangeStats abpm = includeAbpm
+                    ? abpmSessions.rangeStats(getUser(username).getId(), parseSince(range))
+                    : null;
+            return summarize(readings, abpm, range);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private SummaryResponse summarize(List<BpReading> readings, AbpmSessionService.RangeStats abpm, String range) {
+        long abpmSamples = abpm != null ? abpm.sketch().getCount() : 0;
+
+        if (readings.isEmpty() && abpmSamples == 0) {
             SummaryResponse empty = new SummaryResponse();
             empty.setRange(range);
             empty.setTotalReadings(0);
@@ -128,57 +373,132 @@ public class ReadingService {
             return empty;
         }
 
-        double avgSys = readings.stream().mapToInt(BpReading::getSystolic).average().orElse(0);
-        double avgDia = readings.stream().mapToInt(BpReading::getDiastolic).average().orElse(0);
-        double avgPulse = readings.stream()
-                .filter(r -> r.getPulse() != null)
-                .mapToInt(BpReading::getPulse).average().orElse(0);
+        // One pass into fixed-bin histograms gives mean, min/max and percentiles
+        ReadingSketch sketch = new ReadingSketch();
+        readings.forEach(sketch::add);
+        if (abpm != null) sketch.merge(abpm.sketch());
+        BpHistogram sys = sketch.getSystolic();
+        BpHistogram dia = sketch.getDiastolic();
+        BpHistogram pulse = sketch.getPulse();
 
-        int maxSys = readings.stream().mapToInt(BpReading::getSystolic).max().orElse(0);
-        int minSys = readings.stream().mapToInt(BpReading::getSystolic).min().orElse(0);
-        int maxDia = readings.stream().mapToInt(BpReading::getDiastolic).max().orElse(0);
-        int minDia = readings.stream().mapToInt(BpReading::getDiastolic).min().orElse(0);
-        int maxPulse = readings.stream().filter(r -> r.getPulse() != null).mapToInt(BpReading::getPulse).max().orElse(0);
-        int minPulse = readings.stream().filter(r -> r.getPulse() != null).mapToInt(BpReading::getPulse).min().orElse(0);
+        double avgSys = sys.mean();
+        double avgDia = dia.mean();
+        double avgPulse = pulse.mean();
 
         String category = classifyBP(avgSys, avgDia);
         String suggestion = generateSuggestion(category, avgPulse, avgSys, avgDia);
         String trend = calculateTrend(readings);
-        List<String> alerts = generateAlerts(readings, avgPulse);
+        List<String> alerts = generateAlerts(readings, abpm, avgPulse);
 
         SummaryResponse summary = new SummaryResponse();
         summary.setAvgSystolic(Math.round(avgSys * 10.0) / 10.0);
         summary.setAvgDiastolic(Math.round(avgDia * 10.0) / 10.0);
         summary.setAvgPulse(Math.round(avgPulse * 10.0) / 10.0);
-        summary.setMaxSystolic(maxSys);
-        summary.setMinSystolic(minSys);
-        summary.setMaxDiastolic(maxDia);
-        summary.setMinDiastolic(minDia);
-        summary.setMaxPulse(maxPulse);
-        summary.setMinPulse(minPulse);
+        summary.setMaxSystolic(sys.max());
+        summary.setMinSystolic(sys.min());
+        summary.setMaxDiastolic(dia.max());
+        summary.setMinDiastolic(dia.min());
+        summary.setMaxPulse(pulse.max());
+        summary.setMinPulse(pulse.min());
+        summary.setP50Systolic(sys.quantile(0.5));
+        summary.setP90Systolic(sys.quantile(0.9));
+        summary.setP50Diastolic(dia.quantile(0.5));
+        summary.setP90Diastolic(dia.quantile(0.9));
+        summary.setP50Pulse(pulse.quantile(0.5));
+        summary.setP90Pulse(pulse.quantile(0.9));
         summary.setCategory(category);
         summary.setSuggestion(suggestion);
         summary.setTrend(trend);
-        summary.setTotalReadings(readings.size());
+        summary.setTotalReadings(readings.size() + (int) abpmSamples);
         summary.setRange(range);
         summary.setAlerts(alerts);
+        if (abpm != null) {
+            summary.setAbpmSamples((int) abpmSamples);
+            summary.setDippingRatio(abpm.dippingRatio());
+            summary.setDippingPattern(abpm.dippingPattern());
+        }
 
         return summary;
     }
 
+    @Transactional
     public boolean deleteReading(Long id, String username) {
+        ReadingOperationEvent event = ReadingOperationEvent.begin("delete", username, null);
+        try {
+            return doDeleteReading(id, username);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private boolean doDeleteReading(Long id, String username) {
         User user = getUser(username);
-        Optional<BpReading> reading = readingRepository.findById(id);
-        if (reading.isPresent() && reading.get().getUser().getId().equals(user.getId())) {
-            readingRepository.deleteById(id);
-            return true;
+        boolean deleted = shardRouter.onUserShard(user.getId(), false, () -> {
+            Optional<BpReading> reading = readings.findOwned(user.getId(), id);
+            if (reading.isPresent()) {
+                BpReading r = reading.get();
+                noteIndex.remove(id);
+                outbox.deleted(r);
+                // Keep a tombstone so synced clients learn about the delete
+                r.setChangeSeq(changeSeqs.next(user.getId(), 1));
+                readings.markDeleted(r);
+                return true;
+            }
+            return false;
+        });
+        if (deleted) {
+            readYourWrites.markWrite(username);
+            coalescer.invalidateAfterCommit(username);
+            invalidations.publishAfterCommit(InvalidationEvent.readingsChanged(user.getId(), username));
         }
-        return false;
+        return deleted;
     }
 
     // ===== HELPER METHODS =====
 
-    private LocalDateTime parseSince(String range) {
+    private List<BpReading> loadRange(String range, String username) {
+        return loadRange(range, null, username);
+    }
+
+    private List<BpReading> loadRange(String range, Set<BpCategory> categories, String username) {
+        User user = getUser(username);
+        LocalDateTime since = parseSince(range);
+        if (categories == null || categories.isEmpty()) {
+            return shardRouter.onUserShard(user.getId(), true, () -> readings.findInRange(user.getId(), since, null));
+        }
+        return shardRouter.onUserShard(user.getId(), true,
+                () -> readings.findByCategorySince(user.getId(), categories, since));
+    }
+
+    // "STAGE_2,CRISIS" -> {STAGE_2, CRISIS}; null or blank means no filter
+    public Set<BpCategory> parseCategories(String category) {
+        if (category == null || category.isBlank()) return null;
+        Set<BpCategory> categories = EnumSet.noneOf(BpCategory.class);
+        for (String name : category.split(",")) {
+            try {
+                categories.add(BpCategory.valueOf(name.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unknown category: " + name.trim());
+            }
+        }
+        return categories;
+    }
+
+    private List<BpReading> loadAll(String username) {
+        User user = getUser(username);
+        return shardRouter.onUserShard(user.getId(), true, () -> readings.findAllNewestFirst(user.getId()));
+    }
+
+    private LocalDateTime parseDate(String date, LocalDateTime fallback) {
+        if (date == null || date.isEmpty()) return fallback;
+        try {
+            return LocalDate.parse(date).atStartOfDay();
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid date: " + date + " (expected yyyy-MM-dd)");
+        }
+    }
+
+    static LocalDateTime parseSince(String range) {
         return switch (range != null ? range.toLowerCase() : "7d") {
             case "1d" -> LocalDateTime.now().minusDays(1);
             case "3d" -> LocalDateTime.now().minusDays(3);
@@ -193,12 +513,7 @@ public class ReadingService {
     }
 
     public String classifyBP(double sys, double dia) {
-        if (sys > 180 || dia > 120) return "Hypertensive Crisis";
-        if (sys >= 140 || dia >= 90) return "High BP Stage 2";
-        if (sys >= 130 || dia >= 80) return "High BP Stage 1";
-        if (sys >= 120 && dia < 80) return "Elevated";
-        if (sys < 120 && dia < 80) return "Normal";
-        return "Unknown";
+        return BpCategory.classify(sys, dia).getLabel();
     }
 
     private String generateSuggestion(String category, double pulse, double sys, double dia) {
@@ -227,17 +542,19 @@ public class ReadingService {
         return "Stable →";
     }
 
-    private List<String> generateAlerts(List<BpReading> readings, double avgPulse) {
+    private List<String> generateAlerts(List<BpReading> readings, AbpmSessionService.RangeStats abpm, double avgPulse) {
         List<String> alerts = new ArrayList<>();
 
         long highReadings = readings.stream()
                 .filter(r -> r.getSystolic() >= 140 || r.getDiastolic() >= 90).count();
+        if (abpm != null) highReadings += abpm.hypertensive();
         if (highReadings > 0) {
             alerts.add(highReadings + " reading(s) in hypertensive range detected");
         }
 
         long crisisReadings = readings.stream()
                 .filter(r -> r.getSystolic() > 180 || r.getDiastolic() > 120).count();
+        if (abpm != null) crisisReadings += abpm.crisis();
         if (crisisReadings > 0) {
             alerts.add("⚠️ " + crisisReadings + " reading(s) in hypertensive crisis range!");
         }
@@ -260,7 +577,7 @@ public class ReadingService {
         res.setNotes(r.getNotes());
         res.setRecordedAt(r.getRecordedAt().format(FORMATTER));
         res.setReadingType(r.getReadingType() != null ? r.getReadingType().name() : "MANUAL");
-        res.setCategory(classifyBP(r.getSystolic(), r.getDiastolic()));
+        res.setCategory(BpCategory.of(r).getLabel());
         return res;
     }
 }
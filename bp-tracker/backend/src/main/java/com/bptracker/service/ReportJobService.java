@@ -0,0 +1,359 @@
+package com.bptracker.service;
+
+import com.bptracker.dto.ReportDtos.*;
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.BpReading;
+import com.bptracker.model.ReportJob;
+import com.bptracker.model.User;
+import com.bptracker.repository.ReadingStore;
+import com.bptracker.repository.ReportJobRepository;
+import com.bptracker.repository.UserRepository;
+import com.bptracker.util.BpHistogram;
+import com.bptracker.util.ReadingSketch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Long-range doctor reports computed off the request thread.
+ *
+ * A job walks its date range one calendar month at a time, so memory stays at one month of
+ * readings plus a sketch per month, and progress is reported per month. Workers are a fixed pool
+ * with a bounded queue; when it is full, submit() fails instead of piling up work.
+ *
+ * An identical request (same user, dates and options) already pending on this node is joined
+ * rather than queued again. A finished report is reused for as long as the user's change_seq is
+ * unchanged, i.e. until a reading is added or deleted.
+ *
+ * Every node stamps heartbeat_at on its own unfinished jobs each report.heartbeat-ms. A job is
+ * only failed as interrupted once its owner has missed heartbeats for report.stale-after-minutes,
+ * so a long queue wait or a slow report on a live node is left alone.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final double[] PERCENTILES = {0.1, 0.25, 0.5, 0.75, 0.9};
+    private static final Set<ReportJob.Status> UNFINISHED = EnumSet.of(ReportJob.Status.PENDING, ReportJob.Status.RUNNING);
+
+    @Autowired private ReportJobRepository jobRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ReadingStore readings;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private ChangeSequenceService changeSeqs;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Value("${report.workers:2}")
+    private int workers;
+
+    @Value("${report.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${report.max-range-days:1830}")
+    private int maxRangeDays;
+
+    @Value("${report.max-alert-entries:500}")
+    private int maxAlertEntries;
+
+    @Value("${report.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${report.stale-after-minutes:5}")
+    private int staleAfterMinutes;
+
+    private ThreadPoolExecutor pool;
+    // Written as the owner of this node's jobs
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // request key -> job id, for jobs queued or running on this node
+    private final Map<String, Long> active = new ConcurrentHashMap<>();
+
+    public static class QueueFullException extends RuntimeException {
+        public QueueFullException(String message) { super(message); }
+    }
+
+    @PostConstruct
+    void start() {
+        pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "report-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    private User getUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
+    // Serialized so two identical submits can't both start a job; submits are rare and cheap
+    public synchronized ReportJobResponse submit(ReportRequest request, String username) {
+        User user = getUser(username);
+        LocalDate to = parseDate(request.getTo(), LocalDate.now());
+        LocalDate from = parseDate(request.getFrom(), to.minusYears(1));
+        if (from.isAfter(to)) {
+            throw new RuntimeException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > maxRangeDays) {
+            throw new RuntimeException("Report range is too long (max " + maxRangeDays + " days)");
+        }
+        boolean monthly = !Boolean.FALSE.equals(request.getMonthly());
+        boolean percentiles = !Boolean.FALSE.equals(request.getPercentiles());
+        boolean alerts = !Boolean.FALSE.equals(request.getAlerts());
+        String key = from + "|" + to + "|" + (monthly ? "m" : "") + (percentiles ? "p" : "") + (alerts ? "a" : "");
+
+        Long pendingId = active.get(user.getId() + ":" + key);
+        if (pendingId != null) {
+            Optional<ReportJob> pending = jobRepository.findById(pendingId);
+            if (pending.isPresent()) return toResponse(pending.get(), true);
+        }
+
+        // Read on the primary: a stale replica could make an outdated report look current
+        long seq = shardRouter.onUserShard(user.getId(), false, () -> changeSeqs.current(user.getId()));
+        Optional<ReportJob> done = jobRepository.findFirstByUserIdAndRequestKeyAndStatusOrderByIdDesc(
+                user.getId(), key, ReportJob.Status.DONE);
+        if (done.isPresent() && Objects.equals(done.get().getChangeSeq(), seq)) {
+            return toResponse(done.get(), true);
+        }
+
+        ReportJob job = new ReportJob();
+        job.setUserId(user.getId());
+        job.setRequestKey(key);
+        job.setFromDate(from);
+        job.setToDate(to);
+        job.setMonthly(monthly);
+        job.setPercentiles(percentiles);
+        job.setAlerts(alerts);
+        job.setStatus(ReportJob.Status.PENDING);
+        job.setOwner(nodeId);
+        job.setHeartbeatAt(LocalDateTime.now());
+        jobRepository.save(job);
+
+        String activeKey = user.getId() + ":" + key;
+        active.put(activeKey, job.getId());
+        try {
+            pool.execute(() -> run(job.getId(), activeKey));
+        } catch (RejectedExecutionException e) {
+            active.remove(activeKey);
+            jobRepository.delete(job);
+            throw new QueueFullException("Too many reports in progress, retry later");
+        }
+        return toResponse(job, false);
+    }
+
+    public Optional<ReportJobResponse> getJob(Long id, String username) {
+        return findOwnJob(id, username).map(job -> toResponse(job, false));
+    }
+
+    // Stored report JSON, empty if the job doesn't exist, isn't the caller's or hasn't finished
+    public Optional<String> getResult(Long id, String username) {
+        return findOwnJob(id, username)
+                .filter(job -> job.getStatus() == ReportJob.Status.DONE)
+                .map(ReportJob::getResult);
+    }
+
+    private Optional<ReportJob> findOwnJob(Long id, String username) {
+        User user = getUser(username);
+        return jobRepository.findById(id).filter(job -> job.getUserId().equals(user.getId()));
+    }
+
+    private void run(Long jobId, String activeKey) {
+        try {
+            ReportJob job = jobRepository.findById(jobId).orElseThrow();
+            job.setStatus(ReportJob.Status.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            try {
+                // Taken before reading anything: a write that lands mid-report makes the stored
+                // seq stale, so the next request recomputes instead of reusing a partial view
+                long seq = shardRouter.onUserShard(job.getUserId(), true, () -> changeSeqs.current(job.getUserId()));
+                DoctorReport report = build(job);
+                job.setResult(objectMapper.writeValueAsString(report));
+                job.setChangeSeq(seq);
+                job.setProgress(100);
+                job.setStatus(ReportJob.Status.DONE);
+            } catch (Exception e) {
+                log.warn("Report job {} failed: {}", jobId, e.getMessage());
+                job.setStatus(ReportJob.Status.FAILED);
+                job.setError(e.getMessage() != null && e.getMessage().length() > 500
+                        ? e.getMessage().substring(0, 500) : e.getMessage());
+            }
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+        } catch (Exception e) {
+            log.error("Report job {} could not be updated: {}", jobId, e.getMessage());
+        } finally {
+            active.remove(activeKey, jobId);
+        }
+    }
+
+    private DoctorReport build(ReportJob job) {
+        User user = userRepository.findById(job.getUserId())
+                .orElseThrow(() -> new RuntimeException("User no longer exists"));
+        LocalDateTime end = job.getToDate().plusDays(1).atStartOfDay();
+        YearMonth first = YearMonth.from(job.getFromDate());
+        YearMonth last = YearMonth.from(job.getToDate());
+        long totalMonths = ChronoUnit.MONTHS.between(first, last) + 1;
+
+        ReadingSketch overall = new ReadingSketch();
+        int[] overallCounts = new int[2];
+        List<ReportStats> months = new ArrayList<>();
+        List<AlertEntry> alertHistory = new ArrayList<>();
+        boolean truncated = false;
+
+        int done = 0;
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            LocalDateTime windowFrom = month.equals(first) ? job.getFromDate().atStartOfDay() : month.atDay(1).atStartOfDay();
+            LocalDateTime windowTo = month.equals(last) ? end : month.plusMonths(1).atDay(1).atStartOfDay();
+            List<BpReading> window = shardRouter.onUserShard(user.getId(), true,
+                    () -> readings.findInRange(user.getId(), windowFrom, windowTo));
+
+            ReadingSketch sketch = new ReadingSketch();
+            int[] counts = new int[2];
+            for (BpReading r : window) {
+                sketch.add(r);
+                BpCategory category = BpCategory.of(r);
+                if (category == BpCategory.STAGE_2 || category == BpCategory.CRISIS) {
+                    counts[0]++;
+                    if (category == BpCategory.CRISIS) counts[1]++;
+                    if (job.isAlerts()) {
+                        if (alertHistory.size() < maxAlertEntries) {
+                            alertHistory.add(toAlert(r, category));
+                        } else {
+                            truncated = true;
+                        }
+                    }
+                }
+            }
+            overall.merge(sketch);
+            overallCounts[0] += counts[0];
+            overallCounts[1] += counts[1];
+            if (job.isMonthly()) months.add(toStats(month.toString(), sketch, counts, job.isPercentiles()));
+
+            done++;
+            jobRepository.updateProgress(job.getId(), (int) (done * 99 / totalMonths));
+        }
+
+        DoctorReport report = new DoctorReport();
+        report.setFrom(job.getFromDate().toString());
+        report.setTo(job.getToDate().toString());
+        report.setGeneratedAt(LocalDateTime.now().format(FORMATTER));
+        report.setOverall(toStats("overall", overall, overallCounts, job.isPercentiles()));
+        if (job.isMonthly()) report.setMonths(months);
+        if (job.isAlerts()) {
+            report.setAlertHistory(alertHistory);
+            report.setAlertHistoryTruncated(truncated);
+        }
+        return report;
+    }
+
+    private ReportStats toStats(String period, ReadingSketch sketch, int[] counts, boolean percentiles) {
+        BpHistogram sys = sketch.getSystolic();
+        BpHistogram dia = sketch.getDiastolic();
+        BpHistogram pulse = sketch.getPulse();
+        ReportStats stats = new ReportStats();
+        stats.setPeriod(period);
+        stats.setTotalReadings(sketch.getCount());
+        stats.setAvgSystolic(Math.round(sys.mean() * 10.0) / 10.0);
+        stats.setAvgDiastolic(Math.round(dia.mean() * 10.0) / 10.0);
+        stats.setAvgPulse(Math.round(pulse.mean() * 10.0) / 10.0);
+        stats.setMinSystolic(sys.min());
+        stats.setMaxSystolic(sys.max());
+        stats.setMinDiastolic(dia.min());
+        stats.setMaxDiastolic(dia.max());
+        stats.setCategory(sketch.getCount() == 0 ? "No Data" : BpCategory.classify(sys.mean(), dia.mean()).getLabel());
+        stats.setHypertensiveCount(counts[0]);
+        stats.setCrisisCount(counts[1]);
+        if (percentiles) {
+            stats.setSystolicPercentiles(percentiles(sys));
+            stats.setDiastolicPercentiles(percentiles(dia));
+            stats.setPulsePercentiles(percentiles(pulse));
+        }
+        return stats;
+    }
+
+    private Map<String, Integer> percentiles(BpHistogram h) {
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (double q : PERCENTILES) values.put("p" + Math.round(q * 100), h.quantile(q));
+        return values;
+    }
+
+    private AlertEntry toAlert(BpReading r, BpCategory category) {
+        AlertEntry alert = new AlertEntry();
+        alert.setRecordedAt(r.getRecordedAt().format(FORMATTER));
+        alert.setSystolic(r.getSystolic());
+        alert.setDiastolic(r.getDiastolic());
+        alert.setPulse(r.getPulse());
+        alert.setLevel(category == BpCategory.CRISIS ? "CRISIS" : "HYPERTENSIVE");
+        return alert;
+    }
+
+    private ReportJobResponse toResponse(ReportJob job, boolean reused) {
+        ReportJobResponse res = new ReportJobResponse();
+        res.setId(job.getId());
+        res.setStatus(job.getStatus().name());
+        res.setProgress(job.getProgress());
+        res.setFrom(job.getFromDate().toString());
+        res.setTo(job.getToDate().toString());
+        res.setCreatedAt(job.getCreatedAt() != null ? job.getCreatedAt().format(FORMATTER) : null);
+        res.setFinishedAt(job.getFinishedAt() != null ? job.getFinishedAt().format(FORMATTER) : null);
+        res.setError(job.getError());
+        res.setReused(reused);
+        return res;
+    }
+
+    private LocalDate parseDate(String date, LocalDate fallback) {
+        if (date == null || date.isEmpty()) return fallback;
+        try {
+            return LocalDate.parse(date);
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid date: " + date + " (expected yyyy-MM-dd)");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${report.heartbeat-ms:60000}")
+    public void heartbeat() {
+        try {
+            jobRepository.heartbeat(nodeId, UNFINISHED, LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Report heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    // Drops old jobs and fails ones left behind by a node that stopped mid-report
+    @Scheduled(fixedDelayString = "${report.cleanup-ms:3600000}")
+    public void cleanup() {
+        try {
+            int stale = jobRepository.failStale(UNFINISHED, LocalDateTime.now().minusMinutes(staleAfterMinutes), nodeId);
+            int removed = jobRepository.deleteCreatedBefore(LocalDateTime.now().minusDays(retentionDays));
+            if (stale > 0 || removed > 0) {
+                log.info("Report cleanup: {} stale job(s) failed, {} old job(s) removed", stale, removed);
+            }
+        } catch (Exception e) {
+            log.error("Report cleanup failed: {}", e.getMessage());
+        }
+    }
+}
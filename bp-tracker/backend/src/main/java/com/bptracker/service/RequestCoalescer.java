@@ -0,0 +1,102 @@
+package com.bptracker.service;
+
+import com.bptracker.config.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for identical concurrent reads: the first caller for (user, operation, argument)
+ * computes, later callers wait for and share its result. A committed write for the user drops
+ * that user's in-flight entries, so callers arriving after the write never join a stale computation.
+ */
+@Component
+public class RequestCoalescer implements InvalidationListener {
+
+    private record Key(String username, String operation, String argument) {}
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+
+    @Value("${coalesce.enabled:true}")
+    private boolean enabled = true;
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.leaders = Counter.builder("bp.coalesce.requests").tag("outcome", "computed").register(meterRegistry);
+        this.coalesced = Counter.builder("bp.coalesce.requests").tag("outcome", "coalesced").register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String username, String operation, String argument, Supplier<T> computation) {
+        if (!enabled) return computation.get();
+        Key key = new Key(username, operation, argument);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.increment();
+            // A follower's latency is however much of the leader's work was left; not a latency sample
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes != null) {
+                attributes.setAttribute(ConcurrencyLimitFilter.NO_SAMPLE_ATTRIBUTE, Boolean.TRUE,
+                        RequestAttributes.SCOPE_REQUEST);
+            }
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                if (e.getCause() instanceof Error err) throw err;
+                throw e;
+            }
+        }
+
+        leaders.increment();
+        try {
+            T result = computation.get();
+            mine.complete(result);
+            return result;
+        } catch (Throwable t) {
+            // Any failure, Errors included, must reach the followers or they wait forever
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Drops the user's in-flight entries once the current transaction commits (immediately if none)
+    public void invalidateAfterCommit(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(username);
+                }
+            });
+        } else {
+            invalidate(username);
+        }
+    }
+
+    public void invalidate(String username) {
+        inFlight.keySet().removeIf(k -> k.username().equals(username));
+    }
+
+    // A write on another instance
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.kind() == InvalidationEvent.Kind.READINGS_CHANGED && event.username() != null) {
+            invalidate(event.username());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.bptracker.service;
+
+import com.bptracker.config.ShardDataSources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Moves one user's bp_readings rows (and their reading_note_terms) and ABPM sessions to another
+ * shard while the app keeps serving.
+ *
+ * 1. Bulk copy in id order from the source shard, without blocking the user.
+ * 2. Under the user's write fence: recopy rows tombstoned meanwhile, copy rows added meanwhile,
+ *    drop copies of rows purged meanwhile, carry over the user's change sequence, copy the ABPM
+ *    sessions (a handful of rows per user), and pin the user to the target shard in user_shards.
+ * 3. After the fence is released, delete the user's rows from the source shard.
+ *
+ * Ids are copied as-is, so shards must hand out disjoint ids (see database/shard-schema.sql).
+ * The fence is in-process: other instances learn about the move through the invalidation
+ * channel, so on multi-node deployments their writes for the user can still reach the old shard
+ * until then; run the move while the others are drained for that user.
+ */
+@Service
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+    private static final int BATCH = 1000;
+
+    @Autowired(required = false) private ShardDataSources shardDataSources;
+    @Autowired private ShardRouter shardRouter;
+    @Autowired private InvalidationChannel invalidations;
+
+    public int moveUser(long userId, int target) {
+        if (shardDataSources == null) {
+            throw new IllegalStateException("Sharding is not enabled");
+        }
+        if (target < 0 || target >= shardDataSources.getShardCount()) {
+            throw new IllegalArgumentException("No such shard: " + target);
+        }
+        int source = shardRouter.shardFor(userId);
+        if (source == target) return 0;
+
+        JdbcTemplate from = new JdbcTemplate(shardDataSources.getShard(source));
+        JdbcTemplate to = new JdbcTemplate(shardDataSources.getShard(target));
+
+        long seqMark = lastChangeSeq(from, userId);
+        long lastId = copyAfter(from, to, userId, 0);
+        int moved;
+        Lock fence = shardRouter.writeFence(userId);
+        fence.lock();
+        try {
+            // Rows changed since the bulk copy (tombstoned, or inserted below lastId while it ran)
+            // carry a newer change_seq; recopy them along with their current note index rows
+            List<Map<String, Object>> changed = from.queryForList(
+                    "SELECT * FROM bp_readings WHERE user_id = ? AND change_seq > ? AND id <= ?", userId, seqMark, lastId);
+            List<Long> changedIds = new ArrayList<>();
+            for (Map<String, Object> row : changed) changedIds.add(((Number) row.get("id")).longValue());
+            deleteIds(to, changedIds);
+            insertRows(to, "bp_readings", changed);
+            copyNoteTerms(from, to, changedIds);
+
+            lastId = copyAfter(from, to, userId, lastId);
+            long lastSeq = lastChangeSeq(from, userId);
+            to.update("DELETE FROM user_change_seqs WHERE user_id = ?", userId);
+            to.update("INSERT INTO user_change_seqs (user_id, last_seq) VALUES (?, ?)", userId, lastSeq);
+            to.update("DELETE FROM abpm_sessions WHERE user_id = ?", userId);
+            insertRows(to, "abpm_sessions", from.queryForList("SELECT * FROM abpm_sessions WHERE user_id = ?", userId));
+            Set<Long> live = new HashSet<>(from.queryForList(
+                    "SELECT id FROM bp_readings WHERE user_id = ?", Long.class, userId));
+            List<Long> copied = to.queryForList("SELECT id FROM bp_readings WHERE user_id = ?", Long.class, userId);
+            List<Long> stale = new ArrayList<>();
+            for (Long id : copied) if (!live.contains(id)) stale.add(id);
+            deleteIds(to, stale);
+            moved = live.size();
+            shardRouter.pin(userId, target);
+        } finally {
+            fence.unlock();
+        }
+        invalidations.publish(InvalidationEvent.shardMoved(userId));
+
+        deleteIds(from, from.queryForList("SELECT id FROM bp_readings WHERE user_id = ?", Long.class, userId));
+        from.update("DELETE FROM user_change_seqs WHERE user_id = ?", userId);
+        from.update("DELETE FROM abpm_sessions WHERE user_id = ?", userId);
+        log.info("Moved user {} from shard {} to shard {} ({} readings, last id {})", userId, source, target, moved, lastId);
+        return moved;
+    }
+
+    // Copies rows with id > afterId in id order, all columns as-is, along with their note index
+    // rows; returns the last id copied
+    private long copyAfter(JdbcTemplate from, JdbcTemplate to, long userId, long afterId) {
+        long last = afterId;
+        while (true) {
+            List<Map<String, Object>> rows = from.queryForList(
+                    "SELECT * FROM bp_readings WHERE user_id = ? AND id > ? ORDER BY id LIMIT " + BATCH, userId, last);
+            if (rows.isEmpty()) return last;
+            insertRows(to, "bp_readings", rows);
+
+            long batchStart = last;
+            last = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+            insertRows(to, "reading_note_terms", from.queryForList(
+                    "SELECT * FROM reading_note_terms WHERE user_id = ? AND reading_id > ? AND reading_id <= ?",
+                    userId, batchStart, last));
+        }
+    }
+
+    private void copyNoteTerms(JdbcTemplate from, JdbcTemplate to, List<Long> readingIds) {
+        for (int i = 0; i < readingIds.size(); i += BATCH) {
+            List<Long> chunk = readingIds.subList(i, Math.min(i + BATCH, readingIds.size()));
+            insertRows(to, "reading_note_terms", from.queryForList(
+                    "SELECT * FROM reading_note_terms WHERE reading_id IN ("
+                            + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")",
+                    chunk.toArray()));
+        }
+    }
+
+    private long lastChangeSeq(JdbcTemplate jdbc, long userId) {
+        return jdbc.query("SELECT last_seq FROM user_change_seqs WHERE user_id = ?",
+                rs -> rs.next() ? rs.getLong(1) : 0L, userId);
+    }
+
+    private void insertRows(JdbcTemplate to, String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) return;
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) values[i] = row.get(columns.get(i));
+            args.add(values);
+        }
+        to.batchUpdate(sql, args);
+    }
+
+    private void deleteIds(JdbcTemplate jdbc, List<Long> ids) {
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) args.add(new Object[]{id});
+        for (int i = 0; i < args.size(); i += BATCH) {
+            List<Object[]> chunk = args.subList(i, Math.min(i + BATCH, args.size()));
+            jdbc.batchUpdate("DELETE FROM reading_note_terms WHERE reading_id = ?", chunk);
+            jdbc.batchUpdate("DELETE FROM bp_readings WHERE id = ?", chunk);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.bptracker.service;
+
+import com.bptracker.config.ShardContext;
+import com.bptracker.config.ShardDataSources;
+import com.bptracker.model.UserShard;
+import com.bptracker.repository.UserShardRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Picks the bp_readings shard for a user and runs repository work against it.
+ * With sharding disabled everything runs in place on the single database.
+ *
+ * Shard = directory override (user_shards) if present, else jump consistent hash of the user id.
+ * Shard work runs in its own transaction because the caller's transaction is bound to the
+ * directory connection. Striped read/write locks let the rebalancer briefly fence a user's
+ * writes while it flips them to a new shard.
+ */
+@Service
+public class ShardRouter implements InvalidationListener {
+
+    private static final int LOCK_STRIPES = 256;
+    private static final int MAX_CACHED_USERS = 100_000;
+
+    @Autowired(required = false) private ShardDataSources shardDataSources;
+    @Autowired private UserShardRepository userShardRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private final ConcurrentHashMap<Long, Integer> shardCache = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[LOCK_STRIPES];
+
+    public ShardRouter() {
+        for (int i = 0; i < LOCK_STRIPES; i++) locks[i] = new ReentrantReadWriteLock();
+    }
+
+    public boolean isEnabled() {
+        return shardDataSources != null;
+    }
+
+    public int shardCount() {
+        return isEnabled() ? shardDataSources.getShardCount() : 1;
+    }
+
+    public int shardFor(long userId) {
+        if (!isEnabled()) return 0;
+        Integer cached = shardCache.get(userId);
+        if (cached != null) return cached;
+
+        int shard = userShardRepository.findById(userId)
+                .map(UserShard::getShard)
+                .orElseGet(() -> hashShard(userId, shardCount()));
+        if (shardCache.size() >= MAX_CACHED_USERS) shardCache.clear();
+        shardCache.put(userId, shard);
+        return shard;
+    }
+
+    // Jump consistent hash (Lamping & Veach): stable, and only ~1/n users move when a shard is added
+    public static int hashShard(long userId, int shards) {
+        long key = userId;
+        long b = -1, j = 0;
+        while (j < shards) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    public <T> T onUserShard(long userId, boolean readOnly, Supplier<T> work) {
+        if (!isEnabled()) return work.get();
+        Lock lock = stripe(userId).readLock();
+        lock.lock();
+        try {
+            return onShard(shardFor(userId), readOnly, work);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> T onShard(int shard, boolean readOnly, Supplier<T> work) {
+        if (!isEnabled()) return work.get();
+        Integer previous = ShardContext.current();
+        ShardContext.set(shard);
+        try {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            tx.setReadOnly(readOnly);
+            return tx.execute(status -> work.get());
+        } finally {
+            ShardContext.set(previous);
+        }
+    }
+
+    // Holds the read side of every stripe the given users map to (in stripe order, to avoid deadlock)
+    public void withUsersLocked(Collection<Long> userIds, Runnable work) {
+        if (!isEnabled()) {
+            work.run();
+            return;
+        }
+        int[] stripes = userIds.stream().mapToInt(ShardRouter::stripeIndex).distinct().toArray();
+        Arrays.sort(stripes);
+        int locked = 0;
+        try {
+            for (int s : stripes) {
+                locks[s].readLock().lock();
+                locked++;
+            }
+            work.run();
+        } finally {
+            for (int i = 0; i < locked; i++) locks[stripes[i]].readLock().unlock();
+        }
+    }
+
+    // Exclusive fence used by the rebalancer while it flips a user to another shard
+    Lock writeFence(long userId) {
+        return stripe(userId).writeLock();
+    }
+
+    void pin(long userId, int shard) {
+        userShardRepository.save(new UserShard(userId, shard));
+        shardCache.put(userId, shard);
+    }
+
+    // Another instance moved the user; re-read the directory on next use
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.kind() == InvalidationEvent.Kind.SHARD_MOVED) shardCache.remove(event.userId());
+    }
+
+    private ReentrantReadWriteLock stripe(long userId) {
+        return locks[stripeIndex(userId)];
+    }
+
+    private static int stripeIndex(long userId) {
+        return (int) Math.floorMod(userId * 0x9E3779B97F4A7C15L >>> 40, LOCK_STRIPES);
+    }
+}
@@ -0,0 +1,210 @@
+package com.bptracker.service;
+
+import com.bptracker.model.RevokedToken;
+import com.bptracker.repository.RevokedTokenRepository;
+import com.bptracker.util.BloomFilter;
+import com.bptracker.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWT denylist. Revocations are stored in revoked_tokens; every request is checked against an
+ * in-memory Bloom filter of the live token entries first, so a token that was never revoked
+ * (almost all of them) is accepted without touching the database. Only a filter hit, real or
+ * false positive, is confirmed with a primary-key lookup.
+ *
+ * Revoke-all entries are few and are kept whole in memory (username -> revokedAt), so a user who
+ * signed out everywhere is not looked up in the database on each request for the rest of
+ * jwt.expiration.
+ *
+ * Both are rebuilt from the table every jwt.revocation.refresh-ms. A revocation is applied on
+ * this node at once and on the other nodes through the invalidation channel; the rebuild is the
+ * fallback if a broadcast is lost.
+ */
+@Service
+public class TokenRevocationService implements InvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String USER_PREFIX = "user:";
+
+    @Autowired private RevokedTokenRepository revokedTokenRepository;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private InvalidationChannel invalidations;
+
+    @Value("${jwt.expiration}")
+    private long expiration;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${jwt.revocation.min-capacity:10000}")
+    private int minCapacity;
+
+    // Null until the first successful load; until then every token gets the exact check
+    private volatile BloomFilter filter;
+
+    // Revoked here but not yet seen in a rebuild's query, re-added to each new filter until they are
+    private final Set<String> localAdds = ConcurrentHashMap.newKeySet();
+
+    // username -> revokedAt of the live revoke-all entries; null until the first successful load
+    private volatile Map<String, LocalDateTime> revokedAll;
+
+    // Same as localAdds, for revoke-all entries
+    private final Map<String, LocalDateTime> localRevokeAll = new ConcurrentHashMap<>();
+
+    private Counter bloomMisses;
+    private Counter falsePositives;
+    private Counter revokedHits;
+
+    @PostConstruct
+    void init() {
+        bloomMisses = Counter.builder("bp.auth.revocation.checks").tag("outcome", "filter_miss").register(meterRegistry);
+        falsePositives = Counter.builder("bp.auth.revocation.checks").tag("outcome", "false_positive").register(meterRegistry);
+        revokedHits = Counter.builder("bp.auth.revocation.checks").tag("outcome", "revoked").register(meterRegistry);
+        rebuild();
+    }
+
+    // Logout: revokes this one token until it would have expired
+    public void revoke(Claims claims) {
+        if (claims.getId() == null) {
+            throw new RuntimeException("Token has no id; sign in again, or revoke all sessions");
+        }
+        LocalDateTime expiresAt = toLocal(claims.getExpiration());
+        revokedTokenRepository.save(new RevokedToken(claims.getId(), claims.getSubject(), LocalDateTime.now(), expiresAt));
+        addLocal(claims.getId());
+        invalidations.publish(InvalidationEvent.tokensRevoked(claims.getSubject(), claims.getId()));
+    }
+
+    // Revokes every token the user was issued up to now, to the millisecond (see issuedBefore)
+    public void revokeAll(String username) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        revokedTokenRepository.save(new RevokedToken(USER_PREFIX + username, username, now,
+                now.plusNanos(expiration * 1_000_000).plusSeconds(1)));
+        addRevokeAll(username, now);
+        invalidations.publish(InvalidationEvent.tokensRevoked(username, USER_PREFIX + username));
+    }
+
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        if (event.kind() != InvalidationEvent.Kind.TOKENS_REVOKED || event.detail() == null) return;
+        if (event.detail().startsWith(USER_PREFIX)) {
+            // One lookup per broadcast, for the exact revokedAt
+            revokedTokenRepository.findById(event.detail())
+                    .ifPresent(r -> addRevokeAll(r.getUsername(), r.getRevokedAt()));
+        } else {
+            addLocal(event.detail());
+        }
+    }
+
+    public boolean isRevoked(Claims claims) {
+        if (revokedAllUser(claims)) {
+            revokedHits.increment();
+            return true;
+        }
+        BloomFilter current = filter;
+        String tokenId = claims.getId();
+        if (tokenId == null || (current != null && !current.mightContain(tokenId))) {
+            bloomMisses.increment();
+            return false;
+        }
+        boolean revoked = revokedTokenRepository.existsById(tokenId);
+        (revoked ? revokedHits : falsePositives).increment();
+        return revoked;
+    }
+
+    private boolean revokedAllUser(Claims claims) {
+        Map<String, LocalDateTime> current = revokedAll;
+        if (current != null) return issuedBefore(claims, current.get(claims.getSubject()));
+        Optional<RevokedToken> entry = revokedTokenRepository.findById(USER_PREFIX + claims.getSubject());
+        return entry.isPresent() && issuedBefore(claims, entry.get().getRevokedAt());
+    }
+
+    // At or before revokedAt. iatMs tells apart a login in the same second as the revoke-all;
+    // tokens without it fall back to iat (a same-second login is then rejected too), and tokens
+    // without iat predate both and are treated as issued before any revoke-all
+    private static boolean issuedBefore(Claims claims, LocalDateTime revokedAt) {
+        if (revokedAt == null) return false;
+        Number issuedAtMs = claims.get(JwtUtil.ISSUED_AT_MS, Number.class);
+        if (issuedAtMs != null) {
+            return issuedAtMs.longValue() <= revokedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        if (claims.getIssuedAt() == null) return true;
+        return !toLocal(claims.getIssuedAt()).isAfter(revokedAt.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private void addLocal(String key) {
+        localAdds.add(key);
+        BloomFilter current = filter;
+        if (current != null) current.add(key);
+    }
+
+    private void addRevokeAll(String username, LocalDateTime revokedAt) {
+        localRevokeAll.merge(username, revokedAt, (x, y) -> x.isAfter(y) ? x : y);
+        Map<String, LocalDateTime> current = revokedAll;
+        if (current != null) current.merge(username, revokedAt, (x, y) -> x.isAfter(y) ? x : y);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:30000}", initialDelayString = "${jwt.revocation.refresh-ms:30000}")
+    public void rebuild() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> ids = revokedTokenRepository.findLiveIds(now);
+            BloomFilter next = new BloomFilter(Math.max(minCapacity, ids.size() * 2), falsePositiveRate);
+            ids.forEach(next::add);
+            filter = next;
+            // A revoke racing this rebuild either saw the new filter or is still in localAdds
+            localAdds.forEach(next::add);
+            localAdds.removeAll(new HashSet<>(ids));
+
+            Map<String, LocalDateTime> loaded = new HashMap<>();
+            for (RevokedToken r : revokedTokenRepository.findLiveUserRevocations(now)) {
+                loaded.put(r.getUsername(), r.getRevokedAt());
+            }
+            Map<String, LocalDateTime> users = new ConcurrentHashMap<>(loaded);
+            revokedAll = users;
+            localRevokeAll.forEach((username, at) -> users.merge(username, at, (x, y) -> x.isAfter(y) ? x : y));
+            // Local entries the query already returned (same or later revokedAt) are no longer needed
+            localRevokeAll.entrySet().removeIf(e -> {
+                LocalDateTime fromDb = loaded.get(e.getKey());
+                return fromDb != null && !e.getValue().isAfter(fromDb);
+            });
+        } catch (Exception e) {
+            log.error("Revocation filter rebuild failed, keeping the previous one: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            int removed = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+            if (removed > 0) log.info("Removed {} expired revocation(s)", removed);
+        } catch (Exception e) {
+            log.error("Revocation purge failed: {}", e.getMessage());
+        }
+    }
+
+    private static LocalDateTime toLocal(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
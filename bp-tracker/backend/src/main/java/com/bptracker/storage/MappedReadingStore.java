@@ -0,0 +1,848 @@
+package com.bptracker.storage;
+
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.BpReading;
+import com.bptracker.model.ReadingField;
+import com.bptracker.model.User;
+import com.bptracker.repository.ReadingStore;
+import com.bptracker.service.ShardRouter;
+import com.bptracker.util.AbpmCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Readings in append-only, memory-mapped files, for single-node installs without a database
+ * server (storage.backend=mmap). Users, change sequences, the note index and the outbox still
+ * live in the (embedded) database. Cohort summaries scan through this store; the weekly digest
+ * batch, category backfill, note index rebuild and sharding query bp_readings with SQL and refuse
+ * to run with this backend. Appends are not part of the surrounding database transaction (the
+ * one writing the change sequence and the outbox row); they are durable once written.
+ *
+ * Every version of a reading is one 64-byte record, little more than the columns of bp_readings:
+ *
+ *   0 id | 8 user id | 16 recorded at | 24 created at (epoch seconds) | 32 change seq
+ *   40 notes offset (-1 none) | 48 notes length (short) | 50 systolic | 52 diastolic | 54 pulse
+ *   56 category (-1 none) | 57 reading type | 58 flags (1 = deleted) | 59 format | 60 CRC32C of 0..59
+ *
+ * Records are appended to fixed-size segment files; notes go to notes.dat, written and forced
+ * before the record that points at them. A delete appends a tombstone version of the record, so
+ * nothing is ever overwritten in place. On startup every segment is scanned: the latest version
+ * of each id wins, and a record failing its CRC at the tail of the last segment is a torn append
+ * and is cleared. storage.mmap.fsync=false leaves flushing to the OS (faster, loses the last
+ * writes on power failure).
+ *
+ * In memory: id -> location of its latest version, and per user the live records sorted by
+ * recorded time and the versions sorted by change seq. Range queries binary-search the time
+ * index and delta sync the change index; both read the fields straight from the mapping.
+ *
+ * Superseded versions are garbage. Once they pass storage.mmap.compact-ratio of all records,
+ * compaction copies the live records and tombstones into a new generation directory, switches
+ * the CURRENT file to it with an atomic rename and deletes the old generation; a crash before the
+ * rename leaves the old generation in use. Compaction holds the write lock while it copies.
+ */
+@Repository
+@ConditionalOnProperty(name = "storage.backend", havingValue = "mmap")
+public class MappedReadingStore implements ReadingStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedReadingStore.class);
+
+    private static final int ID = 0, USER = 8, RECORDED = 16, CREATED = 24, SEQ = 32, NOTES_OFFSET = 40,
+            NOTES_LENGTH = 48, SYSTOLIC = 50, DIASTOLIC = 52, PULSE = 54, CATEGORY = 56, TYPE = 57, FLAGS = 58;
+    private static final int FORMAT = 1;
+    private static final int FLAG_DELETED = 1;
+
+    private static final BpCategory[] CATEGORIES = BpCategory.values();
+    private static final BpReading.ReadingType[] READING_TYPES = BpReading.ReadingType.values();
+
+    @Autowired private ShardRouter shardRouter;
+
+    @Value("${storage.mmap.dir:data/readings}")
+    private String dir;
+
+    @Value("${storage.mmap.segment-records:131072}")
+    private int segmentRecords;
+
+    @Value("${storage.mmap.fsync:true}")
+    private boolean fsync;
+
+    @Value("${storage.mmap.compact-ratio:0.3}")
+    private double compactRatio;
+
+    @Value("${storage.mmap.compact-min-records:10000}")
+    private long compactMinRecords;
+
+    // Live records sorted by recorded time, then location (= append order), and the user's
+    // versions (live and tombstones) sorted by change seq. New records collect in a pending buffer
+    // that flush() sorts and merges in, so a batch written newest-first costs one merge instead
+    // of an insertion per record. Superseded versions stay in the change index until the next
+    // rebuild (compaction, restart) and are skipped when read.
+    private static final class UserIndex {
+        long[] times = new long[16];
+        long[] locations = new long[16];
+        int size;
+        long[] pendingTimes = new long[16];
+        long[] pendingLocations = new long[16];
+        int pendingSize;
+        long[] seqs = new long[16];
+        long[] seqLocations = new long[16];
+        int seqCount;
+
+        int lowerBound(long time) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] < time) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        void add(long time, long location) {
+            if (pendingSize == pendingTimes.length) {
+                pendingTimes = Arrays.copyOf(pendingTimes, pendingSize * 2);
+                pendingLocations = Arrays.copyOf(pendingLocations, pendingSize * 2);
+            }
+            pendingTimes[pendingSize] = time;
+            pendingLocations[pendingSize++] = location;
+        }
+
+        void flush() {
+            if (pendingSize == 0) return;
+            sort(pendingTimes, pendingLocations, pendingSize);
+            int total = size + pendingSize;
+            if (total > times.length) {
+                int capacity = Math.max(total, times.length * 2);
+                times = Arrays.copyOf(times, capacity);
+                locations = Arrays.copyOf(locations, capacity);
+            }
+            // Merge from the back so neither array needs a copy
+            int i = size - 1, j = pendingSize - 1;
+            for (int k = total - 1; j >= 0; k--) {
+                if (i >= 0 && before(pendingTimes[j], pendingLocations[j], times[i], locations[i])) {
+                    times[k] = times[i];
+                    locations[k] = locations[i--];
+                } else {
+                    times[k] = pendingTimes[j];
+                    locations[k] = pendingLocations[j--];
+                }
+            }
+            size = total;
+            pendingSize = 0;
+            if (pendingTimes.length > 1024) {
+                pendingTimes = new long[16];
+                pendingLocations = new long[16];
+            }
+        }
+
+        void remove(long time, long location) {
+            for (int i = lowerBound(time); i < size && times[i] == time; i++) {
+                if (locations[i] == location) {
+                    System.arraycopy(times, i + 1, times, i, size - i - 1);
+                    System.arraycopy(locations, i + 1, locations, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        // Appends arrive in change seq order unless two writers for the user race; those are
+        // shifted into place. Recovery adds in any order and calls sortChanges() once
+        void addChange(long seq, long location, boolean keepSorted) {
+            if (seqCount == seqs.length) {
+                seqs = Arrays.copyOf(seqs, seqCount * 2);
+                seqLocations = Arrays.copyOf(seqLocations, seqCount * 2);
+            }
+            int i = seqCount++;
+            while (keepSorted && i > 0 && seqs[i - 1] > seq) {
+                seqs[i] = seqs[i - 1];
+                seqLocations[i] = seqLocations[i - 1];
+                i--;
+            }
+            seqs[i] = seq;
+            seqLocations[i] = location;
+        }
+
+        void sortChanges() {
+            sort(seqs, seqLocations, seqCount);
+        }
+
+        // Index of the first version with change seq > seq
+        int firstChangeAfter(long seq) {
+            int lo = 0, hi = seqCount;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (seqs[mid] <= seq) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private static boolean before(long t1, long l1, long t2, long l2) {
+            return t1 < t2 || (t1 == t2 && l1 < l2);
+        }
+
+        // Merge sort of the two parallel arrays by (time or seq, location)
+        private static void sort(long[] times, long[] locations, int n) {
+            long[] t = new long[n], l = new long[n];
+            for (int width = 1; width < n; width *= 2) {
+                for (int lo = 0; lo < n; lo += 2 * width) {
+                    int mid = Math.min(lo + width, n), hi = Math.min(lo + 2 * width, n);
+                    int a = lo, b = mid;
+                    for (int k = lo; k < hi; k++) {
+                        if (a < mid && (b >= hi || !before(times[b], locations[b], times[a], locations[a]))) {
+                            t[k] = times[a];
+                            l[k] = locations[a++];
+                        } else {
+                            t[k] = times[b];
+                            l[k] = locations[b++];
+                        }
+                    }
+                }
+                System.arraycopy(t, 0, times, 0, n);
+                System.arraycopy(l, 0, locations, 0, n);
+            }
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Path root;
+    private long generation;
+    private final List<Segment> segments = new ArrayList<>();
+    private FileChannel notes;
+    private long notesEnd;
+    private final Map<Long, Long> latest = new HashMap<>();
+    private final Map<Long, UserIndex> users = new HashMap<>();
+    private long nextId = 1;
+    private long records;
+    private long garbage;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (shardRouter.isEnabled()) {
+            throw new IllegalStateException("storage.backend=mmap is single-node and can't be combined with sharding");
+        }
+        if ((long) segmentRecords * Segment.RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalStateException("storage.mmap.segment-records is too large for one mapping");
+        }
+        root = Paths.get(dir);
+        Files.createDirectories(root);
+        Path current = root.resolve("CURRENT");
+        if (Files.exists(current)) {
+            generation = Long.parseLong(Files.readString(current).trim());
+        } else {
+            Files.createDirectories(root.resolve("gen-0"));
+            switchTo(0);
+        }
+        removeOtherGenerations();
+        load();
+        log.info("Reading store {}: {} records, {} users, {} superseded", generationDir(generation), records,
+                users.size(), garbage);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            closeFiles();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===== ReadingStore =====
+
+    @Override
+    public BpReading save(BpReading reading) {
+        saveAll(List.of(reading));
+        return reading;
+    }
+
+    @Override
+    public List<BpReading> saveAll(List<BpReading> readings) {
+        lock.writeLock().lock();
+        try {
+            long created = AbpmCodec.toEpoch(LocalDateTime.now());
+            long[] notesAt = writeNotes(readings);
+            Set<Segment> touched = new HashSet<>();
+            Set<UserIndex> indexes = new HashSet<>();
+            for (int i = 0; i < readings.size(); i++) {
+                BpReading r = readings.get(i);
+                r.setId(nextId);
+                String notes = r.getNotes();
+                long location = append(nextId, r.getUser().getId(), AbpmCodec.toEpoch(r.getRecordedAt()), created,
+                        r.getChangeSeq() != null ? r.getChangeSeq() : 0, notesAt[i],
+                        notes != null ? notes.getBytes(StandardCharsets.UTF_8).length : 0,
+                        r.getSystolic(), r.getDiastolic(), r.getPulse() != null ? r.getPulse() : 0,
+                        r.getCategory() != null ? r.getCategory().ordinal() : -1,
+                        r.getReadingType() != null ? r.getReadingType().ordinal() : 0, 0);
+                touched.add(segment(location));
+                indexes.add(users.get(r.getUser().getId()));
+            }
+            indexes.forEach(UserIndex::flush);
+            if (fsync) touched.forEach(Segment::force);
+            return readings;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store readings: " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<BpReading> findOwned(long userId, long id) {
+        lock.readLock().lock();
+        try {
+            Long location = latest.get(id);
+            if (location == null || !isLive(location, userId)) return Optional.empty();
+            return Optional.of(materialize(location));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void markDeleted(BpReading reading) {
+        lock.writeLock().lock();
+        try {
+            Long location = latest.get(reading.getId());
+            if (location == null || isDeleted(location)) return;
+            Segment seg = segment(location);
+            int slot = slot(location);
+            long appended = append(reading.getId(), seg.getLong(slot, USER), seg.getLong(slot, RECORDED),
+                    seg.getLong(slot, CREATED), reading.getChangeSeq() != null ? reading.getChangeSeq() : 0, -1, 0,
+                    seg.getShort(slot, SYSTOLIC), seg.getShort(slot, DIASTOLIC), seg.getShort(slot, PULSE),
+                    seg.getByte(slot, CATEGORY), seg.getByte(slot, TYPE), FLAG_DELETED);
+            if (fsync) segment(appended).force();
+            reading.setDeleted(true);
+            reading.setNotes(null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BpReading> findInRange(long userId, LocalDateTime from, LocalDateTime to) {
+        lock.readLock().lock();
+        try {
+            UserIndex index = users.get(userId);
+            if (index == null) return new ArrayList<>();
+            int start = index.lowerBound(AbpmCodec.toEpoch(from));
+            int end = to != null ? index.lowerBound(AbpmCodec.toEpoch(to)) : index.size;
+            List<BpReading> result = new ArrayList<>(Math.max(0, end - start));
+            for (int i = start; i < end; i++) result.add(materialize(index.locations[i]));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BpReading> findByCategorySince(long userId, Set<BpCategory> categories, LocalDateTime since) {
+        lock.readLock().lock();
+        try {
+            UserIndex index = users.get(userId);
+            List<BpReading> result = new ArrayList<>();
+            if (index == null) return result;
+            for (int i = index.lowerBound(AbpmCodec.toEpoch(since)); i < index.size; i++) {
+                long location = index.locations[i];
+                Segment seg = segment(location);
+                int slot = slot(location);
+                int category = seg.getByte(slot, CATEGORY);
+                BpCategory c = category >= 0 ? CATEGORIES[category]
+                        : BpCategory.classify(seg.getShort(slot, SYSTOLIC), seg.getShort(slot, DIASTOLIC));
+                if (categories.contains(c)) result.add(materialize(location));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BpReading> findAllNewestFirst(long userId) {
+        lock.readLock().lock();
+        try {
+            UserIndex index = users.get(userId);
+            if (index == null) return new ArrayList<>();
+            List<BpReading> result = new ArrayList<>(index.size);
+            for (int i = index.size - 1; i >= 0; i--) result.add(materialize(index.locations[i]));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BpReading> findAllById(long userId, Collection<Long> ids) {
+        lock.readLock().lock();
+        try {
+            List<BpReading> result = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Long location = latest.get(id);
+                if (location != null && isLive(location, userId)) result.add(materialize(location));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BpReading> findChangesSince(long userId, long since, int limit) {
+        lock.readLock().lock();
+        try {
+            UserIndex index = users.get(userId);
+            List<BpReading> result = new ArrayList<>();
+            if (index == null) return result;
+            for (int i = index.firstChangeAfter(since); i < index.seqCount && result.size() < limit; i++) {
+                long location = index.seqLocations[i];
+                if (isLatest(location)) result.add(materialize(location));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isLatest(long location) {
+        Long current = latest.get(segment(location).getLong(slot(location), ID));
+        return current != null && current == location;
+    }
+
+    @Override
+    public long count(long userId) {
+        lock.readLock().lock();
+        try {
+            UserIndex index = users.get(userId);
+            return index != null ? index.size : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The visitor runs under the read lock, so it must not write readings
+    @Override
+    public void forEachInRange(long userId, LocalDateTime from, LocalDateTime to, ReadingVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            UserIndex index = users.get(userId);
+            if (index == null) return;
+            int end = to != null ? index.lowerBound(AbpmCodec.toEpoch(to)) : index.size;
+            for (int i = index.lowerBound(AbpmCodec.toEpoch(from)); i < end; i++) {
+                long location = index.locations[i];
+                Segment seg = segment(location);
+                int slot = slot(location);
+                visitor.visit(seg.getLong(slot, ID), seg.getLong(slot, RECORDED), seg.getShort(slot, SYSTOLIC),
+                        seg.getShort(slot, DIASTOLIC), seg.getShort(slot, PULSE), seg.getByte(slot, CATEGORY));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Holds the read lock for one page only; ties in recorded time are in location order, so the
+    // cursor skips the ids it has already visited at its time instead of comparing ids
+    @Override
+    public int forEachRow(long userId, LocalDateTime from, Set<BpCategory> categories, boolean newestFirst,
+                          Set<ReadingField> fields, RowCursor cursor, int limit, RowVisitor visitor) {
+        boolean category = fields.contains(ReadingField.CATEGORY);
+        boolean vitals = category || fields.contains(ReadingField.SYSTOLIC) || fields.contains(ReadingField.DIASTOLIC);
+        boolean pulse = fields.contains(ReadingField.PULSE);
+        boolean notes = fields.contains(ReadingField.NOTES);
+        boolean type = fields.contains(ReadingField.READING_TYPE);
+        boolean filter = categories != null && !categories.isEmpty();
+        ReadingRow row = new ReadingRow();
+        int visited = 0;
+        lock.readLock().lock();
+        try {
+            UserIndex index = users.get(userId);
+            if (index == null) return 0;
+            int lo = from != null ? index.lowerBound(AbpmCodec.toEpoch(from)) : 0;
+            long at = cursor.time != null ? AbpmCodec.toEpoch(cursor.time) : 0;
+            int i;
+            if (cursor.time == null) i = newestFirst ? index.size - 1 : lo;
+            else i = newestFirst ? index.lowerBound(at + 1) - 1 : Math.max(lo, index.lowerBound(at));
+            for (; visited < limit && (newestFirst ? i >= lo : i < index.size); i += newestFirst ? -1 : 1) {
+                long location = index.locations[i];
+                Segment seg = segment(location);
+                int slot = slot(location);
+                long id = seg.getLong(slot, ID);
+                if (cursor.time != null && index.times[i] == at && cursor.idsAtTime.contains(id)) continue;
+                int stored = seg.getByte(slot, CATEGORY);
+                if (filter) {
+                    BpCategory c = stored >= 0 ? CATEGORIES[stored]
+                            : BpCategory.classify(seg.getShort(slot, SYSTOLIC), seg.getShort(slot, DIASTOLIC));
+                    if (!categories.contains(c)) continue;
+                }
+                row.id = id;
+                if (vitals) {
+                    row.systolic = seg.getShort(slot, SYSTOLIC);
+                    row.diastolic = seg.getShort(slot, DIASTOLIC);
+                }
+                if (pulse) row.pulse = seg.getShort(slot, PULSE);
+                if (notes) row.notes = readNotes(seg.getLong(slot, NOTES_OFFSET), seg.getShort(slot, NOTES_LENGTH));
+                row.recordedAt = AbpmCodec.fromEpoch(seg.getLong(slot, RECORDED));
+                if (type) row.readingType = READING_TYPES[seg.getByte(slot, TYPE)].name();
+                if (category) row.category = stored;
+                cursor.advance(row.recordedAt, id);
+                visitor.visit(row);
+                visited++;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return visited;
+    }
+
+    @Override
+    public boolean isRelational() {
+        return false;
+    }
+
+    // ===== Records =====
+
+    private static long location(int segment, int slot) {
+        return ((long) segment << 32) | slot;
+    }
+
+    private Segment segment(long location) {
+        return segments.get((int) (location >>> 32));
+    }
+
+    private static int slot(long location) {
+        return (int) location;
+    }
+
+    private boolean isDeleted(long location) {
+        return (segment(location).getByte(slot(location), FLAGS) & FLAG_DELETED) != 0;
+    }
+
+    private boolean isLive(long location, long userId) {
+        return !isDeleted(location) && segment(location).getLong(slot(location), USER) == userId;
+    }
+
+    // Notes first and forced, so a record never points past the end of notes.dat
+    private long[] writeNotes(List<BpReading> readings) throws IOException {
+        long[] offsets = new long[readings.size()];
+        boolean wrote = false;
+        for (int i = 0; i < readings.size(); i++) {
+            String text = readings.get(i).getNotes();
+            if (text == null) {
+                offsets[i] = -1;
+                continue;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) throw new RuntimeException("Notes are too long");
+            offsets[i] = notesEnd;
+            writeFully(notes, ByteBuffer.wrap(bytes), notesEnd);
+            notesEnd += bytes.length;
+            wrote = true;
+        }
+        if (wrote && fsync) notes.force(false);
+        return offsets;
+    }
+
+    private long append(long id, long userId, long recorded, long created, long seq, long notesOffset, int notesLength,
+                        int systolic, int diastolic, int pulse, int category, int type, int flags) {
+        Segment seg = segments.get(segments.size() - 1);
+        if (seg.used == seg.capacity) seg = addSegment();
+        int slot = seg.used;
+        writeRecord(seg, slot, id, userId, recorded, created, seq, notesOffset, notesLength,
+                systolic, diastolic, pulse, category, type, flags);
+        seg.used++;
+        long location = location(seg.number, slot);
+        apply(location, true);
+        return location;
+    }
+
+    private static void writeRecord(Segment seg, int slot, long id, long userId, long recorded, long created, long seq,
+                                    long notesOffset, int notesLength, int systolic, int diastolic, int pulse,
+                                    int category, int type, int flags) {
+        seg.putLong(slot, ID, id);
+        seg.putLong(slot, USER, userId);
+        seg.putLong(slot, RECORDED, recorded);
+        seg.putLong(slot, CREATED, created);
+        seg.putLong(slot, SEQ, seq);
+        seg.putLong(slot, NOTES_OFFSET, notesOffset);
+        seg.putShort(slot, NOTES_LENGTH, notesLength);
+        seg.putShort(slot, SYSTOLIC, systolic);
+        seg.putShort(slot, DIASTOLIC, diastolic);
+        seg.putShort(slot, PULSE, pulse);
+        seg.putByte(slot, CATEGORY, category);
+        seg.putByte(slot, TYPE, type);
+        seg.putByte(slot, FLAGS, flags);
+        seg.putByte(slot, Segment.FORMAT_OFFSET, FORMAT);
+        seg.seal(slot);
+    }
+
+    // Makes the record at location the current version of its id. Recovery passes index=false
+    // and builds the per-user indexes once at the end instead.
+    private void apply(long location, boolean index) {
+        Segment seg = segment(location);
+        int slot = slot(location);
+        long id = seg.getLong(slot, ID);
+        Long previous = latest.put(id, location);
+        if (previous != null) garbage++;
+        nextId = Math.max(nextId, id + 1);
+        records++;
+        if (!index) return;
+
+        UserIndex userIndex = users.computeIfAbsent(seg.getLong(slot, USER), k -> new UserIndex());
+        if (previous != null && !isDeleted(previous)) {
+            userIndex.flush();
+            userIndex.remove(segment(previous).getLong(slot(previous), RECORDED), previous);
+        }
+        userIndex.addChange(seg.getLong(slot, SEQ), location, true);
+        if (!isDeleted(location)) userIndex.add(seg.getLong(slot, RECORDED), location);
+    }
+
+    private void rebuildIndexes() {
+        users.clear();
+        for (long location : latest.values()) {
+            Segment seg = segment(location);
+            int slot = slot(location);
+            UserIndex userIndex = users.computeIfAbsent(seg.getLong(slot, USER), k -> new UserIndex());
+            userIndex.addChange(seg.getLong(slot, SEQ), location, false);
+            if (!isDeleted(location)) userIndex.add(seg.getLong(slot, RECORDED), location);
+        }
+        for (UserIndex userIndex : users.values()) {
+            userIndex.flush();
+            userIndex.sortChanges();
+        }
+    }
+
+    private BpReading materialize(long location) {
+        Segment seg = segment(location);
+        int slot = slot(location);
+        User user = new User();
+        user.setId(seg.getLong(slot, USER));
+        BpReading r = new BpReading();
+        r.setId(seg.getLong(slot, ID));
+        r.setUser(user);
+        r.setRecordedAt(AbpmCodec.fromEpoch(seg.getLong(slot, RECORDED)));
+        r.setChangeSeq(seg.getLong(slot, SEQ));
+        r.setSystolic(seg.getShort(slot, SYSTOLIC));
+        r.setDiastolic(seg.getShort(slot, DIASTOLIC));
+        int pulse = seg.getShort(slot, PULSE);
+        r.setPulse(pulse != 0 ? pulse : null);
+        int category = seg.getByte(slot, CATEGORY);
+        r.setCategory(category >= 0 ? CATEGORIES[category] : null);
+        r.setReadingType(READING_TYPES[seg.getByte(slot, TYPE)]);
+        r.setDeleted((seg.getByte(slot, FLAGS) & FLAG_DELETED) != 0);
+        r.setNotes(readNotes(seg.getLong(slot, NOTES_OFFSET), seg.getShort(slot, NOTES_LENGTH)));
+        return r;
+    }
+
+    private String readNotes(long offset, int length) {
+        if (offset < 0 || length == 0) return null;
+        if (offset + length > notesEnd) return null; // lost with a crash before notes.dat was forced
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        try {
+            while (buf.hasRemaining()) {
+                if (notes.read(buf, offset + buf.position()) < 0) return null;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read notes: " + e.getMessage(), e);
+        }
+        return new String(buf.array(), StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) position += channel.write(buf, position);
+    }
+
+    // ===== Files =====
+
+    private Path generationDir(long gen) {
+        return root.resolve("gen-" + gen);
+    }
+
+    private static Path segmentPath(Path genDir, int number) {
+        return genDir.resolve(String.format("seg-%06d.dat", number));
+    }
+
+    private Segment addSegment() {
+        try {
+            Segment seg = Segment.open(segmentPath(generationDir(generation), segments.size()), segments.size(),
+                    segmentRecords);
+            segments.add(seg);
+            return seg;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create segment: " + e.getMessage(), e);
+        }
+    }
+
+    private void load() throws IOException {
+        Path genDir = generationDir(generation);
+        notes = FileChannel.open(genDir.resolve("notes.dat"), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        notesEnd = notes.size();
+
+        int count;
+        try (Stream<Path> files = Files.list(genDir)) {
+            count = (int) files.filter(p -> p.getFileName().toString().startsWith("seg-")).count();
+        }
+        for (int n = 0; n < count; n++) {
+            Segment seg = Segment.open(segmentPath(genDir, n), n, segmentRecords);
+            segments.add(seg);
+            recover(seg, n == count - 1);
+        }
+        if (segments.isEmpty()) addSegment();
+        rebuildIndexes();
+    }
+
+    private void recover(Segment seg, boolean last) {
+        for (int slot = 0; slot < seg.capacity; slot++) {
+            if (!seg.isWritten(slot)) break;
+            if (!seg.isIntact(slot)) {
+                if (last) {
+                    // Torn append at the tail: drop it and anything after it
+                    log.warn("Discarding a partially written record in segment {} at slot {}", seg.number, slot);
+                    for (int s = slot; s < seg.capacity && seg.isWritten(s); s++) seg.clear(s);
+                    seg.force();
+                    break;
+                }
+                log.error("Skipping a corrupt record in segment {} at slot {}", seg.number, slot);
+                seg.used = slot + 1;
+                continue;
+            }
+            seg.used = slot + 1;
+            apply(location(seg.number, slot), false);
+        }
+    }
+
+    private void switchTo(long gen) throws IOException {
+        Path tmp = root.resolve("CURRENT.tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(ch, ByteBuffer.wrap(Long.toString(gen).getBytes(StandardCharsets.US_ASCII)), 0);
+            ch.force(true);
+        }
+        Files.move(tmp, root.resolve("CURRENT"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel d = FileChannel.open(root, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException ignored) {
+            // not every platform can sync a directory
+        }
+        generation = gen;
+    }
+
+    private void removeOtherGenerations() throws IOException {
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path p : dirs.filter(p -> p.getFileName().toString().startsWith("gen-")
+                    && !p.equals(generationDir(generation))).toList()) {
+                deleteTree(p);
+            }
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        for (Segment seg : segments) {
+            seg.force();
+            seg.close();
+        }
+        segments.clear();
+        if (notes != null) {
+            notes.force(false);
+            notes.close();
+        }
+    }
+
+    // ===== Compaction =====
+
+    @Scheduled(fixedDelayString = "${storage.mmap.compact-check-ms:60000}")
+    public void compactIfNeeded() {
+        if (records < compactMinRecords || garbage < records * compactRatio) return;
+        try {
+            compact();
+        } catch (Exception e) {
+            log.error("Reading store compaction failed, keeping generation {}: {}", generation, e.getMessage());
+        }
+    }
+
+    // Copies the current version of every id, in file order, into the next generation
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            long before = records;
+            long next = generation + 1;
+            Path target = generationDir(next);
+            if (Files.exists(target)) deleteTree(target);
+            Files.createDirectories(target);
+
+            List<Segment> copied = new ArrayList<>();
+            try (FileChannel newNotes = FileChannel.open(target.resolve("notes.dat"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long newNotesEnd = 0;
+                Segment out = Segment.open(segmentPath(target, 0), 0, segmentRecords);
+                copied.add(out);
+                for (Segment seg : segments) {
+                    for (int slot = 0; slot < seg.used; slot++) {
+                        long location = location(seg.number, slot);
+                        if (!seg.isIntact(slot) || !Objects.equals(latest.get(seg.getLong(slot, ID)), location)) continue;
+                        long notesOffset = -1;
+                        int notesLength = seg.getShort(slot, NOTES_LENGTH);
+                        String text = readNotes(seg.getLong(slot, NOTES_OFFSET), notesLength);
+                        if (text != null) {
+                            notesOffset = newNotesEnd;
+                            writeFully(newNotes, ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), newNotesEnd);
+                            newNotesEnd += notesLength;
+                        } else {
+                            notesLength = 0;
+                        }
+                        if (out.used == out.capacity) {
+                            out = Segment.open(segmentPath(target, copied.size()), copied.size(), segmentRecords);
+                            copied.add(out);
+                        }
+                        writeRecord(out, out.used++, seg.getLong(slot, ID), seg.getLong(slot, USER),
+                                seg.getLong(slot, RECORDED), seg.getLong(slot, CREATED), seg.getLong(slot, SEQ),
+                                notesOffset, notesLength, seg.getShort(slot, SYSTOLIC), seg.getShort(slot, DIASTOLIC),
+                                seg.getShort(slot, PULSE), seg.getByte(slot, CATEGORY), seg.getByte(slot, TYPE),
+                                seg.getByte(slot, FLAGS));
+                    }
+                }
+                newNotes.force(false);
+            }
+            for (Segment seg : copied) {
+                seg.force();
+                seg.close();
+            }
+
+            long previous = generation;
+            switchTo(next);
+            closeFiles();
+            latest.clear();
+            users.clear();
+            records = 0;
+            garbage = 0;
+            load();
+            deleteTree(generationDir(previous));
+            log.info("Reading store compacted into generation {}: {} -> {} records", next, before, records);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.bptracker.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped segment file of fixed-width reading records (see MappedReadingStore for the
+ * layout). The whole file is mapped once; records are read and written with absolute gets and
+ * puts, so readers never share a buffer position. A slot whose format byte is 0 has never been
+ * written; a slot is only valid if its CRC matches, which is how a torn append is detected.
+ */
+final class Segment implements Closeable {
+
+    static final int RECORD_SIZE = 64;
+    static final int CRC_OFFSET = 60;
+    static final int FORMAT_OFFSET = 59;
+
+    final int number;
+    final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    // Slots in use; only the appender moves it, under the store's write lock
+    int used;
+
+    private Segment(int number, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.capacity = capacity;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    // An existing file keeps the capacity it was created with
+    static Segment open(Path path, int number, int newCapacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        int capacity = size > 0 ? (int) (size / RECORD_SIZE) : newCapacity;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        return new Segment(number, capacity, channel, buffer);
+    }
+
+    static int base(int slot) {
+        return slot * RECORD_SIZE;
+    }
+
+    long getLong(int slot, int offset) { return buffer.getLong(base(slot) + offset); }
+    int getShort(int slot, int offset) { return buffer.getShort(base(slot) + offset); }
+    int getByte(int slot, int offset) { return buffer.get(base(slot) + offset); }
+
+    void putLong(int slot, int offset, long value) { buffer.putLong(base(slot) + offset, value); }
+    void putShort(int slot, int offset, int value) { buffer.putShort(base(slot) + offset, (short) value); }
+    void putByte(int slot, int offset, int value) { buffer.put(base(slot) + offset, (byte) value); }
+
+    boolean isWritten(int slot) {
+        return buffer.get(base(slot) + FORMAT_OFFSET) != 0;
+    }
+
+    // CRC last: a record whose CRC is in place had all its other bytes written first
+    void seal(int slot) {
+        buffer.putInt(base(slot) + CRC_OFFSET, crc(slot));
+    }
+
+    boolean isIntact(int slot) {
+        return buffer.getInt(base(slot) + CRC_OFFSET) == crc(slot);
+    }
+
+    void clear(int slot) {
+        int base = base(slot);
+        for (int i = 0; i < RECORD_SIZE; i += 8) buffer.putLong(base + i, 0L);
+    }
+
+    private int crc(int slot) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(base(slot), CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,97 @@
+package com.bptracker.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Packed sample storage for ambulatory (ABPM) sessions.
+ *
+ * Layout: a version byte, the first sample's time as epoch seconds (8 bytes, local time read as
+ * UTC), then per sample the seconds since the previous sample as an unsigned varint followed by
+ * systolic, diastolic and pulse as one unsigned byte each (pulse 0 = not recorded). Monitors
+ * sample every 15-30 minutes, so a delta takes 2 bytes and a sample 5; a 48-hour session is
+ * under 1 KB instead of ~200 rows.
+ */
+public final class AbpmCodec {
+
+    public static final int MAX_VALUE = 255;
+    private static final byte VERSION = 1;
+
+    private AbpmCodec() {}
+
+    @FunctionalInterface
+    public interface SampleVisitor {
+        void visit(long epochSecond, int systolic, int diastolic, int pulse);
+    }
+
+    public static long toEpoch(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromEpoch(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    // Appends samples in time order; add() rejects a sample older than the previous one
+    public static class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        private long previous = Long.MIN_VALUE;
+        private int count;
+
+        public void add(long epochSecond, int systolic, int diastolic, Integer pulse) {
+            if (systolic < 0 || systolic > MAX_VALUE || diastolic < 0 || diastolic > MAX_VALUE
+                    || (pulse != null && (pulse < 1 || pulse > MAX_VALUE))) {
+                throw new IllegalArgumentException("Value does not fit a packed sample");
+            }
+            if (count == 0) {
+                out.write(VERSION);
+                out.writeBytes(ByteBuffer.allocate(8).putLong(epochSecond).array());
+                writeVarint(0);
+            } else {
+                if (epochSecond < previous) {
+                    throw new IllegalArgumentException("Samples must be in time order");
+                }
+                writeVarint(epochSecond - previous);
+            }
+            out.write(systolic);
+            out.write(diastolic);
+            out.write(pulse != null ? pulse : 0);
+            previous = epochSecond;
+            count++;
+        }
+
+        public int getCount() { return count; }
+
+        public byte[] toBytes() { return out.toByteArray(); }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    // Calls the visitor once per sample, in time order, without materialising the samples
+    public static void forEach(byte[] packed, SampleVisitor visitor) {
+        if (packed == null || packed.length == 0) return;
+        if (packed[0] != VERSION) throw new IllegalArgumentException("Unknown ABPM encoding " + packed[0]);
+        ByteBuffer buf = ByteBuffer.wrap(packed, 1, packed.length - 1);
+        long time = buf.getLong();
+        while (buf.hasRemaining()) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf.get();
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            time += delta;
+            visitor.visit(time, buf.get() & 0xFF, buf.get() & 0xFF, buf.get() & 0xFF);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.bptracker.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient concurrency limit. Keeps an estimate of the no-load latency (a slowly rising minimum)
+ * and a fast-moving average of the current latency; when current latency rises above tolerance x baseline the limit is
+ * scaled down by their ratio, otherwise it grows by roughly sqrt(limit) per sample. Dropped
+ * requests (errors/timeouts) halve the limit, AIMD style.
+ *
+ * Latency is tracked per request class, since one class's fast requests say nothing about
+ * another's no-load latency. Requests that did no real work (rejections, auth failures) should
+ * be released with releaseWithoutSample so they don't drag a baseline down.
+ *
+ * Admission is by share: a request class may only start while in-flight is below
+ * share x limit, so with expensive traffic at 0.5 the other half of the limit always stays
+ * available to cheap requests.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private final double[] baselineNanos;
+    private final double[] currentNanos;
+
+    public AdaptiveConcurrencyLimit(int latencyClasses, int initialLimit, int minLimit, int maxLimit,
+                                    double tolerance, double smoothing) {
+        this.baselineNanos = new double[latencyClasses];
+        this.currentNanos = new double[latencyClasses];
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+    }
+
+    // Returns the in-flight count including this request, or -1 if it must be rejected
+    public int tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) return -1;
+            if (inFlight.compareAndSet(current, current + 1)) return current + 1;
+        }
+    }
+
+    public void release(int latencyClass, long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        update(latencyClass, rttNanos, inFlightAtStart, dropped);
+    }
+
+    // Frees the slot without feeding the latency estimate
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void update(int c, long rttNanos, int inFlightAtStart, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit / 2);
+            return;
+        }
+        if (baselineNanos[c] == 0) {
+            baselineNanos[c] = rttNanos;
+            currentNanos[c] = rttNanos;
+            return;
+        }
+        currentNanos[c] += (rttNanos - currentNanos[c]) * 0.1;
+        // Baseline follows the fastest recent requests: drops at once, rises only slowly, so a
+        // lasting change in no-load latency is picked up but queueing delay is not
+        baselineNanos[c] = Math.min(rttNanos, baselineNanos[c] + (rttNanos - baselineNanos[c]) * 0.001);
+
+        // Don't grow a limit that isn't being used
+        if (inFlightAtStart < limit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos[c] / currentNanos[c]));
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
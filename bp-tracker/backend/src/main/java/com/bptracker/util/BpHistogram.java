@@ -0,0 +1,58 @@
+package com.bptracker.util;
+
+/**
+ * Fixed-bin histogram with one bin per mmHg/bpm over [0, 300]. BP and pulse values are integers,
+ * so quantiles are exact, memory is constant and two histograms merge by adding bins.
+ */
+public class BpHistogram {
+
+    public static final int MAX_VALUE = 300;
+
+    private final long[] bins = new long[MAX_VALUE + 1];
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    public void add(int value) {
+        bins[Math.max(0, Math.min(MAX_VALUE, value))]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(BpHistogram other) {
+        for (int i = 0; i <= MAX_VALUE; i++) bins[i] += other.bins[i];
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() { return count; }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public int min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public int max() {
+        return count == 0 ? 0 : max;
+    }
+
+    // Nearest-rank quantile, q in [0, 1]; 0 when empty
+    public int quantile(double q) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i <= MAX_VALUE; i++) {
+            seen += bins[i];
+            if (seen >= rank) return i;
+        }
+        return MAX_VALUE;
+    }
+}
@@ -0,0 +1,132 @@
+package com.bptracker.util;
+
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.BpReading;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Writes readings column by column (epoch seconds, int arrays, category ordinals + legend)
+ * straight to a streaming generator, as JSON or CBOR. No per-point DTOs are created. A missing
+ * pulse is null in the pulse column, as in the JSON DTOs.
+ */
+@Component
+public class ColumnarReadingWriter {
+
+    public static final String COLUMNAR_JSON_VALUE = "application/vnd.bptracker.columnar+json";
+    public static final String CBOR_VALUE = "application/cbor";
+    public static final MediaType COLUMNAR_JSON = MediaType.parseMediaType(COLUMNAR_JSON_VALUE);
+    public static final MediaType CBOR = MediaType.parseMediaType(CBOR_VALUE);
+
+    private static final BpCategory[] CATEGORIES = BpCategory.values();
+    private static final BpReading.ReadingType[] READING_TYPES = BpReading.ReadingType.values();
+
+    private final JsonFactory jsonFactory;
+    private final CBORFactory cborFactory = new CBORFactory();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    @Autowired
+    public ColumnarReadingWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    // Returns CBOR or columnar JSON only when the Accept header names one explicitly, else null
+    public MediaType select(String accept) {
+        if (accept == null || accept.isEmpty()) return null;
+        for (MediaType type : MediaType.parseMediaTypes(accept)) {
+            if (type.isWildcardType() || type.isWildcardSubtype()) continue;
+            if (type.isCompatibleWith(CBOR)) return CBOR;
+            if (type.isCompatibleWith(COLUMNAR_JSON)) return COLUMNAR_JSON;
+        }
+        return null;
+    }
+
+    public void writeGraph(List<BpReading> readings, MediaType type, OutputStream out) throws IOException {
+        try (JsonGenerator gen = createGenerator(type, out)) {
+            gen.writeStartObject();
+            gen.writeNumberField("count", readings.size());
+            writeLegend(gen);
+            writeTimes(gen, readings);
+            writeVitals(gen, readings);
+            writeCategories(gen, readings);
+            gen.writeEndObject();
+        }
+    }
+
+    public void writeReadings(List<BpReading> readings, MediaType type, OutputStream out) throws IOException {
+        try (JsonGenerator gen = createGenerator(type, out)) {
+            gen.writeStartObject();
+            gen.writeNumberField("count", readings.size());
+            writeLegend(gen);
+            gen.writeArrayFieldStart("typeLegend");
+            for (BpReading.ReadingType t : READING_TYPES) gen.writeString(t.name());
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("id");
+            for (BpReading r : readings) gen.writeNumber(r.getId());
+            gen.writeEndArray();
+            writeTimes(gen, readings);
+            writeVitals(gen, readings);
+            writeCategories(gen, readings);
+
+            gen.writeArrayFieldStart("type");
+            for (BpReading r : readings) {
+                gen.writeNumber(r.getReadingType() != null ? r.getReadingType().ordinal() : 0);
+            }
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("notes");
+            for (BpReading r : readings) {
+                if (r.getNotes() != null) gen.writeString(r.getNotes()); else gen.writeNull();
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    private JsonGenerator createGenerator(MediaType type, OutputStream out) throws IOException {
+        return CBOR.isCompatibleWith(type) ? cborFactory.createGenerator(out) : jsonFactory.createGenerator(out);
+    }
+
+    private void writeLegend(JsonGenerator gen) throws IOException {
+        gen.writeArrayFieldStart("legend");
+        for (BpCategory c : CATEGORIES) gen.writeString(c.getLabel());
+        gen.writeEndArray();
+    }
+
+    private void writeTimes(JsonGenerator gen, List<BpReading> readings) throws IOException {
+        gen.writeArrayFieldStart("t");
+        for (BpReading r : readings) gen.writeNumber(r.getRecordedAt().atZone(zone).toEpochSecond());
+        gen.writeEndArray();
+    }
+
+    private void writeVitals(JsonGenerator gen, List<BpReading> readings) throws IOException {
+        gen.writeArrayFieldStart("sys");
+        for (BpReading r : readings) gen.writeNumber(r.getSystolic());
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("dia");
+        for (BpReading r : readings) gen.writeNumber(r.getDiastolic());
+        gen.writeEndArray();
+        gen.writeArrayFieldStart("pulse");
+        for (BpReading r : readings) {
+            if (r.getPulse() != null) gen.writeNumber(r.getPulse()); else gen.writeNull();
+        }
+        gen.writeEndArray();
+    }
+
+    private void writeCategories(JsonGenerator gen, List<BpReading> readings) throws IOException {
+        gen.writeArrayFieldStart("cat");
+        for (BpReading r : readings) gen.writeNumber(BpCategory.of(r).ordinal());
+        gen.writeEndArray();
+    }
+}
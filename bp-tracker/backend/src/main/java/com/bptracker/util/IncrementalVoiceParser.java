@@ -0,0 +1,214 @@
+package com.bptracker.util;
+
+import com.bptracker.dto.ReadingDtos.ParsedReadingResponse;
+
+/**
+ * Per-session parser for live dictation. Text arrives as deltas of a growing transcript and is
+ * consumed exactly once: a small lexer splits it into words, digit runs and "/", number words
+ * are folded into numbers ("one hundred twenty" -> 120), and the resulting tokens are matched
+ * against the same patterns as {@link VoiceParserUtil} using only the last three tokens.
+ *
+ * State that spans deltas (a half-typed word, a number still being spoken, a trailing "over"
+ * or "pulse") is carried over, so each update costs time proportional to the new text only.
+ *
+ * Validation and messages are shared with VoiceParserUtil, and both read only whole 2-3 digit
+ * numbers, but the tokenisation is not identical. The lexer matches keywords as whole words
+ * (the regexes also find "pulse 72" inside "xpulse 72") and splits number words on any
+ * non-letter ("one-twenty" is 21 here and no number for the regex parser). Don't expect the
+ * same result from both for such input.
+ * Not thread-safe; one instance per session.
+ */
+public class IncrementalVoiceParser {
+
+    private static final int MAX_FRAGMENT = 32;
+
+    private enum Kind { WORD, NUMBER, SLASH }
+
+    // eligible = the 2-3 digit numbers the regex parser would match
+    private record Token(Kind kind, String word, int value, boolean eligible) {
+        boolean is(String w) { return kind == Kind.WORD && word.equals(w); }
+        boolean isNumber() { return kind == Kind.NUMBER && eligible; }
+        boolean isSeparator() { return kind == Kind.SLASH || is("over") || is("by"); }
+    }
+
+    // Token matching state; copied to evaluate the unfinished tail without consuming it
+    private static final class State {
+        Token back1, back2, back3;
+        int accumulated;
+        boolean inNumber;
+        boolean sawInput;
+        Integer pairSystolic, pairDiastolic, trailingPulse;
+        Integer keywordSystolic, keywordDiastolic, keywordPulse;
+
+        State copy() {
+            State s = new State();
+            s.back1 = back1; s.back2 = back2; s.back3 = back3;
+            s.accumulated = accumulated; s.inNumber = inNumber; s.sawInput = sawInput;
+            s.pairSystolic = pairSystolic; s.pairDiastolic = pairDiastolic; s.trailingPulse = trailingPulse;
+            s.keywordSystolic = keywordSystolic; s.keywordDiastolic = keywordDiastolic; s.keywordPulse = keywordPulse;
+            return s;
+        }
+
+        void acceptWord(String word) {
+            sawInput = true;
+            Integer val = VoiceParserUtil.WORD_MAP.get(word);
+            if (val != null) {
+                if (val == 100) {
+                    accumulated = accumulated == 0 ? 100 : accumulated * 100;
+                } else {
+                    accumulated += val;
+                }
+                inNumber = true;
+                return;
+            }
+            flushNumber();
+            match(new Token(Kind.WORD, word, 0, false));
+        }
+
+        void acceptDigits(int value, int digits) {
+            sawInput = true;
+            flushNumber();
+            match(new Token(Kind.NUMBER, null, value, digits >= 2 && digits <= 3));
+        }
+
+        void acceptSlash() {
+            sawInput = true;
+            flushNumber();
+            match(new Token(Kind.SLASH, null, 0, false));
+        }
+
+        void flushNumber() {
+            if (!inNumber) return;
+            int digits = String.valueOf(accumulated).length();
+            Token number = new Token(Kind.NUMBER, null, accumulated, digits >= 2 && digits <= 3);
+            accumulated = 0;
+            inNumber = false;
+            match(number);
+        }
+
+        // Every pattern ends in a number, so only numbers can complete a match; first match wins
+        private void match(Token t) {
+            if (t.isNumber()) {
+                // 120 over 80, 120 by 80, 120/80
+                if (pairSystolic == null && back2 != null && back2.isNumber() && back1.isSeparator()) {
+                    pairSystolic = back2.value();
+                    pairDiastolic = t.value();
+                }
+                // 120 over 80 72
+                if (trailingPulse == null && back3 != null && back3.isNumber() && back2.isSeparator() && back1.isNumber()) {
+                    trailingPulse = t.value();
+                }
+                if (keywordSystolic == null && keywordBefore("systolic")) keywordSystolic = t.value();
+                if (keywordDiastolic == null && keywordBefore("diastolic")) keywordDiastolic = t.value();
+                if (keywordPulse == null && pulseKeywordBefore()) keywordPulse = t.value();
+            }
+            back3 = back2;
+            back2 = back1;
+            back1 = t;
+        }
+
+        // "<keyword> N" or "<keyword> is N"
+        private boolean keywordBefore(String keyword) {
+            if (back1 == null) return false;
+            if (back1.is(keyword)) return true;
+            return back1.is("is") && back2 != null && back2.is(keyword);
+        }
+
+        // pulse, hr, heart rate, pulse rate; each optionally followed by "is"
+        private boolean pulseKeywordBefore() {
+            Token k1 = back1, k2 = back2;
+            if (k1 != null && k1.is("is")) {
+                k1 = back2;
+                k2 = back3;
+            }
+            if (k1 == null) return false;
+            if (k1.is("pulse") || k1.is("hr")) return true;
+            return k1.is("rate") && k2 != null && (k2.is("heart") || k2.is("pulse"));
+        }
+
+        ParsedReadingResponse toResponse() {
+            ParsedReadingResponse response = new ParsedReadingResponse();
+            if (!sawInput) {
+                response.setSuccess(false);
+                response.setMessage("No input provided");
+                return response;
+            }
+            Integer systolic = pairSystolic != null ? pairSystolic : keywordSystolic;
+            Integer diastolic = pairDiastolic != null ? pairDiastolic : keywordDiastolic;
+            Integer pulse = keywordPulse != null ? keywordPulse : trailingPulse;
+            return VoiceParserUtil.toResponse(response, systolic, diastolic, pulse);
+        }
+    }
+
+    private State state = new State();
+
+    // Unfinished token at the end of the text seen so far; it may continue in the next delta
+    private final StringBuilder fragment = new StringBuilder();
+    private Kind fragmentKind;
+    private int fragmentLength;
+    private long length;
+
+    public ParsedReadingResponse append(String delta) {
+        if (delta != null) {
+            length += delta.length();
+            for (int i = 0; i < delta.length(); i++) {
+                consume(Character.toLowerCase(delta.charAt(i)));
+            }
+        }
+        return current();
+    }
+
+    // Best parse so far, treating the unfinished tail as if the transcript ended here
+    public ParsedReadingResponse current() {
+        State tentative = state.copy();
+        if (fragmentKind != null) emit(tentative);
+        tentative.flushNumber();
+        return tentative.toResponse();
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public void reset() {
+        state = new State();
+        fragment.setLength(0);
+        fragmentKind = null;
+        fragmentLength = 0;
+        length = 0;
+    }
+
+    private void consume(char c) {
+        Kind kind = Character.isLetter(c) ? Kind.WORD
+                : c >= '0' && c <= '9' ? Kind.NUMBER
+                : c == '/' ? Kind.SLASH
+                : null;
+        if (kind != null && kind == fragmentKind && kind != Kind.SLASH) {
+            if (fragment.length() < MAX_FRAGMENT) fragment.append(c);
+            fragmentLength++;
+            return;
+        }
+        if (fragmentKind != null) {
+            emit(state);
+            fragment.setLength(0);
+            fragmentKind = null;
+            fragmentLength = 0;
+        }
+        if (kind == Kind.SLASH) {
+            state.acceptSlash();
+        } else if (kind != null) {
+            fragment.append(c);
+            fragmentKind = kind;
+            fragmentLength = 1;
+        }
+    }
+
+    private void emit(State target) {
+        if (fragmentKind == Kind.WORD) {
+            target.acceptWord(fragment.toString());
+        } else {
+            int value = fragmentLength <= 3 ? Integer.parseInt(fragment.toString()) : -1;
+            target.acceptDigits(value, fragmentLength);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.bptracker.util;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits notes into lowercase letter/digit tokens for the note index.
+ * "Voice: 150 over 95, after coffee" -> [voice, 150, over, 95, after, coffee]
+ */
+public final class NoteTokenizer {
+
+    public static final int MAX_TERM_LENGTH = 32;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private NoteTokenizer() {}
+
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) return tokens;
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (token.isEmpty()) continue;
+            tokens.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bptracker.util;
+
+import com.bptracker.model.BpReading;
+
+/**
+ * Bounded-memory summary of a set of readings: one histogram each for systolic, diastolic
+ * and pulse. Built in one pass and mergeable, so per-day sketches can be combined into any range.
+ */
+public class ReadingSketch {
+
+    private final BpHistogram systolic = new BpHistogram();
+    private final BpHistogram diastolic = new BpHistogram();
+    private final BpHistogram pulse = new BpHistogram();
+
+    public void add(BpReading r) {
+        add(r.getSystolic(), r.getDiastolic(), r.getPulse());
+    }
+
+    public void add(int sys, int dia, Integer pulseValue) {
+        systolic.add(sys);
+        diastolic.add(dia);
+        if (pulseValue != null) pulse.add(pulseValue);
+    }
+
+    public ReadingSketch merge(ReadingSketch other) {
+        systolic.merge(other.systolic);
+        diastolic.merge(other.diastolic);
+        pulse.merge(other.pulse);
+        return this;
+    }
+
+    public long getCount() { return systolic.getCount(); }
+    public BpHistogram getSystolic() { return systolic; }
+    public BpHistogram getDiastolic() { return diastolic; }
+    public BpHistogram getPulse() { return pulse; }
+}
@@ -0,0 +1,80 @@
+package com.bptracker.util;
+
+import com.bptracker.model.BpCategory;
+import com.bptracker.model.ReadingField;
+import com.bptracker.repository.ReadingStore;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Writes readings for a fields= request as a JSON array of objects holding only the requested
+ * properties, in the same names and formats as BpReadingResponse. Rows go from the store's scan
+ * straight to the generator; no response objects are built.
+ */
+@Component
+public class SparseReadingWriter {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final BpCategory[] CATEGORIES = BpCategory.values();
+
+    private final JsonFactory jsonFactory;
+
+    @Autowired
+    public SparseReadingWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    // scan feeds every row to the visitor it is given; returns the number of rows written
+    public int write(Set<ReadingField> fields, Consumer<ReadingStore.RowVisitor> scan, OutputStream out) throws IOException {
+        ReadingField[] order = fields.toArray(new ReadingField[0]);
+        int[] count = new int[1];
+        try (JsonGenerator gen = jsonFactory.createGenerator(out)) {
+            gen.writeStartArray();
+            try {
+                scan.accept(row -> {
+                    try {
+                        writeRow(gen, row, order);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            gen.writeEndArray();
+        }
+        return count[0];
+    }
+
+    private void writeRow(JsonGenerator gen, ReadingStore.ReadingRow row, ReadingField[] order) throws IOException {
+        gen.writeStartObject();
+        for (ReadingField f : order) {
+            gen.writeFieldName(f.getProperty());
+            switch (f) {
+                case ID -> gen.writeNumber(row.id);
+                case SYSTOLIC -> gen.writeNumber(row.systolic);
+                case DIASTOLIC -> gen.writeNumber(row.diastolic);
+                case PULSE -> {
+                    if (row.pulse != 0) gen.writeNumber(row.pulse); else gen.writeNull();
+                }
+                case NOTES -> gen.writeString(row.notes);
+                case RECORDED_AT -> gen.writeString(FORMATTER.format(row.recordedAt));
+                case READING_TYPE -> gen.writeString(row.readingType != null ? row.readingType : "MANUAL");
+                case CATEGORY -> gen.writeString((row.category >= 0 ? CATEGORIES[row.category]
+                        : BpCategory.classify(row.systolic, row.diastolic)).getLabel());
+            }
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,54 @@
+package com.bptracker.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets keyed by user, implemented as GCRA: each bucket is a single
+ * AtomicLong "theoretical arrival time" updated with CAS, which is equivalent to a token bucket
+ * of the given capacity and refill rate. Lookups go through a ConcurrentHashMap (internally
+ * striped, lock-free reads). Fully refilled buckets carry no state and are evicted when idle.
+ */
+public class TokenBucketStore {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxBuckets;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketStore(int capacity, double refillPerSecond, int maxBuckets) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, capacity - 1);
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Takes one token. Returns 0 if allowed, otherwise the nanoseconds until a token is available.
+     */
+    public long tryAcquire(String key, long nowNanos) {
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            // Full store: fail open rather than grow without bound; the sweep frees idle buckets
+            if (buckets.size() >= maxBuckets) return 0;
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        }
+        while (true) {
+            long current = tat.get();
+            long start = Math.max(current, nowNanos);
+            long wait = start - burstToleranceNanos - nowNanos;
+            if (wait > 0) return wait;
+            if (tat.compareAndSet(current, start + emissionIntervalNanos)) return 0;
+        }
+    }
+
+    // Drops buckets that have been fully refilled for at least idleNanos
+    public int evictIdle(long nowNanos, long idleNanos) {
+        int before = buckets.size();
+        buckets.values().removeIf(tat -> nowNanos - tat.get() > idleNanos);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
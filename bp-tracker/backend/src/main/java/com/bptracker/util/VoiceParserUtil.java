@@ -1,6 +1,7 @@
 package com.bptracker.util;
 
 import com.bptracker.dto.ReadingDtos.ParsedReadingResponse;
+import com.bptracker.jfr.VoiceParseEvent;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -11,7 +12,18 @@ import java.util.regex.Pattern;
 @Component
 public class VoiceParserUtil {
 
-    private static final Map<String, Integer> WORD_MAP = new HashMap<>();
+    static final Map<String, Integer> WORD_MAP = new HashMap<>();
+
+    // Compiled once; parse() runs on every dictation update. Numbers are whole digit runs of 2-3
+    // digits ("1200 over 80" is not read as 200/80)
+    private static final String N = "(?<!\\d)(\\d{2,3})(?!\\d)";
+    private static final Pattern BP_PAIR = Pattern.compile(N + "\\s*(?:over|by|/)\\s*" + N);
+    private static final Pattern SYSTOLIC = Pattern.compile("systolic\\s+(?:is\\s+)?" + N);
+    private static final Pattern DIASTOLIC = Pattern.compile("diastolic\\s+(?:is\\s+)?" + N);
+    private static final Pattern PULSE = Pattern.compile("(?:pulse|heart rate|pulse rate|hr)\\s+(?:is\\s+)?" + N);
+    private static final Pattern BP_PAIR_PULSE = Pattern.compile(N + "\\s*(?:over|by|/)\\s*" + N + "\\s+" + N);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_LETTERS = Pattern.compile("[^a-z]");
 
     static {
         WORD_MAP.put("zero", 0); WORD_MAP.put("one", 1); WORD_MAP.put("two", 2);
@@ -27,6 +39,27 @@ public class VoiceParserUtil {
     }
 
     public ParsedReadingResponse parse(String rawText) {
+        VoiceParseEvent event = new VoiceParseEvent();
+        event.begin();
+        ParsedReadingResponse response = doParse(rawText);
+        if (event.shouldCommit()) {
+            event.inputLength = rawText != null ? rawText.length() : 0;
+            event.outcome = outcomeOf(response);
+            event.commit();
+        }
+        return response;
+    }
+
+    private static String outcomeOf(ParsedReadingResponse response) {
+        String message = response.getMessage();
+        if (response.isSuccess()) return "success";
+        if (message.startsWith("No input")) return "empty";
+        if (message.startsWith("Could not find")) return "no_match";
+        if (message.startsWith("BP values seem out of range")) return "out_of_range";
+        return "error";
+    }
+
+    private ParsedReadingResponse doParse(String rawText) {
         ParsedReadingResponse response = new ParsedReadingResponse();
         response.setRawText(rawText);
 
@@ -40,45 +73,44 @@ public class VoiceParserUtil {
         String normalized = convertWordsToDigits(rawText.toLowerCase().trim());
 
         try {
-            Integer systolic = extractSystolic(normalized);
-            Integer diastolic = extractDiastolic(normalized);
-            Integer pulse = extractPulse(normalized);
-
-            if (systolic == null || diastolic == null) {
-                response.setSuccess(false);
-                response.setMessage("Could not find BP values. Try saying: '120 over 80 pulse 72'");
-                return response;
-            }
+            return toResponse(response, extractSystolic(normalized), extractDiastolic(normalized), extractPulse(normalized));
+        } catch (Exception e) {
+            response.setSuccess(false);
+            response.setMessage("Parse error: " + e.getMessage());
+        }
 
-            if (systolic < 60 || systolic > 250 || diastolic < 40 || diastolic > 150) {
-                response.setSuccess(false);
-                response.setMessage("BP values seem out of range. Please check: systolic=" + systolic + ", diastolic=" + diastolic);
-                return response;
-            }
+        return response;
+    }
 
-            response.setSystolic(systolic);
-            response.setDiastolic(diastolic);
-            response.setPulse(pulse);
-            response.setSuccess(true);
-            response.setMessage("Successfully parsed: " + systolic + "/" + diastolic + (pulse != null ? " pulse " + pulse : ""));
+    // Shared with IncrementalVoiceParser so both paths validate and word results the same way
+    static ParsedReadingResponse toResponse(ParsedReadingResponse response, Integer systolic, Integer diastolic, Integer pulse) {
+        if (systolic == null || diastolic == null) {
+            response.setSuccess(false);
+            response.setMessage("Could not find BP values. Try saying: '120 over 80 pulse 72'");
+            return response;
+        }
 
-        } catch (Exception e) {
+        if (systolic < 60 || systolic > 250 || diastolic < 40 || diastolic > 150) {
             response.setSuccess(false);
-            response.setMessage("Parse error: " + e.getMessage());
+            response.setMessage("BP values seem out of range. Please check: systolic=" + systolic + ", diastolic=" + diastolic);
+            return response;
         }
 
+        response.setSystolic(systolic);
+        response.setDiastolic(diastolic);
+        response.setPulse(pulse);
+        response.setSuccess(true);
+        response.setMessage("Successfully parsed: " + systolic + "/" + diastolic + (pulse != null ? " pulse " + pulse : ""));
         return response;
     }
 
     private Integer extractSystolic(String text) {
         // Pattern: 120 over 80, 120/80, 120 by 80
-        Pattern p1 = Pattern.compile("(\\d{2,3})\\s*(?:over|by|/)\\s*(\\d{2,3})");
-        Matcher m1 = p1.matcher(text);
+        Matcher m1 = BP_PAIR.matcher(text);
         if (m1.find()) return Integer.parseInt(m1.group(1));
 
         // Pattern: systolic 120 or systolic is 120
-        Pattern p2 = Pattern.compile("systolic\\s+(?:is\\s+)?(\\d{2,3})");
-        Matcher m2 = p2.matcher(text);
+        Matcher m2 = SYSTOLIC.matcher(text);
         if (m2.find()) return Integer.parseInt(m2.group(1));
 
         return null;
@@ -86,13 +118,11 @@ public class VoiceParserUtil {
 
     private Integer extractDiastolic(String text) {
         // Pattern: 120 over 80, 120/80
-        Pattern p1 = Pattern.compile("(\\d{2,3})\\s*(?:over|by|/)\\s*(\\d{2,3})");
-        Matcher m1 = p1.matcher(text);
+        Matcher m1 = BP_PAIR.matcher(text);
         if (m1.find()) return Integer.parseInt(m1.group(2));
 
         // Pattern: diastolic 80
-        Pattern p2 = Pattern.compile("diastolic\\s+(?:is\\s+)?(\\d{2,3})");
-        Matcher m2 = p2.matcher(text);
+        Matcher m2 = DIASTOLIC.matcher(text);
         if (m2.find()) return Integer.parseInt(m2.group(1));
 
         return null;
@@ -100,26 +130,24 @@ public class VoiceParserUtil {
 
     private Integer extractPulse(String text) {
         // Pattern: pulse 72, heart rate 72, pulse rate 72
-        Pattern p1 = Pattern.compile("(?:pulse|heart rate|pulse rate|hr)\\s+(?:is\\s+)?(\\d{2,3})");
-        Matcher m1 = p1.matcher(text);
+        Matcher m1 = PULSE.matcher(text);
         if (m1.find()) return Integer.parseInt(m1.group(1));
 
         // Trailing number after BP: 120/80 72 OR 120 over 80 72
-        Pattern p2 = Pattern.compile("(\\d{2,3})\\s*(?:over|by|/)\\s*(\\d{2,3})\\s+(\\d{2,3})");
-        Matcher m2 = p2.matcher(text);
+        Matcher m2 = BP_PAIR_PULSE.matcher(text);
         if (m2.find()) return Integer.parseInt(m2.group(3));
 
         return null;
     }
 
     public String convertWordsToDigits(String text) {
-        String[] words = text.split("\\s+");
+        String[] words = WHITESPACE.split(text);
         StringBuilder result = new StringBuilder();
         int accumulated = 0;
         boolean inNumber = false;
 
         for (String word : words) {
-            String clean = word.replaceAll("[^a-z]", "");
+            String clean = NON_LETTERS.matcher(word).replaceAll("");
             if (WORD_MAP.containsKey(clean)) {
                 int val = WORD_MAP.get(clean);
                 if (val == 100) {
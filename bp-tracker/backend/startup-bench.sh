@@ -0,0 +1,63 @@
+#!/bin/bash
+# Startup benchmark: time from JVM launch to the first successful /api/readings/summary
+# response, with and without the JDK AOT cache.
+#
+#   mvn -Paot-cache package
+#   ./startup-bench.sh [runs]
+#
+# Each run starts the extracted jar on an in-memory H2 database (application-training.properties),
+# registers a user, logs in and polls the summary endpoint until it returns 200.
+#
+# The AOT run uses the bean graph fixed at build time (see the aot-cache profile in pom.xml):
+# passing e.g. --storage.backend=mmap or --app.sharding.enabled=true here would be ignored for it.
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/aot/bp-tracker-1.0.0.jar"
+CACHE="$DIR/target/aot/app.aot"
+BASE="http://localhost:$PORT"
+
+if [ ! -f "$JAR" ] || [ ! -f "$CACHE" ]; then
+    echo "Missing $JAR or $CACHE - run 'mvn -Paot-cache package' first"
+    exit 1
+fi
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+time_to_summary() {
+    local start token pid
+    start=$(now_ms)
+    java "$@" -Dspring.aot.enabled=true -jar "$JAR" \
+        --spring.config.location=classpath:/application-training.properties \
+        --server.port="$PORT" > /dev/null 2>&1 &
+    pid=$!
+
+    until curl -sf -o /dev/null -X POST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d '{"username":"bench","email":"bench@example.com","password":"bench123"}'; do
+        sleep 0.01
+    done
+    token=$(curl -sf -X POST "$BASE/api/auth/login" -H 'Content-Type: application/json' \
+        -d '{"username":"bench","password":"bench123"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+    until curl -sf -o /dev/null "$BASE/api/readings/summary?range=7d" -H "Authorization: Bearer $token"; do
+        sleep 0.01
+    done
+    echo $(( $(now_ms) - start ))
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+}
+
+median() { sort -n | awk '{a[NR]=$1} END {print a[int((NR+1)/2)]}'; }
+
+run_series() {
+    local label=$1; shift
+    local results=()
+    for ((i = 1; i <= RUNS; i++)); do
+        results+=("$(time_to_summary "$@")")
+    done
+    echo "$label: ${results[*]} ms (median $(printf '%s\n' "${results[@]}" | median) ms)"
+}
+
+run_series "without AOT cache"
+run_series "with AOT cache   " -XX:AOTCache="$CACHE"
@@ -0,0 +1,95 @@
+#!/bin/bash
+# Reading storage backends side by side on an embedded setup: JPA on in-memory H2
+# (application-training.properties) against the memory-mapped store (storage.backend=mmap).
+# For each: single-reading writes, bulk ingest throughput, then p50/p99 and requests/s for
+# range reads (graph and raw readings, range=all) over the loaded data.
+#
+# Needs hey (https://github.com/rakyll/hey) on the PATH.
+#
+#   mvn package
+#   ./storage-bench.sh [readings] [seconds-per-read-phase]
+#
+# Coalescing and rate limiting are off so every read reaches the store.
+
+READINGS=${1:-100000}
+DURATION=${2:-20}
+CONCURRENCY=${CONCURRENCY:-16}
+PORT=${PORT:-18086}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+BASE="http://localhost:$PORT"
+
+command -v hey > /dev/null || { echo "hey not found"; exit 1; }
+[ -f "$JAR" ] || { echo "Missing $JAR - run 'mvn package' first"; exit 1; }
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+# hey summary -> "p50 <ms> ms, p99 <ms> ms, <n> req/s"
+report() {
+    echo "$1" | awk '/50% in/ {p50 = $3 * 1000} /99% in/ {p99 = $3 * 1000} /Requests\/sec/ {rps = $2}
+        END {printf "p50 %.1f ms, p99 %.1f ms, %.0f req/s", p50, p99, rps}'
+}
+
+# Ingest bodies of 1000 readings each, one minute apart going back from now
+make_bodies() {
+    local out=$1 now
+    now=$(date +%s)
+    seq 0 $((READINGS - 1)) | awk -v now="$now" '{print "@" (now - $1 * 60)}' \
+        | date -f - +%Y-%m-%dT%H:%M:%S \
+        | awk -v out="$out" '{
+            i = NR - 1
+            if (i % 1000 == 0) { if (i > 0) print "]}" > f; close(f); f = sprintf("%s/%06d.json", out, i / 1000)
+                                 printf "{\"deviceId\":\"bench\",\"readings\":[" > f }
+            else printf "," > f
+            printf "{\"systolic\":%d,\"diastolic\":%d,\"pulse\":%d,\"recordedAt\":\"%s\"}", \
+                110 + i % 60, 70 + i % 40, 60 + i % 30, $1 > f
+          } END { print "]}" > f }'
+}
+
+BODIES=$(mktemp -d)
+trap 'rm -rf "$BODIES"' EXIT
+make_bodies "$BODIES"
+
+run_backend() {
+    local label=$1; shift
+    local pid token start data
+    data=$(mktemp -d)
+    java -jar "$JAR" --spring.config.location=classpath:/application-training.properties \
+        --server.port="$PORT" --ratelimit.enabled=false --coalesce.enabled=false \
+        --storage.mmap.dir="$data" "$@" > /dev/null 2>&1 &
+    pid=$!
+
+    until curl -sf -o /dev/null -X POST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d '{"username":"bench","email":"bench@example.com","password":"bench123"}'; do
+        sleep 0.2
+    done
+    token=$(curl -sf -X POST "$BASE/api/auth/login" -H 'Content-Type: application/json' \
+        -d '{"username":"bench","password":"bench123"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+    echo "$label"
+    start=$(now_ms)
+    for ((i = 0; i < 500; i++)); do
+        curl -s -o /dev/null -X POST "$BASE/api/readings" -H "Authorization: Bearer $token" \
+            -H 'Content-Type: application/json' -d "{\"systolic\":$((110 + i % 60)),\"diastolic\":$((70 + i % 40))}"
+    done
+    echo "  single writes: 500 in $(( $(now_ms) - start )) ms"
+
+    start=$(now_ms)
+    for body in "$BODIES"/*.json; do
+        curl -s -o /dev/null -X POST "$BASE/api/readings/ingest" -H "Authorization: Bearer $token" \
+            -H 'Content-Type: application/json' --data-binary @"$body"
+    done
+    echo "  bulk ingest:   $READINGS in $(( $(now_ms) - start )) ms"
+
+    for path in "graph?range=all" "?range=all" "summary?range=3m"; do
+        echo "  GET /api/readings/$path: $(report "$(hey -z "${DURATION}s" -c "$CONCURRENCY" \
+            -H "Authorization: Bearer $token" "$BASE/api/readings/$path")")"
+    done
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+    rm -rf "$data"
+}
+
+run_backend "jpa (H2 in memory)" --storage.backend=jpa
+run_backend "mmap"               --storage.backend=mmap
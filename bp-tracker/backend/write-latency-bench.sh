@@ -0,0 +1,57 @@
+#!/bin/bash
+# Write latency benchmark for the reading outbox: client-observed POST /api/readings latency
+# with the outbox off, on without consumers, and on with a consumer attached.
+#
+#   mvn package
+#   ./write-latency-bench.sh [writes]
+#
+# Each series starts the jar on an in-memory H2 database (application-training.properties),
+# registers a user, discards a warm-up round and then times every write with curl.
+
+WRITES=${1:-2000}
+WARMUP=${WARMUP:-500}
+PORT=${PORT:-18081}
+DIR="$(cd "$(dirname "$0")" && pwd)"
+JAR="$DIR/target/bp-tracker-1.0.0.jar"
+BASE="http://localhost:$PORT"
+
+if [ ! -f "$JAR" ]; then
+    echo "Missing $JAR - run 'mvn package' first"
+    exit 1
+fi
+
+percentile() { sort -n | awk -v p="$1" '{a[NR]=$1} END {i=int(NR*p/100); if (i<1) i=1; print a[i]}'; }
+
+write_once() {
+    curl -s -o /dev/null -w '%{time_total}\n' -X POST "$BASE/api/readings" \
+        -H "Authorization: Bearer $1" -H 'Content-Type: application/json' \
+        -d "{\"systolic\":$((110 + RANDOM % 60)),\"diastolic\":$((70 + RANDOM % 40)),\"pulse\":72,\"notes\":\"bench\"}"
+}
+
+run_series() {
+    local label=$1; shift
+    local pid token times
+    java -jar "$JAR" --spring.config.location=classpath:/application-training.properties \
+        --server.port="$PORT" --ratelimit.enabled=false "$@" > /dev/null 2>&1 &
+    pid=$!
+
+    until curl -sf -o /dev/null -X POST "$BASE/api/auth/register" -H 'Content-Type: application/json' \
+        -d '{"username":"bench","email":"bench@example.com","password":"bench123"}'; do
+        sleep 0.1
+    done
+    token=$(curl -sf -X POST "$BASE/api/auth/login" -H 'Content-Type: application/json' \
+        -d '{"username":"bench","password":"bench123"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+    for ((i = 0; i < WARMUP; i++)); do write_once "$token" > /dev/null; done
+    times=$(for ((i = 0; i < WRITES; i++)); do write_once "$token"; done | awk '{printf "%.2f\n", $1 * 1000}')
+
+    echo "$label: p50 $(echo "$times" | percentile 50) ms, p90 $(echo "$times" | percentile 90) ms," \
+         "p99 $(echo "$times" | percentile 99) ms over $WRITES writes"
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+}
+
+run_series "outbox off                " --outbox.enabled=false --outbox.consumers.lag-metrics.enabled=false
+run_series "outbox on, no consumers   " --outbox.consumers.lag-metrics.enabled=false
+run_series "outbox on, lag consumer   "
@@ -0,0 +1,10 @@
+-- ============================================
+-- BP TRACKER - add the stored BP category to an existing database
+-- Run on the main database (and on every shard when sharding is enabled),
+-- then start one instance with --app.category-backfill.enabled=true to fill
+-- the column for rows written before this change.
+-- ============================================
+
+ALTER TABLE bp_readings
+    ADD COLUMN category TINYINT COMMENT 'BpCategory ordinal, set at write time' AFTER reading_type,
+    ADD INDEX idx_user_category (user_id, category, recorded_at);
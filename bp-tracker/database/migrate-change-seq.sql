@@ -0,0 +1,22 @@
+-- ============================================
+-- BP TRACKER - add delta sync columns to an existing database
+-- Run on the main database (and on every shard when sharding is enabled)
+-- before deploying the version with GET /api/readings/changes.
+-- ============================================
+
+ALTER TABLE bp_readings
+    ADD COLUMN change_seq BIGINT COMMENT 'Per-user change sequence, see user_change_seqs',
+    ADD COLUMN deleted BOOLEAN NOT NULL DEFAULT FALSE COMMENT 'Tombstone kept for sync',
+    ADD INDEX idx_user_change (user_id, change_seq);
+
+CREATE TABLE IF NOT EXISTS user_change_seqs (
+    user_id   BIGINT PRIMARY KEY,
+    last_seq  BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+-- Existing rows: ids already increase per user, so they can serve as the first sequence numbers
+UPDATE bp_readings SET change_seq = id WHERE change_seq IS NULL;
+
+INSERT INTO user_change_seqs (user_id, last_seq)
+SELECT user_id, MAX(change_seq) FROM bp_readings GROUP BY user_id
+ON DUPLICATE KEY UPDATE last_seq = GREATEST(last_seq, VALUES(last_seq));
@@ -0,0 +1,10 @@
+-- ============================================
+-- BP TRACKER - report job owner and heartbeat on an existing database
+-- Run on the main database before deploying the version that fails stale report jobs by
+-- heartbeat. Jobs unfinished at that point have no owner and are never failed as stale;
+-- retention cleanup removes them.
+-- ============================================
+
+ALTER TABLE report_jobs
+    ADD COLUMN owner        VARCHAR(64) COMMENT 'Node that queued the job',
+    ADD COLUMN heartbeat_at DATETIME    COMMENT 'Last time the owner reported the job still in hand';
@@ -0,0 +1,7 @@
+-- ============================================
+-- BP TRACKER - millisecond revoke-all timestamps on an existing database
+-- Run on the main database before deploying the version whose tokens carry iatMs.
+-- ============================================
+
+ALTER TABLE revoked_tokens
+    MODIFY revoked_at DATETIME(3) NOT NULL;
@@ -36,16 +36,228 @@ CREATE TABLE IF NOT EXISTS bp_readings (
     pulse         INT          COMMENT 'Heart rate (bpm)',
     notes         VARCHAR(500) COMMENT 'Optional notes',
     reading_type  ENUM('MANUAL','VOICE','TEXT') DEFAULT 'MANUAL',
+    category      TINYINT      COMMENT 'BpCategory ordinal, set at write time',
     recorded_at   DATETIME     NOT NULL COMMENT 'When the reading was taken',
     created_at    DATETIME     DEFAULT CURRENT_TIMESTAMP,
+    change_seq    BIGINT       COMMENT 'Per-user change sequence, see user_change_seqs',
+    deleted       BOOLEAN      NOT NULL DEFAULT FALSE COMMENT 'Tombstone kept for sync',
 
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
 
     INDEX idx_user_id    (user_id),
     INDEX idx_recorded   (user_id, recorded_at DESC),
-    INDEX idx_range      (user_id, recorded_at)
+    INDEX idx_range      (user_id, recorded_at),
+    INDEX idx_user_category (user_id, category, recorded_at),
+    INDEX idx_user_change   (user_id, change_seq)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- ============================================
+-- ABPM SESSIONS (ambulatory monitoring, samples packed, see AbpmCodec)
+-- ============================================
+CREATE TABLE IF NOT EXISTS abpm_sessions (
+    id               BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id          BIGINT       NOT NULL,
+    device_id        VARCHAR(64),
+    started_at       DATETIME     NOT NULL,
+    ended_at         DATETIME     NOT NULL,
+    sample_count     INT          NOT NULL,
+    avg_systolic     DOUBLE,
+    avg_diastolic    DOUBLE,
+    day_systolic     DOUBLE,
+    day_diastolic    DOUBLE,
+    night_systolic   DOUBLE,
+    night_diastolic  DOUBLE,
+    dipping_ratio    DOUBLE       COMMENT 'Night / day mean systolic',
+    dipping_pattern  VARCHAR(24),
+    samples          BLOB         NOT NULL COMMENT 'Delta-encoded times, one byte per value',
+    created_at       DATETIME     DEFAULT CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+
+    INDEX idx_abpm_user_end (user_id, ended_at)
+) ENGINE=InnoDB;
+
+-- ============================================
+-- READING NOTE TERMS (inverted index over bp_readings.notes, see NoteIndexService)
+-- ============================================
+CREATE TABLE IF NOT EXISTS reading_note_terms (
+    user_id      BIGINT      NOT NULL,
+    term         VARCHAR(32) NOT NULL,
+    recorded_at  DATETIME    NOT NULL,
+    reading_id   BIGINT      NOT NULL,
+
+    PRIMARY KEY (user_id, term, recorded_at, reading_id),
+    INDEX idx_note_terms_reading (reading_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin;
+
+-- ============================================
+-- READING EVENTS (transactional outbox, see ReadingEventDispatcher)
+-- ============================================
+CREATE TABLE IF NOT EXISTS reading_events (
+    id           BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id      BIGINT      NOT NULL,
+    reading_id   BIGINT      NOT NULL,
+    event_type   VARCHAR(16) NOT NULL COMMENT 'CREATED or DELETED',
+    systolic     INT,
+    diastolic    INT,
+    pulse        INT,
+    recorded_at  DATETIME,
+    created_at   DATETIME    NOT NULL,
+
+    INDEX idx_events_created (created_at)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS reading_event_checkpoints (
+    consumer       VARCHAR(64) PRIMARY KEY,
+    last_event_id  BIGINT      NOT NULL
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS reading_event_parked (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    consumer    VARCHAR(64)  NOT NULL,
+    event_id    BIGINT       NOT NULL,
+    user_id     BIGINT       NOT NULL,
+    error       VARCHAR(500),
+    parked_at   DATETIME     NOT NULL,
+
+    INDEX idx_parked_consumer (consumer, event_id)
+) ENGINE=InnoDB;
+
+-- ============================================
+-- USER CHANGE SEQUENCES (per-user counter behind bp_readings.change_seq)
+-- ============================================
+CREATE TABLE IF NOT EXISTS user_change_seqs (
+    user_id   BIGINT PRIMARY KEY,
+    last_seq  BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+-- ============================================
+-- REPORT JOBS (async doctor reports, see ReportJobService)
+-- ============================================
+CREATE TABLE IF NOT EXISTS report_jobs (
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id       BIGINT       NOT NULL,
+    request_key   VARCHAR(64)  NOT NULL COMMENT 'from|to|options',
+    from_date     DATE         NOT NULL,
+    to_date       DATE         NOT NULL,
+    monthly       BOOLEAN      NOT NULL DEFAULT TRUE,
+    percentiles   BOOLEAN      NOT NULL DEFAULT TRUE,
+    alerts        BOOLEAN      NOT NULL DEFAULT TRUE,
+    status        VARCHAR(16)  NOT NULL,
+    progress      INT          NOT NULL DEFAULT 0,
+    change_seq    BIGINT       COMMENT 'User change_seq the result was computed at',
+    result        LONGTEXT,
+    error         VARCHAR(500),
+    created_at    DATETIME     NOT NULL,
+    started_at    DATETIME,
+    finished_at   DATETIME,
+    owner         VARCHAR(64)  COMMENT 'Node that queued the job',
+    heartbeat_at  DATETIME     COMMENT 'Last time the owner reported the job still in hand',
+
+    INDEX idx_report_user_key (user_id, request_key),
+    INDEX idx_report_created  (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- REVOKED TOKENS (JWT denylist, see TokenRevocationService)
+-- token_id is a jti, or user:<username> for "sign out everywhere"
+-- ============================================
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    token_id    VARCHAR(80)  PRIMARY KEY,
+    username    VARCHAR(50)  NOT NULL,
+    revoked_at  DATETIME(3)  NOT NULL,
+    expires_at  DATETIME     NOT NULL COMMENT 'Row can be dropped once the covered tokens have expired',
+
+    INDEX idx_revoked_expires (expires_at)
+) ENGINE=InnoDB;
+
+-- ============================================
+-- CACHE INVALIDATIONS (broadcast between backend instances, see DbInvalidationChannel)
+-- Polled by every node; rows are purged after invalidation.retention-ms
+-- ============================================
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+    id           BIGINT       AUTO_INCREMENT PRIMARY KEY,
+    kind         VARCHAR(24)  NOT NULL,
+    user_id      BIGINT       NOT NULL,
+    username     VARCHAR(50),
+    detail       VARCHAR(100),
+    origin       VARCHAR(64)  NOT NULL COMMENT 'Node id of the publisher, which skips its own rows',
+    published_at BIGINT       NOT NULL COMMENT 'Epoch millis on the publisher',
+
+    INDEX idx_invalidation_published (published_at)
+) ENGINE=InnoDB;
+
+-- ============================================
+-- WEEKLY DIGESTS (batch output, see DigestBatchService)
+-- digest_partitions is the checkpoint: a listed partition's digests are committed
+-- ============================================
+CREATE TABLE IF NOT EXISTS digest_runs (
+    week_start      DATE         PRIMARY KEY COMMENT 'Monday of the digested week',
+    first_user_id   BIGINT       NOT NULL,
+    last_user_id    BIGINT       NOT NULL,
+    partition_size  INT          NOT NULL,
+    partitions      INT          NOT NULL,
+    status          VARCHAR(16)  NOT NULL COMMENT 'RUNNING, DONE or INCOMPLETE',
+    started_at      DATETIME     NOT NULL,
+    finished_at     DATETIME
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS digest_partitions (
+    id            BIGINT    AUTO_INCREMENT PRIMARY KEY,
+    week_start    DATE      NOT NULL,
+    partition_no  INT       NOT NULL,
+    users         INT       NOT NULL,
+    finished_at   DATETIME  NOT NULL,
+
+    UNIQUE KEY uk_digest_partition (week_start, partition_no)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS weekly_digests (
+    id                  BIGINT        AUTO_INCREMENT PRIMARY KEY,
+    user_id             BIGINT        NOT NULL,
+    week_start          DATE          NOT NULL,
+    reading_count       INT           NOT NULL,
+    avg_systolic        DOUBLE,
+    avg_diastolic       DOUBLE,
+    avg_pulse           DOUBLE,
+    max_systolic        INT,
+    max_diastolic       INT,
+    hypertensive_count  INT           NOT NULL,
+    crisis_count        INT           NOT NULL,
+    systolic_change     DOUBLE        COMMENT 'Least-squares systolic change over the week (mmHg)',
+    trend               VARCHAR(32),
+    category            VARCHAR(32),
+    created_at          DATETIME      NOT NULL,
+
+    UNIQUE KEY uk_digest_user_week (user_id, week_start),
+    INDEX idx_digest_week (week_start, user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- USER SHARDS (directory, only used with app.sharding.enabled=true)
+-- Users moved by the rebalancer are pinned here; others use the id hash.
+-- ============================================
+CREATE TABLE IF NOT EXISTS user_shards (
+    user_id  BIGINT PRIMARY KEY,
+    shard    INT    NOT NULL
+) ENGINE=InnoDB;
+
+-- ============================================
+-- CARE LINKS (patient grants a caregiver/clinician read access)
+-- ============================================
+CREATE TABLE IF NOT EXISTS care_links (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    viewer_id   BIGINT   NOT NULL,
+    patient_id  BIGINT   NOT NULL,
+    created_at  DATETIME DEFAULT CURRENT_TIMESTAMP,
+
+    FOREIGN KEY (viewer_id)  REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (patient_id) REFERENCES users(id) ON DELETE CASCADE,
+
+    UNIQUE KEY uk_care_link (viewer_id, patient_id),
+    INDEX idx_care_viewer   (viewer_id)
+) ENGINE=InnoDB;
+
 -- ============================================
 -- SAMPLE DATA (optional - remove if not needed)
 -- ============================================
@@ -0,0 +1,116 @@
+-- ============================================
+-- BP TRACKER - Reading shard schema
+-- Run once on every shard database when app.sharding.enabled=true.
+-- The users table stays on the directory database (schema.sql), so there is
+-- no foreign key from bp_readings.user_id here.
+-- ============================================
+
+-- Ids must not collide across shards, because the rebalancer copies rows with their ids.
+-- Give shard k of N its own id sequence, e.g. for shard 2 of 4 (in my.cnf, or per session):
+--   SET GLOBAL auto_increment_increment = 4;
+--   SET GLOBAL auto_increment_offset    = 3;
+
+CREATE DATABASE IF NOT EXISTS bp_tracker_shard
+  CHARACTER SET utf8mb4
+  COLLATE utf8mb4_unicode_ci;
+
+USE bp_tracker_shard;
+
+CREATE TABLE IF NOT EXISTS bp_readings (
+    id            BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id       BIGINT       NOT NULL,
+    systolic      INT          NOT NULL COMMENT 'Upper BP value (mmHg)',
+    diastolic     INT          NOT NULL COMMENT 'Lower BP value (mmHg)',
+    pulse         INT          COMMENT 'Heart rate (bpm)',
+    notes         VARCHAR(500) COMMENT 'Optional notes',
+    reading_type  ENUM('MANUAL','VOICE','TEXT') DEFAULT 'MANUAL',
+    category      TINYINT      COMMENT 'BpCategory ordinal, set at write time',
+    recorded_at   DATETIME     NOT NULL COMMENT 'When the reading was taken',
+    created_at    DATETIME     DEFAULT CURRENT_TIMESTAMP,
+    change_seq    BIGINT       COMMENT 'Per-user change sequence, see user_change_seqs',
+    deleted       BOOLEAN      NOT NULL DEFAULT FALSE COMMENT 'Tombstone kept for sync',
+
+    INDEX idx_user_id    (user_id),
+    INDEX idx_recorded   (user_id, recorded_at DESC),
+    INDEX idx_range      (user_id, recorded_at),
+    INDEX idx_user_category (user_id, category, recorded_at),
+    INDEX idx_user_change   (user_id, change_seq)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- ============================================
+-- ABPM SESSIONS (ambulatory monitoring, samples packed, see AbpmCodec)
+-- ============================================
+CREATE TABLE IF NOT EXISTS abpm_sessions (
+    id               BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id          BIGINT       NOT NULL,
+    device_id        VARCHAR(64),
+    started_at       DATETIME     NOT NULL,
+    ended_at         DATETIME     NOT NULL,
+    sample_count     INT          NOT NULL,
+    avg_systolic     DOUBLE,
+    avg_diastolic    DOUBLE,
+    day_systolic     DOUBLE,
+    day_diastolic    DOUBLE,
+    night_systolic   DOUBLE,
+    night_diastolic  DOUBLE,
+    dipping_ratio    DOUBLE       COMMENT 'Night / day mean systolic',
+    dipping_pattern  VARCHAR(24),
+    samples          BLOB         NOT NULL COMMENT 'Delta-encoded times, one byte per value',
+    created_at       DATETIME     DEFAULT CURRENT_TIMESTAMP,
+
+    INDEX idx_abpm_user_end (user_id, ended_at)
+) ENGINE=InnoDB;
+
+-- ============================================
+-- READING NOTE TERMS (inverted index over bp_readings.notes, see NoteIndexService)
+-- ============================================
+CREATE TABLE IF NOT EXISTS reading_note_terms (
+    user_id      BIGINT      NOT NULL,
+    term         VARCHAR(32) NOT NULL,
+    recorded_at  DATETIME    NOT NULL,
+    reading_id   BIGINT      NOT NULL,
+
+    PRIMARY KEY (user_id, term, recorded_at, reading_id),
+    INDEX idx_note_terms_reading (reading_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin;
+
+-- ============================================
+-- READING EVENTS (transactional outbox, see ReadingEventDispatcher)
+-- ============================================
+CREATE TABLE IF NOT EXISTS reading_events (
+    id           BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id      BIGINT      NOT NULL,
+    reading_id   BIGINT      NOT NULL,
+    event_type   VARCHAR(16) NOT NULL COMMENT 'CREATED or DELETED',
+    systolic     INT,
+    diastolic    INT,
+    pulse        INT,
+    recorded_at  DATETIME,
+    created_at   DATETIME    NOT NULL,
+
+    INDEX idx_events_created (created_at)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS reading_event_checkpoints (
+    consumer       VARCHAR(64) PRIMARY KEY,
+    last_event_id  BIGINT      NOT NULL
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS reading_event_parked (
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    consumer    VARCHAR(64)  NOT NULL,
+    event_id    BIGINT       NOT NULL,
+    user_id     BIGINT       NOT NULL,
+    error       VARCHAR(500),
+    parked_at   DATETIME     NOT NULL,
+
+    INDEX idx_parked_consumer (consumer, event_id)
+) ENGINE=InnoDB;
+
+-- ============================================
+-- USER CHANGE SEQUENCES (per-user counter behind bp_readings.change_seq)
+-- ============================================
+CREATE TABLE IF NOT EXISTS user_change_seqs (
+    user_id   BIGINT PRIMARY KEY,
+    last_seq  BIGINT NOT NULL
+) ENGINE=InnoDB;
@@ -35,6 +35,9 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
+    // Revoke the token server-side too; sign out locally even if that call fails
+    const token = localStorage.getItem('token');
+    if (token) authAPI.logout(token).catch(() => {});
     localStorage.clear();
     setUser(null);
   };
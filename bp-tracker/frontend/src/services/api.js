@@ -22,6 +22,9 @@ API.interceptors.response.use(
 export const authAPI = {
   register: (data) => API.post('/auth/register', data),
   login: (data) => API.post('/auth/login', data),
+  // Token passed explicitly: the caller clears localStorage before the interceptor runs
+  logout: (token) => API.post('/auth/logout', null, { headers: { Authorization: `Bearer ${token}` } }),
+  logoutAll: () => API.post('/auth/logout-all'),
 };
 
 export const readingsAPI = {